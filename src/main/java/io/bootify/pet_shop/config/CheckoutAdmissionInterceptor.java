@@ -0,0 +1,67 @@
+package io.bootify.pet_shop.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.bootify.pet_shop.services.CheckoutWaitingRoom;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pasa la creación de pedidos por la sala de espera. Si no hay turno responde 503 con
+ * Retry-After y la posición en la cola, antes de que la petición toque la base de datos.
+ */
+@Component
+@RequiredArgsConstructor
+public class CheckoutAdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String TICKET_ATTRIBUTE = CheckoutAdmissionInterceptor.class.getName() + ".ticket";
+
+    private final CheckoutWaitingRoom waitingRoom;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (!"POST".equalsIgnoreCase(request.getMethod())) {
+            return true;
+        }
+        CheckoutWaitingRoom.Ticket ticket = waitingRoom.enter();
+        if (ticket.isAdmitted()) {
+            request.setAttribute(TICKET_ATTRIBUTE, ticket);
+            response.setHeader("X-Checkout-Wait-Ms", String.valueOf(ticket.getWaitedMillis()));
+            return true;
+        }
+
+        long retryAfterSeconds = Math.max(1, (ticket.getEstimatedWaitMillis() + 999) / 1000);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", "QUEUED");
+        body.put("reason", ticket.getReason());
+        body.put("position", ticket.getPosition());
+        body.put("estimatedWaitSeconds", retryAfterSeconds);
+        body.put("message", "Hay muchos pedidos en proceso. Tu pedido se reintentará en unos segundos.");
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getWriter(), body);
+        return false;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        if (request.getAttribute(TICKET_ATTRIBUTE) instanceof CheckoutWaitingRoom.Ticket ticket) {
+            request.removeAttribute(TICKET_ATTRIBUTE);
+            waitingRoom.leave(ticket);
+        }
+    }
+}
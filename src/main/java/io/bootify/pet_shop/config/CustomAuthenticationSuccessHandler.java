@@ -1,9 +1,11 @@
 package io.bootify.pet_shop.config;
 
 import io.bootify.pet_shop.models.Role;
+import io.bootify.pet_shop.services.GuestCartService;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
@@ -13,13 +15,21 @@ import java.io.IOException;
 import java.util.Collection;
 
 @Component
+@RequiredArgsConstructor
 public class CustomAuthenticationSuccessHandler implements AuthenticationSuccessHandler {
 
+    private final GuestCartService guestCartService;
+
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response,
                                       Authentication authentication) throws IOException, ServletException {
         
         Collection<? extends GrantedAuthority> authorities = authentication.getAuthorities();
+
+        // Lo que el cliente agregó como visitante pasa a su carrito
+        if (hasRole(authorities, Role.CUSTOMER)) {
+            guestCartService.mergeIntoCustomerCart(request, response, authentication.getName());
+        }
         
         String redirectUrl = determineTargetUrl(authorities);
         response.sendRedirect(redirectUrl);
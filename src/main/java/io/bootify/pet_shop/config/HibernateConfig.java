@@ -0,0 +1,16 @@
+package io.bootify.pet_shop.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HibernateConfig {
+
+    // Se aplica después de application.properties, así que reemplaza al dialecto configurado allí
+    @Bean
+    public HibernatePropertiesCustomizer dialectCustomizer() {
+        return properties -> properties.put(AvailableSettings.DIALECT, PetShopPostgreSQLDialect.class.getName());
+    }
+}
@@ -0,0 +1,27 @@
+package io.bootify.pet_shop.config;
+
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.jdbc.dialect.spi.DialectResolutionInfo;
+
+/**
+ * PostgreSQLDialect sin UPDATE ... RETURNING. Con RETURNING Hibernate lee las columnas
+ * generadas (products.stock_tier) en la misma sentencia, y cuando @Version no coincide
+ * y no se actualiza ninguna fila falla con "no natively generated values" en lugar de un
+ * conflicto optimista, así que OptimisticRetryExecutor nunca reintentaba. Sin RETURNING
+ * primero se verifica la versión y después se relee la columna generada con un SELECT.
+ */
+public class PetShopPostgreSQLDialect extends PostgreSQLDialect {
+
+    public PetShopPostgreSQLDialect() {
+        super();
+    }
+
+    public PetShopPostgreSQLDialect(DialectResolutionInfo info) {
+        super(info);
+    }
+
+    @Override
+    public boolean supportsUpdateReturning() {
+        return false;
+    }
+}
@@ -0,0 +1,10 @@
+package io.bootify.pet_shop.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+    // Habilita las tareas @Scheduled (refresco de índices en memoria, limpiezas periódicas)
+}
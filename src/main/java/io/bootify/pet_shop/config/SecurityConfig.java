@@ -82,7 +82,8 @@ public class SecurityConfig {
                                 "/api/auth/**",
                                 "/api/products/public/**",
                                 "/api/categories/**",
-                                "/api/images/**")
+                                "/api/images/**",
+                                "/api/guest/**")
                         .permitAll()
 
                         // NUEVAS RUTAS ESPECÍFICAS
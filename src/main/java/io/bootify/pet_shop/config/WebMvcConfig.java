@@ -0,0 +1,21 @@
+package io.bootify.pet_shop.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final CheckoutAdmissionInterceptor checkoutAdmissionInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Sólo la creación de pedidos pasa por la sala de espera; consultar pedidos no
+        registry.addInterceptor(checkoutAdmissionInterceptor).addPathPatterns("/api/customer/orders");
+    }
+
+}
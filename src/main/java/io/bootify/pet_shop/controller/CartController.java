@@ -1,5 +1,6 @@
 package io.bootify.pet_shop.controller;
 
+import io.bootify.pet_shop.dto.CartBatchUpdateRequestDTO;
 import io.bootify.pet_shop.dto.CartResponseDTO;
 import io.bootify.pet_shop.services.CartService;
 import lombok.RequiredArgsConstructor;
@@ -34,6 +35,11 @@ public class CartController {
         return ResponseEntity.ok(cartService.updateCartItem(productId, quantity));
     }
 
+    @PatchMapping("/items")
+    public ResponseEntity<CartResponseDTO> applyBatch(@RequestBody CartBatchUpdateRequestDTO request) {
+        return ResponseEntity.ok(cartService.applyBatch(request));
+    }
+
     @DeleteMapping("/items/{productId}")
     public ResponseEntity<CartResponseDTO> removeFromCart(@PathVariable Long productId) {
         return ResponseEntity.ok(cartService.removeFromCart(productId));
@@ -45,6 +51,11 @@ public class CartController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/reserve")
+    public ResponseEntity<CartResponseDTO> reserveForCheckout() {
+        return ResponseEntity.ok(cartService.reserveForCheckout());
+    }
+
     @GetMapping("/count")
     public ResponseEntity<Integer> getCartItemCount() {
         return ResponseEntity.ok(cartService.getCartItemCount());
@@ -1,10 +1,13 @@
 package io.bootify.pet_shop.controller;
 
 import io.bootify.pet_shop.dto.CategoryResponseDTO;
+import io.bootify.pet_shop.services.CatalogService;
 import io.bootify.pet_shop.services.CategoryService;
+import io.bootify.pet_shop.util.HttpCaching;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -14,14 +17,24 @@ import java.util.List;
 public class CategoryCustomerController {
 
     private final CategoryService categoryService;
+    private final CatalogService catalogService;
 
+    // El conteo de productos por categoría también cambia con la versión del catálogo
     @GetMapping
-    public ResponseEntity<List<CategoryResponseDTO>> getAllCategories() {
-        return ResponseEntity.ok(categoryService.getAllCategories());
+    public ResponseEntity<List<CategoryResponseDTO>> getAllCategories(WebRequest webRequest) {
+        String etag = catalogService.catalogETag();
+        if (webRequest.checkNotModified(etag)) {
+            return HttpCaching.notModified(etag);
+        }
+        return HttpCaching.ok(etag, categoryService.getAllCategories());
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryResponseDTO> getCategoryById(@PathVariable Long id) {
-        return ResponseEntity.ok(categoryService.getCategoryById(id));
+    public ResponseEntity<CategoryResponseDTO> getCategoryById(@PathVariable Long id, WebRequest webRequest) {
+        String etag = catalogService.catalogETag();
+        if (webRequest.checkNotModified(etag)) {
+            return HttpCaching.notModified(etag);
+        }
+        return HttpCaching.ok(etag, categoryService.getCategoryById(id));
     }
 }
\ No newline at end of file
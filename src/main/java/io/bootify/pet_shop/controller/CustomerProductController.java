@@ -1,12 +1,22 @@
 package io.bootify.pet_shop.controller;
 
+import io.bootify.pet_shop.dto.CursorPageDTO;
+import io.bootify.pet_shop.dto.ProductFacetsDTO;
 import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.dto.ProductSearchResponseDTO;
+import io.bootify.pet_shop.dto.ProductSuggestionDTO;
+import io.bootify.pet_shop.dto.StockAvailabilityDTO;
 import io.bootify.pet_shop.models.ProductType;
-import io.bootify.pet_shop.services.ProductService;
+import io.bootify.pet_shop.services.CatalogService;
+import io.bootify.pet_shop.services.ProductSuggestService;
+import io.bootify.pet_shop.services.SecurityService;
+import io.bootify.pet_shop.services.StockReservationService;
+import io.bootify.pet_shop.util.HttpCaching;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -16,10 +26,13 @@ import java.util.List;
 @PreAuthorize("hasRole('CUSTOMER')")
 public class CustomerProductController {
 
-    private final ProductService productService;
+    private final CatalogService catalogService;
+    private final ProductSuggestService productSuggestService;
+    private final StockReservationService stockReservationService;
+    private final SecurityService securityService;
 
     @GetMapping
-    public ResponseEntity<List<ProductResponseDTO>> getProducts(
+    public ResponseEntity<byte[]> getProducts(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) List<Long> category,
             @RequestParam(required = false) List<ProductType> type,
@@ -28,20 +41,76 @@ public class CustomerProductController {
             @RequestParam(required = false) Boolean inStock,
             @RequestParam(defaultValue = "name") String sort,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "12") int size) {
+            @RequestParam(defaultValue = "12") int size,
+            WebRequest webRequest) {
 
-        return ResponseEntity.ok(productService.getProductsWithFilters(
+        String etag = catalogService.catalogETag();
+        if (webRequest.checkNotModified(etag)) {
+            return HttpCaching.notModified(etag);
+        }
+        return HttpCaching.okJson(etag, catalogService.getProductsJson(
                 search, category, type, minPrice, maxPrice, inStock, sort, page, size));
     }
 
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDTO<ProductResponseDTO>> scrollProducts(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) List<Long> category,
+            @RequestParam(required = false) List<ProductType> type,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(defaultValue = "name") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size) {
+
+        return ResponseEntity.ok(catalogService.scrollProducts(
+                search, category, type, minPrice, maxPrice, inStock, sort, cursor, size));
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacetsDTO> getFacets(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) List<Long> category,
+            @RequestParam(required = false) List<ProductType> type,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Boolean inStock) {
+
+        return ResponseEntity.ok(catalogService.getFacets(search, category, type, minPrice, maxPrice, inStock));
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponseDTO> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+    public ResponseEntity<ProductResponseDTO> getProductById(@PathVariable Long id, WebRequest webRequest) {
+        String etag = catalogService.productETag(id);
+        if (etag == null) {
+            return ResponseEntity.ok(catalogService.getProduct(id));
+        }
+        if (webRequest.checkNotModified(etag)) {
+            return HttpCaching.notModified(etag);
+        }
+        return HttpCaching.ok(etag, catalogService.getProduct(id));
+    }
+
+    // Stock del snapshot menos lo apartado por otros clientes; no consulta la base de datos
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<StockAvailabilityDTO> getAvailability(@PathVariable Long id) {
+        ProductResponseDTO product = catalogService.getProduct(id);
+        int stock = product.getStock() != null ? product.getStock() : 0;
+        return ResponseEntity.ok(stockReservationService.availability(
+                id, securityService.getCurrentUsername(), stock));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<ProductResponseDTO>> searchProducts(
+    public ResponseEntity<ProductSearchResponseDTO> searchProducts(
             @RequestParam String keyword) {
-        return ResponseEntity.ok(productService.searchProducts(keyword));
+        return ResponseEntity.ok(catalogService.searchProducts(keyword));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestionDTO>> suggestProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(productSuggestService.suggest(q, limit));
     }
-}
\ No newline at end of file
+}
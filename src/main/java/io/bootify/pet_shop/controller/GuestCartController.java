@@ -0,0 +1,54 @@
+package io.bootify.pet_shop.controller;
+
+import io.bootify.pet_shop.dto.CartResponseDTO;
+import io.bootify.pet_shop.services.GuestCartService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/guest/cart")
+@RequiredArgsConstructor
+public class GuestCartController {
+
+    private final GuestCartService guestCartService;
+
+    @GetMapping
+    public ResponseEntity<CartResponseDTO> getCart(HttpServletRequest request) {
+        return ResponseEntity.ok(guestCartService.getCart(request));
+    }
+
+    @PostMapping("/items/{productId}")
+    public ResponseEntity<CartResponseDTO> addToCart(
+            @PathVariable Long productId,
+            @RequestParam Integer quantity,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        return ResponseEntity.ok(guestCartService.addToCart(request, response, productId, quantity));
+    }
+
+    @PutMapping("/items/{productId}")
+    public ResponseEntity<CartResponseDTO> updateCartItem(
+            @PathVariable Long productId,
+            @RequestParam Integer quantity,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        return ResponseEntity.ok(guestCartService.updateCartItem(request, response, productId, quantity));
+    }
+
+    @DeleteMapping("/items/{productId}")
+    public ResponseEntity<CartResponseDTO> removeFromCart(
+            @PathVariable Long productId,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        return ResponseEntity.ok(guestCartService.removeFromCart(request, response, productId));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<Void> clearCart(HttpServletRequest request, HttpServletResponse response) {
+        guestCartService.clearCart(request, response);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,52 @@
+package io.bootify.pet_shop.controller;
+
+import io.bootify.pet_shop.dto.InventoryMovementDTO;
+import io.bootify.pet_shop.dto.InventoryReconciliationDTO;
+import io.bootify.pet_shop.dto.ReplenishmentSuggestionDTO;
+import io.bootify.pet_shop.dto.StockAtDTO;
+import io.bootify.pet_shop.services.InventoryHistoryService;
+import io.bootify.pet_shop.services.ReplenishmentService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/super-admin/inventory")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('SUPER_ADMIN')")
+public class InventoryController {
+
+    private final InventoryHistoryService inventoryHistoryService;
+    private final ReplenishmentService replenishmentService;
+
+    @GetMapping("/products/{id}/movements")
+    public ResponseEntity<List<InventoryMovementDTO>> getMovements(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(inventoryHistoryService.getMovements(id, page, size));
+    }
+
+    @GetMapping("/products/{id}/stock-at")
+    public ResponseEntity<StockAtDTO> getStockAt(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(inventoryHistoryService.getStockAt(id, at));
+    }
+
+    @PostMapping("/reconcile")
+    public ResponseEntity<InventoryReconciliationDTO> reconcile() {
+        return ResponseEntity.ok(inventoryHistoryService.reconcile());
+    }
+
+    @GetMapping("/replenishment")
+    public ResponseEntity<List<ReplenishmentSuggestionDTO>> getReplenishment(
+            @RequestParam(defaultValue = "false") boolean onlyNeeded) {
+        return ResponseEntity.ok(replenishmentService.getSuggestions(onlyNeeded));
+    }
+}
@@ -1,8 +1,17 @@
 package io.bootify.pet_shop.controller;
 
+import io.bootify.pet_shop.dto.BulkStockUpdateRequestDTO;
+import io.bootify.pet_shop.dto.BulkStockUpdateResponseDTO;
+import io.bootify.pet_shop.dto.CursorPageDTO;
+import io.bootify.pet_shop.dto.FlashSaleStatusDTO;
 import io.bootify.pet_shop.dto.ProductRequestDTO;
 import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.dto.ProductStatsDTO;
+import io.bootify.pet_shop.dto.StockTierSummaryDTO;
 import io.bootify.pet_shop.dto.StockUpdateRequestDTO;
+import io.bootify.pet_shop.models.ProductType;
+import io.bootify.pet_shop.models.StockTier;
+import io.bootify.pet_shop.services.FlashSaleService;
 import io.bootify.pet_shop.services.ProductService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
@@ -19,6 +28,7 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final FlashSaleService flashSaleService;
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<ProductResponseDTO> createProduct(
@@ -31,6 +41,27 @@ public class ProductController {
         return ResponseEntity.ok(productService.getAllProducts());
     }
 
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPageDTO<ProductResponseDTO>> scrollProducts(
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Long category,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(required = false) List<ProductType> type,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(defaultValue = "name") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(productService.scrollAllProducts(search, category, active, type, minPrice, maxPrice,
+                inStock, sort, cursor, size));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<ProductStatsDTO> getProductStats() {
+        return ResponseEntity.ok(productService.getProductStats());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponseDTO> getProductById(@PathVariable Long id) {
         return ResponseEntity.ok(productService.getProductById(id));
@@ -50,6 +81,28 @@ public class ProductController {
         return ResponseEntity.ok(productService.updateStock(id, request));
     }
 
+    @PatchMapping("/bulk-stock")
+    public ResponseEntity<BulkStockUpdateResponseDTO> bulkUpdateStock(
+            @RequestBody BulkStockUpdateRequestDTO request) {
+        return ResponseEntity.ok(productService.bulkUpdateStock(request));
+    }
+
+    @GetMapping("/flash-sale")
+    public ResponseEntity<List<FlashSaleStatusDTO>> getFlashSales() {
+        return ResponseEntity.ok(flashSaleService.getStatus());
+    }
+
+    @PostMapping("/{id}/flash-sale")
+    public ResponseEntity<FlashSaleStatusDTO> enableFlashSale(@PathVariable Long id) {
+        return ResponseEntity.ok(flashSaleService.enable(id));
+    }
+
+    @DeleteMapping("/{id}/flash-sale")
+    public ResponseEntity<Void> disableFlashSale(@PathVariable Long id) {
+        flashSaleService.disable(id);
+        return ResponseEntity.noContent().build();
+    }
+
     @PatchMapping("/{id}/toggle-status")
     public ResponseEntity<ProductResponseDTO> toggleProductStatus(@PathVariable Long id) {
         return ResponseEntity.ok(productService.toggleProductStatus(id));
@@ -60,6 +113,12 @@ public class ProductController {
         return ResponseEntity.ok(productService.getLowStockProducts());
     }
 
+    @GetMapping("/stock-tiers")
+    public ResponseEntity<StockTierSummaryDTO> getStockTierSummary(
+            @RequestParam(defaultValue = "OUT_OF_STOCK,CRITICAL,LOW") List<StockTier> tiers) {
+        return ResponseEntity.ok(productService.getStockTierSummary(tiers));
+    }
+
     @GetMapping("/search")
     public ResponseEntity<List<ProductResponseDTO>> searchProducts(
             @RequestParam String keyword) {
@@ -30,7 +30,6 @@ public class UserController {
         model.addAttribute("pageTitle", "Mi Cuenta - PetLuz");
         model.addAttribute("userRole", "CUSTOMER");
         model.addAttribute("cartItemCount", cartService.getCartItemCount());
-        model.addAttribute("cart", cartService.getCart());
 
         // Obtener datos reales del usuario para el dashboard
         if (userDetails != null) {
@@ -109,7 +108,6 @@ public class UserController {
             @AuthenticationPrincipal UserDetails userDetails) {
         model.addAttribute("pageTitle", "Mi Carrito - PetLuz");
         model.addAttribute("cartItemCount", cartService.getCartItemCount());
-        model.addAttribute("cart", cartService.getCart());
 
         if (userDetails != null) {
             User user = userService.findByEmail(userDetails.getUsername());
@@ -124,7 +122,6 @@ public class UserController {
             @AuthenticationPrincipal UserDetails userDetails) {
         model.addAttribute("pageTitle", "Finalizar Compra - PetLuz");
         model.addAttribute("cartItemCount", cartService.getCartItemCount());
-        model.addAttribute("cart", cartService.getCart());
 
         if (userDetails != null) {
             User user = userService.findByEmail(userDetails.getUsername());
@@ -0,0 +1,26 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Ajuste masivo de stock. Admite una misma operación para varios productos
+ * (operation + quantity + productIds) o una lista de ajustes individuales (items).
+ */
+@Data
+public class BulkStockUpdateRequestDTO {
+    private String operation; // ADD, SUBTRACT, SET
+    private Integer quantity;
+    private String reason;
+    private List<Long> productIds;
+    private List<Item> items;
+    private boolean allOrNothing; // si alguna fila es inválida no se aplica ninguna
+
+    @Data
+    public static class Item {
+        private Long productId;
+        private String operation;
+        private Integer quantity;
+    }
+}
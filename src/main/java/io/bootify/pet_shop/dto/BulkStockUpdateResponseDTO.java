@@ -0,0 +1,28 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+public class BulkStockUpdateResponseDTO {
+    private int requested;
+    private int applied;
+    private int failed;
+    private List<Result> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Result {
+        private Long productId;
+        private String operation;
+        private Integer quantity;
+        private Integer previousStock;
+        private Integer newStock;
+        private boolean success;
+        private String message; // motivo del rechazo, null si se aplicó
+    }
+}
@@ -0,0 +1,21 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Varios cambios de cantidad del carrito en una sola petición. Cada item suma su
+ * quantity (positiva o negativa) a lo que ya hay; si el resultado es 0 o menos el
+ * producto se quita. Se aplican todos o ninguno.
+ */
+@Data
+public class CartBatchUpdateRequestDTO {
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+        private Long productId;
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,17 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> items;
+    private String nextCursor; // null cuando no hay más resultados
+    private boolean hasMore;
+    private int size;
+}
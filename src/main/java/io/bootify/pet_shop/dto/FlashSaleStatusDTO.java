@@ -0,0 +1,14 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlashSaleStatusDTO {
+    private Long productId;
+    private long available; // unidades que quedan en los contadores en memoria
+    private int shards;
+}
@@ -0,0 +1,18 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class InventoryMovementDTO {
+    private Long id;
+    private Long productId;
+    private String type;
+    private Integer quantityDelta;
+    private Integer stockAfter;
+    private String reason;
+    private String reference;
+    private String createdBy;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,28 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class InventoryReconciliationDTO {
+    private LocalDateTime startedAt;
+    private long durationMs;
+    private int chunks;
+    private int discrepancyCount;
+    private List<Discrepancy> discrepancies;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Discrepancy {
+        private Long productId;
+        private String productName;
+        private int recordedStock; // products.stock
+        private int ledgerStock;   // último snapshot + movimientos posteriores
+        private int difference;
+    }
+}
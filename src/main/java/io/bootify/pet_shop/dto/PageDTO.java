@@ -0,0 +1,23 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Forma JSON estable para listados paginados por offset, en lugar de serializar PageImpl
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageDTO<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+
+    public static <T> PageDTO<T> of(List<T> content, int page, int size, long totalElements) {
+        return new PageDTO<>(content, page, size, totalElements, (int) ((totalElements + size - 1) / size));
+    }
+}
@@ -0,0 +1,16 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceRangeFacetDTO {
+    private BigDecimal min; // null en el primer rango
+    private BigDecimal max; // exclusivo; null en el último rango
+    private long count;
+}
@@ -0,0 +1,15 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProductFacetsDTO {
+    private long totalProducts;
+    private List<FacetCountDTO> categories;
+    private List<FacetCountDTO> types;
+    private long inStock;
+    private long outOfStock;
+    private List<PriceRangeFacetDTO> priceRanges;
+}
@@ -13,6 +13,7 @@ public class ProductResponseDTO {
     private BigDecimal price;
     private Integer stock;
     private Integer minStock;
+    private String stockTier; // OUT_OF_STOCK, CRITICAL, LOW, NORMAL, EXCELLENT
     private String imageUrl;
     private Boolean hasUploadedImage;
     private Boolean active;
@@ -0,0 +1,12 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProductSearchResponseDTO {
+    private String query;
+    private String suggestion; // consulta corregida, null si no hubo correcciones
+    private List<ProductResponseDTO> products;
+}
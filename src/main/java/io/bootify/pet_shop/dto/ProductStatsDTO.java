@@ -0,0 +1,12 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.Data;
+
+@Data
+public class ProductStatsDTO {
+    private long total;
+    private long active;
+    private long lowStock;
+    private long outOfStock;
+    private long categories;
+}
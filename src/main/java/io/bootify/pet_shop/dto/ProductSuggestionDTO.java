@@ -0,0 +1,15 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSuggestionDTO {
+    private String type; // PRODUCT o CATEGORY
+    private Long id;
+    private String text;
+    private Long salesVolume;
+}
@@ -0,0 +1,17 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.Data;
+
+@Data
+public class ReplenishmentSuggestionDTO {
+    private Long productId;
+    private String productName;
+    private String categoryName;
+    private Integer stock;
+    private Integer minStock;
+    private double dailyVelocity;      // unidades por día, promedio móvil exponencial
+    private Double daysOfCover;        // null si el producto no tiene ventas recientes
+    private int reorderPoint;          // consumo durante el plazo de entrega + stock mínimo
+    private int suggestedQuantity;
+    private boolean reorderNeeded;
+}
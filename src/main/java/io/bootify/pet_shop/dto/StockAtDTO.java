@@ -0,0 +1,17 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAtDTO {
+    private Long productId;
+    private LocalDateTime at;
+    private Integer stock;
+    private int movementsReplayed; // movimientos sumados desde el último snapshot
+}
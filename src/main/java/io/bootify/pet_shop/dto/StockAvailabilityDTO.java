@@ -0,0 +1,15 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAvailabilityDTO {
+    private Long productId;
+    private int stock;
+    private int reserved; // apartado por otros clientes
+    private int available;
+}
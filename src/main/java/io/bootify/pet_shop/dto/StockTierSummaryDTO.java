@@ -0,0 +1,12 @@
+package io.bootify.pet_shop.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class StockTierSummaryDTO {
+    private Map<String, Long> counts;                          // todos los niveles, productos activos
+    private Map<String, List<ProductResponseDTO>> products;    // sólo los niveles pedidos
+}
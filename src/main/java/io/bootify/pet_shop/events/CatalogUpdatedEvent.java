@@ -0,0 +1,32 @@
+package io.bootify.pet_shop.events;
+
+import io.bootify.pet_shop.dto.ProductResponseDTO;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Se publica cuando el snapshot del catálogo incorpora productos nuevos o modificados,
+ * o quita productos borrados. Si fullReload es true, changedProducts contiene el
+ * catálogo completo.
+ */
+@Getter
+public class CatalogUpdatedEvent {
+
+    private final List<ProductResponseDTO> changedProducts;
+    private final Set<Long> removedProductIds;
+    private final boolean fullReload;
+
+    public CatalogUpdatedEvent(List<ProductResponseDTO> changedProducts, boolean fullReload) {
+        this(changedProducts, Set.of(), fullReload);
+    }
+
+    public CatalogUpdatedEvent(List<ProductResponseDTO> changedProducts, Collection<Long> removedProductIds,
+                               boolean fullReload) {
+        this.changedProducts = changedProducts;
+        this.removedProductIds = Set.copyOf(removedProductIds);
+        this.fullReload = fullReload;
+    }
+}
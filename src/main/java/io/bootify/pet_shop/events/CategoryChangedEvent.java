@@ -0,0 +1,15 @@
+package io.bootify.pet_shop.events;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Se publica dentro de la transacción que crea, modifica o elimina una categoría;
+ * los listeners reaccionan después del commit.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CategoryChangedEvent {
+
+    private final Long categoryId;
+}
@@ -0,0 +1,19 @@
+package io.bootify.pet_shop.events;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Se publica una vez cuando un producto activo cruza hacia abajo su stock mínimo
+ * (o se agota). No se repite mientras siga en ese nivel.
+ */
+@Getter
+@RequiredArgsConstructor
+public class LowStockAlertEvent {
+
+    private final Long productId;
+    private final String productName;
+    private final int stock;
+    private final int minStock;
+    private final boolean outOfStock;
+}
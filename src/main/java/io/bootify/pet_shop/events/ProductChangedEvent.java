@@ -0,0 +1,36 @@
+package io.bootify.pet_shop.events;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Se publica dentro de la transacción que modifica productos; los listeners
+ * reaccionan después del commit. structural indica altas, activaciones o cambios
+ * de categoría, lo único que altera los conteos por categoría.
+ */
+@Getter
+public class ProductChangedEvent {
+
+    private final Set<Long> productIds;
+    private final boolean structural;
+
+    public ProductChangedEvent(Collection<Long> productIds) {
+        this(productIds, true);
+    }
+
+    public ProductChangedEvent(Collection<Long> productIds, boolean structural) {
+        this.productIds = Set.copyOf(productIds);
+        this.structural = structural;
+    }
+
+    public static ProductChangedEvent of(Long productId) {
+        return new ProductChangedEvent(Set.of(productId));
+    }
+
+    // Movimientos de stock: se publican en cada checkout y no cambian los conteos
+    public static ProductChangedEvent stock(Collection<Long> productIds) {
+        return new ProductChangedEvent(productIds, false);
+    }
+}
@@ -0,0 +1,52 @@
+package io.bootify.pet_shop.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Movimiento del libro de inventario. Es de solo inserción: el stock de un producto
+ * en cualquier momento es su último snapshot más la suma de los movimientos posteriores.
+ */
+@Entity
+@Table(name = "inventory_movements", indexes = {
+        @Index(name = "idx_inventory_movements_product", columnList = "product_id, id"),
+        @Index(name = "idx_inventory_movements_created", columnList = "created_at")
+})
+@Getter
+@Setter
+public class InventoryMovement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private MovementType type;
+
+    // Positivo si entra stock, negativo si sale
+    @Column(name = "quantity_delta", nullable = false)
+    private Integer quantityDelta;
+
+    // Stock resultante, cuando se conoce en el momento del movimiento
+    @Column(name = "stock_after")
+    private Integer stockAfter;
+
+    @Column(length = 255)
+    private String reason;
+
+    // Número de factura u otra referencia externa
+    @Column(length = 100)
+    private String reference;
+
+    @Column(name = "created_by", length = 150)
+    private String createdBy;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
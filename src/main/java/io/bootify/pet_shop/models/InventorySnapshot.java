@@ -0,0 +1,34 @@
+package io.bootify.pet_shop.models;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock de un producto consolidado hasta el movimiento lastMovementId (incluido).
+ */
+@Entity
+@Table(name = "inventory_snapshots", indexes = {
+        @Index(name = "idx_inventory_snapshots_product", columnList = "product_id, taken_at")
+})
+@Getter
+@Setter
+public class InventorySnapshot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer stock;
+
+    @Column(name = "last_movement_id", nullable = false)
+    private Long lastMovementId;
+
+    @Column(name = "taken_at", nullable = false)
+    private LocalDateTime takenAt;
+}
@@ -0,0 +1,9 @@
+package io.bootify.pet_shop.models;
+
+public enum MovementType {
+    INITIAL,        // stock con el que se creó el producto
+    ADJUSTMENT,     // ajuste manual (ADD / SUBTRACT / SET)
+    BULK_ADJUSTMENT,
+    SALE,
+    CANCELLATION
+}
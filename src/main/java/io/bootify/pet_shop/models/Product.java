@@ -2,14 +2,18 @@ package io.bootify.pet_shop.models;
 
 import jakarta.persistence.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Generated;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.generator.EventType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_active_stock_tier", columnList = "active, stock_tier")
+})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -44,6 +48,10 @@ public class Product {
     @Column(nullable = false)
     private Boolean active = true;
 
+    // Modo venta flash: el stock disponible se descuenta en memoria y se vuelca por lotes
+    @Column(name = "flash_sale", nullable = false, columnDefinition = "boolean default false")
+    private Boolean flashSale = false;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private ProductType type;
@@ -56,6 +64,24 @@ public class Product {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Bloqueo optimista; el default evita nulos en filas existentes al agregar la columna
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    // Columna generada por PostgreSQL: se recalcula en cada UPDATE de stock o min_stock,
+    // incluidos los que se hacen por JDBC, y Hibernate la vuelve a leer tras guardar
+    @Generated(event = { EventType.INSERT, EventType.UPDATE })
+    @Enumerated(EnumType.ORDINAL)
+    @Column(name = "stock_tier", insertable = false, updatable = false,
+            columnDefinition = "smallint generated always as (CASE "
+                    + "WHEN stock <= 0 THEN 0 "
+                    + "WHEN stock <= ceil(coalesce(min_stock, 5) * 0.3) THEN 1 "
+                    + "WHEN stock <= coalesce(min_stock, 5) THEN 2 "
+                    + "WHEN stock <= coalesce(min_stock, 5) * 2 THEN 3 "
+                    + "ELSE 4 END) stored")
+    private StockTier stockTier;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
@@ -198,6 +224,26 @@ public class Product {
         this.createdAt = createdAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Boolean getFlashSale() {
+        return flashSale;
+    }
+
+    public void setFlashSale(Boolean flashSale) {
+        this.flashSale = flashSale;
+    }
+
+    public StockTier getStockTier() {
+        return stockTier;
+    }
+
     public LocalDateTime getUpdatedAt() {
         return updatedAt;
     }
@@ -8,7 +8,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "sale_items")
+@Table(name = "sale_items", indexes = {
+        @Index(name = "idx_sale_items_stock_applied", columnList = "stock_applied, product_id")
+})
 public class SaleItem {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -31,6 +33,10 @@ public class SaleItem {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal subtotal;
 
+    // false mientras la venta flash aún no descontó estas unidades de products.stock
+    @Column(name = "stock_applied", nullable = false, columnDefinition = "boolean default true")
+    private Boolean stockApplied = true;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -115,4 +121,12 @@ public class SaleItem {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
-}
\ No newline at end of file
+
+    public Boolean getStockApplied() {
+        return stockApplied;
+    }
+
+    public void setStockApplied(Boolean stockApplied) {
+        this.stockApplied = stockApplied;
+    }
+}
@@ -0,0 +1,18 @@
+package io.bootify.pet_shop.models;
+
+/**
+ * Nivel de stock de un producto respecto de su stock mínimo. El orden importa: la
+ * columna generada products.stock_tier guarda el ordinal.
+ */
+public enum StockTier {
+    OUT_OF_STOCK,   // stock <= 0
+    CRITICAL,       // hasta el 30% del mínimo
+    LOW,            // hasta el mínimo
+    NORMAL,         // hasta el doble del mínimo
+    EXCELLENT;
+
+    // Crítico y bajo: los que necesitan reposición pero todavía se pueden vender
+    public boolean isLow() {
+        return this == CRITICAL || this == LOW;
+    }
+}
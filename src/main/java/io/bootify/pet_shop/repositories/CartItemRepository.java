@@ -13,7 +13,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+public interface CartItemRepository extends JpaRepository<CartItem, Long>, CartItemRepositoryCustom {
     Optional<CartItem> findByCartAndProduct(Cart cart, Product product);
     List<CartItem> findByCart(Cart cart);
     
@@ -0,0 +1,19 @@
+package io.bootify.pet_shop.repositories;
+
+import java.util.Map;
+
+/**
+ * Escrituras del carrito resueltas con sentencias sobre arreglos en lugar de guardar
+ * cada item por separado.
+ */
+public interface CartItemRepositoryCustom {
+
+    /**
+     * Deja en la base el contenido de varios carritos (userId -> productId -> cantidad)
+     * con tres sentencias en total, sin importar cuántos carritos o items haya: crea los
+     * carritos que falten, borra los items que ya no están e inserta o actualiza el resto
+     * con INSERT ... ON CONFLICT (cart_id, product_id). Los productos que ya no existen
+     * se omiten. Devuelve userId -> id del carrito.
+     */
+    Map<Long, Long> writeCarts(Map<Long, Map<Long, Integer>> itemsByUser);
+}
@@ -0,0 +1,100 @@
+package io.bootify.pet_shop.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+public class CartItemRepositoryCustomImpl implements CartItemRepositoryCustom {
+
+    // version sube como en un save de JPA: una entidad Cart cargada antes de esta escritura
+    // falla al guardarse en vez de pisarla
+    private static final String UPSERT_CARTS_SQL =
+            "INSERT INTO carts (user_id, created_at, updated_at, version) "
+                    + "SELECT u.user_id, ?, ?, 0 FROM unnest(?::bigint[]) AS u(user_id) "
+                    + "ON CONFLICT (user_id) DO UPDATE "
+                    + "SET updated_at = EXCLUDED.updated_at, version = carts.version + 1 "
+                    + "RETURNING user_id, id";
+
+    private static final String DELETE_MISSING_ITEMS_SQL =
+            "DELETE FROM cart_items ci USING carts c "
+                    + "WHERE ci.cart_id = c.id AND c.user_id = ANY(?::bigint[]) "
+                    + "AND NOT EXISTS (SELECT 1 FROM unnest(?::bigint[], ?::bigint[]) AS k(user_id, product_id) "
+                    + "WHERE k.user_id = c.user_id AND k.product_id = ci.product_id)";
+
+    // La restricción única uk_cart_items_cart_product es el objetivo del ON CONFLICT; las
+    // filas que no cambiaron no se reescriben
+    private static final String UPSERT_ITEMS_SQL =
+            "INSERT INTO cart_items (cart_id, product_id, quantity, created_at, updated_at) "
+                    + "SELECT c.id, u.product_id, u.quantity, ?, ? "
+                    + "FROM unnest(?::bigint[], ?::bigint[], ?::int[]) AS u(user_id, product_id, quantity) "
+                    + "JOIN carts c ON c.user_id = u.user_id JOIN products p ON p.id = u.product_id "
+                    + "ON CONFLICT (cart_id, product_id) DO UPDATE "
+                    + "SET quantity = EXCLUDED.quantity, updated_at = EXCLUDED.updated_at "
+                    + "WHERE cart_items.quantity <> EXCLUDED.quantity";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public Map<Long, Long> writeCarts(Map<Long, Map<Long, Integer>> itemsByUser) {
+        if (itemsByUser.isEmpty()) {
+            return Map.of();
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        // Orden por usuario y producto para que flushes concurrentes bloqueen filas en el mismo orden
+        Long[] userIds = new TreeMap<>(itemsByUser).keySet().toArray(Long[]::new);
+        List<Long> itemUsers = new ArrayList<>();
+        List<Long> itemProducts = new ArrayList<>();
+        List<Integer> itemQuantities = new ArrayList<>();
+        for (Long userId : userIds) {
+            new TreeMap<>(itemsByUser.get(userId)).forEach((productId, quantity) -> {
+                itemUsers.add(userId);
+                itemProducts.add(productId);
+                itemQuantities.add(quantity);
+            });
+        }
+        Long[] users = itemUsers.toArray(Long[]::new);
+        Long[] products = itemProducts.toArray(Long[]::new);
+        Integer[] quantities = itemQuantities.toArray(Integer[]::new);
+
+        // Se ejecuta en la transacción en curso; si algo falla el rollback lo deshace todo
+        Map<Long, Long> cartIds = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(UPSERT_CARTS_SQL);
+            ps.setTimestamp(1, now);
+            ps.setTimestamp(2, now);
+            ps.setArray(3, con.createArrayOf("bigint", userIds));
+            return ps;
+        }, rs -> {
+            cartIds.put(rs.getLong(1), rs.getLong(2));
+        });
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(DELETE_MISSING_ITEMS_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", userIds));
+            ps.setArray(2, con.createArrayOf("bigint", users));
+            ps.setArray(3, con.createArrayOf("bigint", products));
+            return ps;
+        });
+        if (products.length > 0) {
+            jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(UPSERT_ITEMS_SQL);
+                ps.setTimestamp(1, now);
+                ps.setTimestamp(2, now);
+                ps.setArray(3, con.createArrayOf("bigint", users));
+                ps.setArray(4, con.createArrayOf("bigint", products));
+                ps.setArray(5, con.createArrayOf("integer", quantities));
+                return ps;
+            });
+        }
+        return cartIds;
+    }
+}
@@ -0,0 +1,12 @@
+package io.bootify.pet_shop.repositories;
+
+import io.bootify.pet_shop.models.InventoryMovement;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, Long> {
+    Page<InventoryMovement> findByProductIdOrderByIdDesc(Long productId, Pageable pageable);
+}
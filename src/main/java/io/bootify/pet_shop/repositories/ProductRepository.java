@@ -2,17 +2,21 @@ package io.bootify.pet_shop.repositories;
 
 import io.bootify.pet_shop.models.Product;
 import io.bootify.pet_shop.models.ProductType;
+import io.bootify.pet_shop.models.StockTier;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductRepositoryCustom {
 
     boolean existsByNameIgnoreCase(String name);
 
@@ -21,45 +25,36 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category")
     List<Product> findAllWithCategory();
 
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id IN :ids")
+    List<Product> findAllWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.id = :id")
     Optional<Product> findByIdWithCategory(@Param("id") Long id);
 
     List<Product> findByActiveTrue();
 
+    List<Product> findByFlashSaleTrue();
+
     List<Product> findByType(ProductType type);
 
     List<Product> findByCategoryId(Long categoryId);
 
     List<Product> findByNameContainingIgnoreCase(String name);
 
-    @Query("SELECT p FROM Product p WHERE p.stock <= p.minStock AND p.active = true")
-    List<Product> findLowStockProducts();
-
-    @Query("SELECT p FROM Product p WHERE p.stock = 0 AND p.active = true")
-    List<Product> findOutOfStockProducts();
-
     List<Product> findByStockLessThanEqual(Integer stock);
 
     @Query("SELECT COUNT(p) FROM Product p WHERE p.active = true")
     Long countActiveProducts();
 
-    @Query("SELECT COUNT(p) FROM Product p WHERE p.stock > 0 AND p.stock <= p.minStock AND p.active = true")
-    Long countLowStockProducts();
-
     @Query("SELECT COUNT(p) FROM Product p WHERE p.category.id = :categoryId")
     Long countByCategoryId(@Param("categoryId") Long categoryId);
 
-    @Query("SELECT COUNT(p) FROM Product p WHERE p.stock = 0 AND p.active = true")
-    Long countOutOfStockProducts();
+    @Query("SELECT p.category.id, COUNT(p) FROM Product p WHERE p.category IS NOT NULL GROUP BY p.category.id")
+    List<Object[]> countGroupedByCategoryId();
 
-    @Query("SELECT COUNT(p) FROM Product p WHERE p.stock > 0 AND p.stock <= (p.minStock * 0.3) AND p.active = true")
-    Long countCriticalStockProducts();
-
-    @Query("SELECT COUNT(p) FROM Product p WHERE p.stock > p.minStock AND p.stock <= (p.minStock * 2) AND p.active = true")
-    Long countNormalStockProducts();
-
-    @Query("SELECT COUNT(p) FROM Product p WHERE p.stock > (p.minStock * 2) AND p.active = true")
-    Long countExcellentStockProducts();
+    // Una sola pasada sobre el índice (active, stock_tier) para todos los niveles
+    @Query("SELECT p.stockTier, COUNT(p) FROM Product p WHERE p.active = true GROUP BY p.stockTier")
+    List<Object[]> countActiveGroupedByStockTier();
 
     @Query("SELECT COALESCE(c.name, 'Sin Categoría'), COUNT(p) FROM Product p LEFT JOIN p.category c WHERE p.active = true GROUP BY c.name")
     List<Object[]> countProductsByCategory();
@@ -67,17 +62,15 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT COALESCE(SUM(p.price * p.stock), 0) FROM Product p WHERE p.active = true")
     BigDecimal getTotalInventoryValue();
 
-    @Query("SELECT p FROM Product p WHERE p.stock > 0 AND p.stock <= (p.minStock * 0.3) AND p.active = true")
-    List<Product> findCriticalStockProducts();
-
-    @Query("SELECT p FROM Product p WHERE p.stock > p.minStock AND p.stock <= (p.minStock * 2) AND p.active = true")
-    List<Product> findNormalStockProducts();
-
-    @Query("SELECT p FROM Product p WHERE p.stock > (p.minStock * 2) AND p.active = true")
-    List<Product> findExcellentStockProducts();
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category WHERE p.active = true AND p.stockTier IN :tiers "
+            + "ORDER BY p.stockTier, p.stock, p.name")
+    List<Product> findActiveByStockTierIn(@Param("tiers") Collection<StockTier> tiers);
 
-    @Query("SELECT p FROM Product p WHERE p.stock <= p.minStock AND p.active = true")
-    List<Product> findByStockLessThanEqualMinStock();
+    // Total, activos, stock bajo, agotados y categorías con productos, en una fila
+    @Query("SELECT COUNT(p), SUM(CASE WHEN p.active = true THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN p.stock > 0 AND p.stock <= p.minStock THEN 1 ELSE 0 END), "
+            + "SUM(CASE WHEN p.stock = 0 THEN 1 ELSE 0 END), COUNT(DISTINCT p.category.id) FROM Product p")
+    List<Object[]> summarizeProducts();
 
     @Query("SELECT COUNT(p) FROM Product p WHERE p.stock BETWEEN :min AND :max")
     Long countProductsByStockRange(@Param("min") Integer min, @Param("max") Integer max);
@@ -0,0 +1,42 @@
+package io.bootify.pet_shop.repositories;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operaciones de stock que se resuelven con UPDATE condicionales en la base de datos
+ * en lugar de leer, restar en Java y guardar la entidad.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Descuenta las cantidades (productId -> unidades) en un único batch JDBC, sólo
+     * donde hay stock suficiente. Devuelve los ids que no se pudieron descontar; el
+     * llamador debe abortar la transacción si la lista no está vacía.
+     */
+    List<Long> decrementStockIfAvailable(Map<Long, Integer> quantities);
+
+    // Devuelve unidades al stock (cancelaciones) en un único batch JDBC
+    void incrementStock(Map<Long, Integer> quantities);
+
+    // Bloquea las filas (SELECT ... FOR UPDATE) y devuelve productId -> stock actual
+    Map<Long, Integer> lockStock(Collection<Long> productIds);
+
+    /**
+     * Aplica ajustes ADD / SUBTRACT / SET en una sola sentencia (UPDATE ... FROM unnest).
+     * Los arreglos van en paralelo; SUBTRACT sólo se aplica si alcanza el stock.
+     * Devuelve productId -> stock resultante de las filas modificadas.
+     */
+    Map<Long, Integer> applyStockAdjustments(Long[] productIds, String[] operations, Integer[] quantities);
+
+    /**
+     * Vuelca a products.stock las unidades de venta flash aún no aplicadas
+     * (sale_items.stock_applied = false) y las marca como aplicadas, en una sola
+     * sentencia. Devuelve productId -> unidades descontadas.
+     */
+    Map<Long, Integer> applyPendingSaleItems();
+
+    // Activa o desactiva el modo venta flash; devuelve false si el producto no existe
+    boolean setFlashSale(Long productId, boolean enabled);
+}
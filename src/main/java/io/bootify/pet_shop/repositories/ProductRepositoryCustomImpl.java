@@ -0,0 +1,146 @@
+package io.bootify.pet_shop.repositories;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    // updated_at se actualiza porque el ETag de cada producto depende de él, y version para
+    // que una edición con la entidad ya cargada falle en vez de pisar el stock. Un producto
+    // en venta flash se descuenta en memoria: si el modo se activó mientras este checkout
+    // esperaba el bloqueo, la fila se rechaza en vez de descontarse dos veces
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE products SET stock = stock - ?, updated_at = ?, version = version + 1 "
+                    + "WHERE id = ? AND stock >= ? AND flash_sale = false";
+
+    private static final String INCREMENT_STOCK_SQL =
+            "UPDATE products SET stock = stock + ?, updated_at = ?, version = version + 1 WHERE id = ?";
+
+    private static final String LOCK_STOCK_SQL =
+            "SELECT id, stock FROM products WHERE id = ANY(?) ORDER BY id FOR UPDATE";
+
+    private static final String APPLY_ADJUSTMENTS_SQL =
+            "UPDATE products p SET stock = CASE u.op WHEN 'ADD' THEN p.stock + u.qty "
+                    + "WHEN 'SUBTRACT' THEN p.stock - u.qty ELSE u.qty END, "
+                    + "updated_at = ?, version = p.version + 1 "
+                    + "FROM unnest(?::bigint[], ?::text[], ?::int[]) AS u(id, op, qty) "
+                    + "WHERE p.id = u.id AND (u.op <> 'SUBTRACT' OR p.stock >= u.qty) "
+                    + "RETURNING p.id, p.stock";
+
+    // Las filas de sale_items confirmadas son la fuente de verdad: si la aplicación se cae
+    // antes del volcado, el siguiente arranque vuelve a encontrarlas pendientes
+    private static final String APPLY_PENDING_SALE_ITEMS_SQL =
+            "WITH applied AS (UPDATE sale_items SET stock_applied = true WHERE stock_applied = false "
+                    + "RETURNING product_id, quantity), "
+                    + "totals AS (SELECT product_id, SUM(quantity) AS qty FROM applied GROUP BY product_id) "
+                    + "UPDATE products p SET stock = p.stock - t.qty, updated_at = ?, version = p.version + 1 "
+                    + "FROM totals t WHERE p.id = t.product_id "
+                    + "RETURNING p.id, t.qty";
+
+    private static final String SET_FLASH_SALE_SQL =
+            "UPDATE products SET flash_sale = ?, updated_at = ?, version = version + 1 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<Long> decrementStockIfAvailable(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+        // Orden por id para que checkouts concurrentes bloqueen filas en el mismo orden
+        List<Long> ids = new ArrayList<>(new TreeMap<>(quantities).keySet());
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Object[]> batch = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            int quantity = quantities.get(id);
+            batch.add(new Object[] { quantity, now, id, quantity });
+        }
+
+        // Se ejecuta en la transacción JPA en curso; si algo falla el rollback lo deshace todo
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, batch);
+
+        List<Long> rejected = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                rejected.add(ids.get(i));
+            }
+        }
+        return rejected;
+    }
+
+    @Override
+    public void incrementStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batch = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(quantities).entrySet()) {
+            batch.add(new Object[] { entry.getValue(), now, entry.getKey() });
+        }
+        jdbcTemplate.batchUpdate(INCREMENT_STOCK_SQL, batch);
+    }
+
+    @Override
+    public Map<Long, Integer> lockStock(Collection<Long> productIds) {
+        Map<Long, Integer> stock = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return stock;
+        }
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(LOCK_STOCK_SQL);
+            ps.setArray(1, con.createArrayOf("bigint", productIds.toArray()));
+            return ps;
+        }, rs -> {
+            stock.put(rs.getLong(1), rs.getInt(2));
+        });
+        return stock;
+    }
+
+    @Override
+    public Map<Long, Integer> applyStockAdjustments(Long[] productIds, String[] operations, Integer[] quantities) {
+        Map<Long, Integer> updated = new HashMap<>();
+        if (productIds.length == 0) {
+            return updated;
+        }
+        // Una sola sentencia y un solo viaje a la base de datos, sin importar cuántas filas sean
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(APPLY_ADJUSTMENTS_SQL);
+            ps.setTimestamp(1, now);
+            ps.setArray(2, con.createArrayOf("bigint", productIds));
+            ps.setArray(3, con.createArrayOf("text", operations));
+            ps.setArray(4, con.createArrayOf("integer", quantities));
+            return ps;
+        }, rs -> {
+            updated.put(rs.getLong(1), rs.getInt(2));
+        });
+        return updated;
+    }
+
+    @Override
+    public Map<Long, Integer> applyPendingSaleItems() {
+        Map<Long, Integer> applied = new HashMap<>();
+        jdbcTemplate.query(APPLY_PENDING_SALE_ITEMS_SQL, rs -> {
+            applied.put(rs.getLong(1), rs.getInt(2));
+        }, Timestamp.valueOf(LocalDateTime.now()));
+        return applied;
+    }
+
+    @Override
+    public boolean setFlashSale(Long productId, boolean enabled) {
+        return jdbcTemplate.update(SET_FLASH_SALE_SQL, enabled, Timestamp.valueOf(LocalDateTime.now()), productId) > 0;
+    }
+}
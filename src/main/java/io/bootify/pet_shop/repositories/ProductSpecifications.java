@@ -0,0 +1,132 @@
+package io.bootify.pet_shop.repositories;
+
+import io.bootify.pet_shop.models.Category;
+import io.bootify.pet_shop.models.Product;
+import io.bootify.pet_shop.models.ProductType;
+import io.bootify.pet_shop.util.ProductCursor;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    // Trae la categoría en la misma consulta (se omite en la consulta de conteo del Page)
+    public static Specification<Product> fetchCategory() {
+        return (root, query, cb) -> {
+            if (query != null && !Long.class.equals(query.getResultType())
+                    && !long.class.equals(query.getResultType())) {
+                root.fetch("category", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+
+    public static Specification<Product> activeIs(Boolean active) {
+        if (active == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("active"), active);
+    }
+
+    public static Specification<Product> nameContains(String search) {
+        if (search == null || search.trim().isEmpty()) {
+            return null;
+        }
+        String pattern = "%" + search.trim().toLowerCase() + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), pattern);
+    }
+
+    public static Specification<Product> inCategories(List<Long> categoryIds) {
+        if (categoryIds == null || categoryIds.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> root.<Category>get("category").get("id").in(categoryIds);
+    }
+
+    public static Specification<Product> ofTypes(List<ProductType> types) {
+        if (types == null || types.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> root.get("type").in(types);
+    }
+
+    public static Specification<Product> priceAtLeast(Double minPrice) {
+        if (minPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), BigDecimal.valueOf(minPrice));
+    }
+
+    public static Specification<Product> priceAtMost(Double maxPrice) {
+        if (maxPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), BigDecimal.valueOf(maxPrice));
+    }
+
+    public static Specification<Product> inStock(Boolean inStock) {
+        if (inStock == null || !inStock) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThan(root.get("stock"), 0);
+    }
+
+    // Keyset: continúa estrictamente después del último (valor, id) entregado
+    public static Specification<Product> after(ProductCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        Long lastId = cursor.getId();
+        switch (cursor.getSort()) {
+            case "price_asc": {
+                BigDecimal price = cursor.getPrice();
+                return (root, query, cb) -> cb.or(
+                        cb.greaterThan(root.get("price"), price),
+                        cb.and(cb.equal(root.get("price"), price), cb.greaterThan(root.get("id"), lastId)));
+            }
+            case "price_desc": {
+                BigDecimal price = cursor.getPrice();
+                return (root, query, cb) -> cb.or(
+                        cb.lessThan(root.get("price"), price),
+                        cb.and(cb.equal(root.get("price"), price), cb.lessThan(root.get("id"), lastId)));
+            }
+            case "newest": {
+                LocalDateTime createdAt = cursor.getCreatedAt();
+                return (root, query, cb) -> cb.or(
+                        cb.lessThan(root.get("createdAt"), createdAt),
+                        cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), lastId)));
+            }
+            default: {
+                String name = cursor.getValue();
+                return (root, query, cb) -> cb.or(
+                        cb.greaterThan(root.get("name"), name),
+                        cb.and(cb.equal(root.get("name"), name), cb.greaterThan(root.get("id"), lastId)));
+            }
+        }
+    }
+
+    // El id como desempate hace que el orden sea total y la paginación estable
+    public static Sort sortFor(String sort) {
+        if (sort == null) {
+            sort = "name";
+        }
+        switch (sort) {
+            case "price_asc":
+                return Sort.by(Sort.Order.asc("price"), Sort.Order.asc("id"));
+            case "price_desc":
+                return Sort.by(Sort.Order.desc("price"), Sort.Order.desc("id"));
+            case "newest":
+                return Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+            case "name":
+            default:
+                return Sort.by(Sort.Order.asc("name"), Sort.Order.asc("id"));
+        }
+    }
+}
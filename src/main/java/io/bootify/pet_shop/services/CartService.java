@@ -1,175 +1,255 @@
 package io.bootify.pet_shop.services;
 
+import io.bootify.pet_shop.dto.CartBatchUpdateRequestDTO;
 import io.bootify.pet_shop.dto.CartItemDTO;
 import io.bootify.pet_shop.dto.CartResponseDTO;
-import io.bootify.pet_shop.models.Cart;
-import io.bootify.pet_shop.models.CartItem;
-import io.bootify.pet_shop.models.Product;
-import io.bootify.pet_shop.models.User;
-import io.bootify.pet_shop.repositories.CartRepository;
-import io.bootify.pet_shop.repositories.CartItemRepository;
-import io.bootify.pet_shop.repositories.ProductRepository;
+import io.bootify.pet_shop.dto.ProductResponseDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
+/**
+ * Operaciones del carrito del cliente. El contenido vive en {@link CartStore} y los
+ * datos de cada producto salen del snapshot del catálogo, así que consultar o modificar
+ * el carrito no toca la base de datos; la escritura se difiere al store.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CartService {
 
-    private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
-    private final ProductRepository productRepository;
+    private final CartStore cartStore;
+    private final CatalogService catalogService;
     private final SecurityService securityService;
+    private final StockReservationService stockReservationService;
 
-    @Transactional
     public CartResponseDTO getCart() {
-        User customer = getCurrentCustomer();
-        Cart cart = getOrCreateCart(customer);
-        return convertToDTO(cart);
+        return convertToDTO(cartStore.view(securityService.getCurrentUsername()));
     }
 
-    @Transactional
     public CartResponseDTO addToCart(Long productId, Integer quantity) {
-        User customer = getCurrentCustomer();
-        Cart cart = getOrCreateCart(customer);
-        Product product = getAvailableProduct(productId);
-
+        String email = securityService.getCurrentUsername();
+        ProductResponseDTO product = getAvailableProduct(productId);
         validateQuantity(quantity, product.getStock());
 
-        CartItem existingItem = cartItemRepository.findByCartAndProduct(cart, product).orElse(null);
-        
-        if (existingItem != null) {
-            // Actualizar cantidad existente
-            int newQuantity = existingItem.getQuantity() + quantity;
+        CartStore.CartView cart = cartStore.update(email, items -> {
+            int newQuantity = items.getOrDefault(productId, 0) + quantity;
             validateQuantity(newQuantity, product.getStock());
-            existingItem.setQuantity(newQuantity);
-            cartItemRepository.save(existingItem);
-        } else {
-            // Crear nuevo item
-            CartItem newItem = new CartItem(cart, product, quantity);
-            cart.addItem(newItem);
-            cartItemRepository.save(newItem);
-        }
-
-        cartRepository.save(cart);
-        log.info("🛒 Customer {} agregó {} unidades de {} al carrito", 
-                customer.getEmail(), quantity, product.getName());
+            stockReservationService.hold(productId, email, newQuantity, product.getStock());
+            items.put(productId, newQuantity);
+        });
 
+        log.info("🛒 Customer {} agregó {} unidades de {} al carrito", email, quantity, product.getName());
         return convertToDTO(cart);
     }
 
-    @Transactional
     public CartResponseDTO updateCartItem(Long productId, Integer quantity) {
-        User customer = getCurrentCustomer();
-        Cart cart = getCartForCustomer(customer);
-        Product product = getAvailableProduct(productId);
-
         if (quantity <= 0) {
             return removeFromCart(productId);
         }
-
+        String email = securityService.getCurrentUsername();
+        ProductResponseDTO product = getAvailableProduct(productId);
         validateQuantity(quantity, product.getStock());
 
-        CartItem item = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElseThrow(() -> new RuntimeException("Producto no encontrado en el carrito"));
-
-        item.setQuantity(quantity);
-        cartItemRepository.save(item);
-        cartRepository.save(cart);
+        CartStore.CartView cart = cartStore.update(email, items -> {
+            if (!items.containsKey(productId)) {
+                throw new RuntimeException("Producto no encontrado en el carrito");
+            }
+            stockReservationService.hold(productId, email, quantity, product.getStock());
+            items.put(productId, quantity);
+        });
 
-        log.info("✏️ Customer {} actualizó {} a {} unidades", 
-                customer.getEmail(), product.getName(), quantity);
+        log.info("✏️ Customer {} actualizó {} a {} unidades", email, product.getName(), quantity);
+        return convertToDTO(cart);
+    }
 
+    /**
+     * Aplica varios cambios de cantidad en una sola actualización del carrito. Todos se
+     * validan contra el stock del catálogo y las reservas, y se apartan juntos, antes de
+     * tocar los items; si alguno no es válido no se aplica ninguno.
+     */
+    public CartResponseDTO applyBatch(CartBatchUpdateRequestDTO request) {
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            throw new RuntimeException("No hay cambios para aplicar");
+        }
+        String email = securityService.getCurrentUsername();
+
+        // Varias filas del mismo producto se suman en un solo cambio
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        for (CartBatchUpdateRequestDTO.Item item : request.getItems()) {
+            if (item.getProductId() == null || item.getQuantity() == null) {
+                throw new RuntimeException("Cada cambio debe indicar producto y cantidad");
+            }
+            deltas.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        CatalogSnapshot catalog = catalogService.current();
+
+        CartStore.CartView cart = cartStore.update(email, items -> {
+            Map<Long, Integer> result = new LinkedHashMap<>();
+            deltas.forEach((productId, delta) -> {
+                int newQuantity = items.getOrDefault(productId, 0) + delta;
+                if (newQuantity > 0) {
+                    ProductResponseDTO product = getAvailableProduct(catalog, productId);
+                    try {
+                        validateQuantity(newQuantity, product.getStock());
+                    } catch (RuntimeException e) {
+                        throw new RuntimeException(product.getName() + ": " + e.getMessage());
+                    }
+                    stockReservationService.assertAvailable(productId, product.getName(), email,
+                            newQuantity, product.getStock());
+                }
+                result.put(productId, newQuantity);
+            });
+
+            // Otra reserva pudo llegar después de la validación: si alguna no alcanza,
+            // holdAll deshace las ya puestas y los items quedan sin tocar
+            Map<Long, Integer> holds = new LinkedHashMap<>();
+            Map<Long, Integer> stocks = new HashMap<>();
+            result.forEach((productId, newQuantity) -> {
+                if (newQuantity > 0) {
+                    holds.put(productId, newQuantity);
+                    stocks.put(productId, catalog.get(productId).getStock());
+                }
+            });
+            stockReservationService.holdAll(email, holds, stocks);
+
+            result.forEach((productId, newQuantity) -> {
+                if (newQuantity > 0) {
+                    items.put(productId, newQuantity);
+                } else if (items.remove(productId) != null) {
+                    stockReservationService.release(productId, email);
+                }
+            });
+        });
+
+        log.info("🛒 Customer {} aplicó {} cambios al carrito", email, deltas.size());
         return convertToDTO(cart);
     }
 
-    @Transactional
     public CartResponseDTO removeFromCart(Long productId) {
-        User customer = getCurrentCustomer();
-        Cart cart = getCartForCustomer(customer);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-
-        CartItem item = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElseThrow(() -> new RuntimeException("Producto no encontrado en el carrito"));
+        String email = securityService.getCurrentUsername();
+        ProductResponseDTO product = getProduct(productId);
 
-        cartItemRepository.delete(item);
-        cartRepository.save(cart);
-
-        log.info("🗑️ Customer {} removió {} del carrito", customer.getEmail(), product.getName());
+        CartStore.CartView cart = cartStore.update(email, items -> {
+            if (items.remove(productId) == null) {
+                throw new RuntimeException("Producto no encontrado en el carrito");
+            }
+        });
+        stockReservationService.release(productId, email);
 
+        log.info("🗑️ Customer {} removió {} del carrito", email, product.getName());
         return convertToDTO(cart);
     }
 
-    @Transactional
     public void clearCart() {
-        User customer = getCurrentCustomer();
-        Cart cart = getCartForCustomer(customer);
-        
-        cartItemRepository.deleteByCartId(cart.getId());
-        cartRepository.save(cart);
-        
-        log.info("🧹 Customer {} vació su carrito", customer.getEmail());
+        String email = securityService.getCurrentUsername();
+        cartStore.update(email, Map::clear);
+        stockReservationService.releaseAll(email);
+
+        log.info("🧹 Customer {} vació su carrito", email);
+    }
+
+    // Al entrar al checkout se renuevan las reservas de todo el carrito con el plazo del checkout
+    public CartResponseDTO reserveForCheckout() {
+        String email = securityService.getCurrentUsername();
+        CartStore.CartView cart = cartStore.view(email);
+
+        for (Map.Entry<Long, Integer> item : cart.items().entrySet()) {
+            ProductResponseDTO product = catalogService.current().get(item.getKey());
+            if (product == null) {
+                continue;
+            }
+            try {
+                stockReservationService.holdForCheckout(product.getId(), email, item.getValue(), product.getStock());
+            } catch (RuntimeException e) {
+                throw new RuntimeException(product.getName() + ": " + e.getMessage());
+            }
+        }
+
+        log.info("⏳ Customer {} inició el checkout; stock reservado", email);
+        return convertToDTO(cart);
     }
 
-    @Transactional
     public Integer getCartItemCount() {
-        User customer = getCurrentCustomer();
-        Cart cart = cartRepository.findByUserId(customer.getId()).orElse(null);
-        
-        if (cart == null) {
-            return 0;
+        return cartStore.itemCount(securityService.getCurrentUsername());
+    }
+
+    /**
+     * Suma al carrito del cliente lo que tenía como visitante y lo guarda de inmediato en
+     * un solo upsert por lotes. A diferencia de agregar a mano no falla: lo que ya no está
+     * disponible se omite y las cantidades se recortan al stock libre.
+     */
+    public void mergeGuestCart(String email, Map<Long, Integer> guestItems) {
+        if (guestItems.isEmpty()) {
+            return;
         }
-        
-        return cartItemRepository.countItemsByCartId(cart.getId());
+        CatalogSnapshot catalog = catalogService.current();
+        int[] merged = new int[1];
+
+        CartStore.CartView cart = cartStore.update(email, items -> guestItems.forEach((productId, quantity) -> {
+            ProductResponseDTO product = catalog.get(productId);
+            if (product == null || !Boolean.TRUE.equals(product.getActive())) {
+                return;
+            }
+            int available = product.getStock() - stockReservationService.reservedByOthers(productId, email);
+            int newQuantity = Math.min(items.getOrDefault(productId, 0) + quantity, available);
+            if (newQuantity <= 0 || newQuantity == items.getOrDefault(productId, 0)) {
+                return;
+            }
+            try {
+                stockReservationService.hold(productId, email, newQuantity, product.getStock());
+                items.put(productId, newQuantity);
+                merged[0]++;
+            } catch (RuntimeException e) {
+                log.debug("Producto {} del carrito de visitante omitido: {}", productId, e.getMessage());
+            }
+        }));
+        cartStore.persist(cart.userId());
+
+        log.info("🛒 Customer {} recuperó {} productos de su carrito de visitante", email, merged[0]);
     }
 
     // Métodos privados de ayuda
-    private User getCurrentCustomer() {
-        User user = securityService.getCurrentUser();
-        if (user.getRole() != io.bootify.pet_shop.models.Role.CUSTOMER) {
-            throw new RuntimeException("Acceso denegado: Solo los clientes pueden acceder a esta funcionalidad");
-        }
-        return user;
+    private ProductResponseDTO getProduct(Long productId) {
+        return getProduct(catalogService.current(), productId);
     }
 
-    private Cart getOrCreateCart(User customer) {
-        return cartRepository.findByUser(customer)
-                .orElseGet(() -> {
-                    Cart newCart = new Cart(customer);
-                    return cartRepository.save(newCart);
-                });
+    static ProductResponseDTO getProduct(CatalogSnapshot catalog, Long productId) {
+        ProductResponseDTO product = catalog.get(productId);
+        if (product == null) {
+            throw new RuntimeException("Producto no encontrado");
+        }
+        return product;
     }
 
-    private Cart getCartForCustomer(User customer) {
-        return cartRepository.findByUser(customer)
-                .orElseThrow(() -> new RuntimeException("Carrito no encontrado"));
+    private ProductResponseDTO getAvailableProduct(Long productId) {
+        return getAvailableProduct(catalogService.current(), productId);
     }
 
-    private Product getAvailableProduct(Long productId) {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
-        
-        if (!product.getActive()) {
+    static ProductResponseDTO getAvailableProduct(CatalogSnapshot catalog, Long productId) {
+        ProductResponseDTO product = getProduct(catalog, productId);
+
+        if (!Boolean.TRUE.equals(product.getActive())) {
             throw new RuntimeException("El producto no está disponible");
         }
-        
+
         if (product.getStock() <= 0) {
             throw new RuntimeException("El producto está agotado");
         }
-        
+
         return product;
     }
 
-    private void validateQuantity(Integer quantity, Integer availableStock) {
-        if (quantity <= 0) {
+    static void validateQuantity(Integer quantity, Integer availableStock) {
+        if (quantity == null || quantity <= 0) {
             throw new RuntimeException("La cantidad debe ser mayor a 0");
         }
         
@@ -178,33 +258,43 @@ public class CartService {
         }
     }
 
-    private CartResponseDTO convertToDTO(Cart cart) {
+    private CartResponseDTO convertToDTO(CartStore.CartView cart) {
+        return convertToDTO(cart.cartId(), cart.userId(), cart.updatedAt(), cart.items(), cart.itemIds());
+    }
+
+    // También arma el carrito de los visitantes, que no tiene id ni usuario
+    CartResponseDTO convertToDTO(Long cartId, Long userId, LocalDateTime updatedAt, Map<Long, Integer> items,
+            Map<Long, Long> itemIds) {
         CartResponseDTO dto = new CartResponseDTO();
-        dto.setId(cart.getId());
-        dto.setUserId(cart.getUser().getId());
-        
-        List<CartItemDTO> itemDTOs = cartItemRepository.findByCartIdWithProduct(cart.getId())
-                .stream()
-                .map(this::convertItemToDTO)
-                .collect(Collectors.toList());
+        dto.setId(cartId);
+        dto.setUserId(userId);
+
+        CatalogSnapshot catalog = catalogService.current();
+        List<CartItemDTO> itemDTOs = new ArrayList<>(items.size());
+        items.forEach((productId, quantity) -> {
+            ProductResponseDTO product = catalog.get(productId);
+            if (product != null) {
+                itemDTOs.add(convertItemToDTO(itemIds.get(productId), product, quantity));
+            }
+        });
         dto.setItems(itemDTOs);
         
         dto.setTotalItems(calculateTotalItems(itemDTOs));
         dto.setTotalAmount(calculateTotalAmount(itemDTOs));
-        dto.setUpdatedAt(cart.getUpdatedAt());
+        dto.setUpdatedAt(updatedAt);
         
         return dto;
     }
 
-    private CartItemDTO convertItemToDTO(CartItem item) {
+    private CartItemDTO convertItemToDTO(Long itemId, ProductResponseDTO product, int quantity) {
         CartItemDTO dto = new CartItemDTO();
-        dto.setId(item.getId());
-        dto.setProductId(item.getProduct().getId());
-        dto.setProductName(item.getProduct().getName());
-        dto.setProductImage(item.getProduct().getDisplayImage());
-        dto.setProductPrice(item.getProduct().getPrice());
-        dto.setQuantity(item.getQuantity());
-        dto.setSubtotal(item.getProduct().getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        dto.setId(itemId);
+        dto.setProductId(product.getId());
+        dto.setProductName(product.getName());
+        dto.setProductImage(product.getImageUrl());
+        dto.setProductPrice(product.getPrice());
+        dto.setQuantity(quantity);
+        dto.setSubtotal(product.getPrice().multiply(BigDecimal.valueOf(quantity)));
         return dto;
     }
 
@@ -0,0 +1,416 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.models.Cart;
+import io.bootify.pet_shop.models.CartItem;
+import io.bootify.pet_shop.models.Role;
+import io.bootify.pet_shop.models.User;
+import io.bootify.pet_shop.repositories.CartItemRepository;
+import io.bootify.pet_shop.repositories.CartRepository;
+import io.bootify.pet_shop.repositories.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Carritos en memoria con escritura diferida. Cada cliente tiene su carrito en un mapa
+ * concurrente; agregar, cambiar o quitar productos sólo modifica la memoria y marca el
+ * carrito como pendiente. Un proceso periódico escribe todos los pendientes juntos en
+ * tres sentencias, y el checkout fuerza la escritura del carrito antes de leerlo. Los
+ * carritos inactivos se escriben y se descartan; al apagar se escribe todo lo pendiente.
+ * Como en la venta flash, el estado es local a esta instancia; se supone una sola.
+ */
+@Slf4j
+@Service
+@Lazy(false)
+public class CartStore {
+
+    /** Copia inmutable del carrito para armar respuestas fuera del lock. */
+    public record CartView(Long userId, Long cartId, LocalDateTime updatedAt, Map<Long, Integer> items,
+            Map<Long, Long> itemIds) {
+    }
+
+    /** Lo que quedó escrito en la base al forzar la escritura del carrito, con su versión. */
+    public record FlushedCart(Long userId, Map<Long, Integer> items, long version) {
+    }
+
+    // Se modifica sólo con el lock del propio objeto
+    private static final class CachedCart {
+        private final Long userId;
+        private final String email;
+        private Long cartId;
+        private LocalDateTime updatedAt;
+        private final Map<Long, Integer> items = new LinkedHashMap<>();   // productId -> cantidad
+        private final Map<Long, Long> itemIds = new HashMap<>();          // sólo los leídos de la base
+        private long version;
+        private long flushedVersion;
+        private volatile long lastAccess = System.currentTimeMillis();
+        private boolean evicted;
+        // Se toma desde que se copian los items hasta que termina la transacción que los escribe,
+        // para que una escritura vieja no pise en la base a otra más nueva
+        private final ReentrantLock flushLock = new ReentrantLock();
+
+        private CachedCart(Long userId, String email) {
+            this.userId = userId;
+            this.email = email;
+        }
+
+        private boolean isDirty() {
+            return version > flushedVersion;
+        }
+
+        private CartView view() {
+            // Se conserva el orden en que se agregaron los productos
+            return new CartView(userId, cartId, updatedAt, Collections.unmodifiableMap(new LinkedHashMap<>(items)),
+                    Map.copyOf(itemIds));
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxSize;
+    private final long idleMillis;
+
+    private final Map<Long, CachedCart> carts = new ConcurrentHashMap<>();
+    private final Map<String, Long> userIdsByEmail = new ConcurrentHashMap<>();
+    // Cantidad de productos por usuario para el contador del header; sobrevive al descarte del carrito
+    private final Map<Long, Integer> itemCounts = new ConcurrentHashMap<>();
+
+    public CartStore(UserRepository userRepository,
+                     CartRepository cartRepository,
+                     CartItemRepository cartItemRepository,
+                     MeterRegistry meterRegistry,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${app.cart.store.max-size:10000}") int maxSize,
+                     @Value("${app.cart.store.idle-timeout:PT30M}") Duration idleTimeout) {
+        this.userRepository = userRepository;
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxSize = Math.max(maxSize, 1);
+        this.idleMillis = idleTimeout.toMillis();
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("petshop.cart.store.size", carts, Map::size)
+                .description("Carritos en memoria")
+                .register(meterRegistry);
+    }
+
+    public CartView view(String email) {
+        while (true) {
+            CachedCart cart = cartOf(email);
+            synchronized (cart) {
+                if (!cart.evicted) {
+                    return cart.view();
+                }
+            }
+        }
+    }
+
+    /**
+     * Cantidad de productos distintos del carrito. Sale del contador en memoria sin copiar
+     * el carrito; sólo se carga de la base si nunca se usó desde que arrancó la aplicación.
+     */
+    public int itemCount(String email) {
+        Long userId = userIdsByEmail.get(email);
+        Integer count = userId != null ? itemCounts.get(userId) : null;
+        return count != null ? count : view(email).items().size();
+    }
+
+    /**
+     * Aplica mutation a los items (productId -> cantidad) con el carrito bloqueado. Si
+     * mutation lanza una excepción no debe haber modificado nada; el carrito queda igual.
+     */
+    public CartView update(String email, Consumer<Map<Long, Integer>> mutation) {
+        while (true) {
+            CachedCart cart = cartOf(email);
+            synchronized (cart) {
+                if (cart.evicted) {
+                    continue;
+                }
+                Map<Long, Integer> before = Map.copyOf(cart.items);
+                mutation.accept(cart.items);
+                if (!cart.items.equals(before)) {
+                    cart.itemIds.keySet().retainAll(cart.items.keySet());
+                    cart.updatedAt = LocalDateTime.now();
+                    cart.version++;
+                    itemCounts.put(cart.userId, cart.items.size());
+                }
+                return cart.view();
+            }
+        }
+    }
+
+    /**
+     * Escribe el carrito del usuario en la transacción en curso, para que las lecturas
+     * siguientes de la base lo vean. Si la transacción se revierte sigue pendiente.
+     * Espera a que termine una escritura periódica en curso del mismo carrito, y hasta
+     * que esta transacción termine las escrituras periódicas lo saltean. Devuelve el
+     * contenido que quedó en la base.
+     */
+    public FlushedCart flush(String email) {
+        while (true) {
+            CachedCart cart = cartOf(email);
+            FlushedCart flushed = write(List.of(cart), true, true).get(cart);
+            synchronized (cart) {
+                if (!cart.evicted) {
+                    return flushed;
+                }
+            }
+        }
+    }
+
+    // Escribe el carrito ya, en su propia transacción, sin esperar al próximo ciclo
+    public void persist(Long userId) {
+        CachedCart cart = carts.get(userId);
+        if (cart != null) {
+            transactionTemplate.executeWithoutResult(status -> write(List.of(cart), false, true));
+        }
+    }
+
+    /**
+     * Tras el checkout la base quedó sin items. Al confirmar se quitan de memoria sólo los
+     * productos comprados que siguen con la misma cantidad; lo agregado o cambiado después
+     * de flush queda pendiente y se vuelve a escribir. onCleared recibe los productos quitados.
+     */
+    public void clearAfterCommit(FlushedCart flushed, Consumer<Set<Long>> onCleared) {
+        afterCommit(() -> {
+            CachedCart cart = carts.get(flushed.userId());
+            if (cart == null) {
+                // Se vuelve a leer de la base la próxima vez
+                itemCounts.remove(flushed.userId());
+                onCleared.accept(flushed.items().keySet());
+                return;
+            }
+            Set<Long> cleared = new HashSet<>();
+            synchronized (cart) {
+                flushed.items().forEach((productId, quantity) -> {
+                    if (quantity.equals(cart.items.get(productId))) {
+                        cart.items.remove(productId);
+                        cleared.add(productId);
+                    }
+                });
+                // Las filas leídas de la base se borraron con el checkout
+                cart.itemIds.clear();
+                cart.updatedAt = LocalDateTime.now();
+                boolean changedSinceFlush = cart.version != flushed.version();
+                cart.version++;
+                if (!changedSinceFlush) {
+                    cart.flushedVersion = cart.version;
+                }
+                itemCounts.put(cart.userId, cart.items.size());
+            }
+            onCleared.accept(cleared);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.store.flush-interval-ms:2000}")
+    public void flushDirty() {
+        List<CachedCart> dirty = carts.values().stream().filter(this::isDirty).toList();
+        if (!dirty.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(dirty, false, false));
+            } catch (RuntimeException e) {
+                // Siguen pendientes; se reintenta en el próximo ciclo
+                log.warn("⚠️ No se pudieron guardar {} carritos: {}", dirty.size(), e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.store.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleMillis;
+        evict(carts.values().stream().filter(cart -> cart.lastAccess < cutoff).toList());
+
+        // Los contadores de carritos descartados se conservan, con un tope
+        if (itemCounts.size() > maxSize * 10L) {
+            itemCounts.keySet().retainAll(carts.keySet());
+            userIdsByEmail.values().retainAll(carts.keySet());
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushDirty();
+    }
+
+    private CachedCart cartOf(String email) {
+        Long userId = userIdsByEmail.get(email);
+        CachedCart cart = userId != null ? carts.get(userId) : null;
+        if (cart == null) {
+            cart = load(email);
+        }
+        cart.lastAccess = System.currentTimeMillis();
+        return cart;
+    }
+
+    // Dos lecturas la primera vez que se usa el carrito (o después de descartarlo por inactivo)
+    private CachedCart load(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado: " + email));
+        if (user.getRole() != Role.CUSTOMER) {
+            throw new RuntimeException("Acceso denegado: Solo los clientes pueden acceder a esta funcionalidad");
+        }
+
+        CachedCart loaded = new CachedCart(user.getId(), email);
+        Cart stored = cartRepository.findByUserIdWithItems(user.getId()).orElse(null);
+        if (stored != null) {
+            loaded.cartId = stored.getId();
+            loaded.updatedAt = stored.getUpdatedAt();
+            for (CartItem item : stored.getItems()) {
+                loaded.items.put(item.getProduct().getId(), item.getQuantity());
+                loaded.itemIds.put(item.getProduct().getId(), item.getId());
+            }
+        }
+
+        CachedCart existing = carts.putIfAbsent(user.getId(), loaded);
+        userIdsByEmail.put(email, user.getId());
+        if (existing != null) {
+            return existing;
+        }
+        itemCounts.put(user.getId(), loaded.items.size());
+        if (carts.size() > maxSize) {
+            evictOldest(carts.size() - maxSize);
+        }
+        return loaded;
+    }
+
+    // Debe correr dentro de una transacción; marca los carritos como guardados al confirmar.
+    // Con createMissing se crea la fila del carrito aunque no haya cambios (el checkout la lee).
+    // Sin wait, los carritos que otra transacción está escribiendo quedan para el próximo ciclo.
+    // Devuelve el contenido de cada carrito bloqueado tal como queda en la base
+    private Map<CachedCart, FlushedCart> write(List<CachedCart> pending, boolean createMissing, boolean wait) {
+        List<CachedCart> locked = new ArrayList<>(pending.size());
+        for (CachedCart cart : pending) {
+            if (wait) {
+                cart.flushLock.lock();
+                locked.add(cart);
+            } else if (cart.flushLock.tryLock()) {
+                locked.add(cart);
+            }
+        }
+        afterCompletion(() -> locked.forEach(cart -> cart.flushLock.unlock()));
+
+        Map<Long, Map<Long, Integer>> items = new HashMap<>();
+        Map<CachedCart, Long> versions = new HashMap<>();
+        Map<CachedCart, FlushedCart> captured = new HashMap<>();
+        for (CachedCart cart : locked) {
+            synchronized (cart) {
+                captured.put(cart, new FlushedCart(cart.userId, Map.copyOf(cart.items), cart.version));
+                if (cart.isDirty() || (createMissing && cart.cartId == null)) {
+                    items.put(cart.userId, new HashMap<>(cart.items));
+                    versions.put(cart, cart.version);
+                }
+            }
+        }
+        if (items.isEmpty()) {
+            return captured;
+        }
+        Map<Long, Long> cartIds = cartItemRepository.writeCarts(items);
+        afterCommit(() -> versions.forEach((cart, version) -> {
+            synchronized (cart) {
+                cart.flushedVersion = Math.max(cart.flushedVersion, version);
+                cart.cartId = cartIds.getOrDefault(cart.userId, cart.cartId);
+            }
+        }));
+        meterRegistry.counter("petshop.cart.store.flushed").increment(items.size());
+        log.debug("🛒 Guardados {} carritos", items.size());
+        return captured;
+    }
+
+    private void evictOldest(int excess) {
+        evict(carts.values().stream()
+                .sorted(Comparator.comparingLong(cart -> cart.lastAccess))
+                .limit(excess)
+                .toList());
+    }
+
+    // Se escriben los pendientes y se descartan sólo los que quedaron al día
+    private void evict(List<CachedCart> victims) {
+        if (victims.isEmpty()) {
+            return;
+        }
+        if (victims.stream().anyMatch(this::isDirty)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(victims, false, false));
+            } catch (RuntimeException e) {
+                log.warn("⚠️ No se pudieron guardar carritos antes de descartarlos: {}", e.getMessage());
+                return;
+            }
+        }
+        int evicted = 0;
+        for (CachedCart cart : victims) {
+            synchronized (cart) {
+                // Un carrito que se está escribiendo (por ejemplo en un checkout) se queda
+                if (!cart.isDirty() && !cart.flushLock.isLocked()) {
+                    cart.evicted = true;
+                    carts.remove(cart.userId, cart);
+                    evicted++;
+                }
+            }
+        }
+        log.debug("🛒 Descartados {} carritos inactivos de memoria", evicted);
+    }
+
+    private boolean isDirty(CachedCart cart) {
+        synchronized (cart) {
+            return cart.isDirty();
+        }
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
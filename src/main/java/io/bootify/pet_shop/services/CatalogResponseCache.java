@@ -0,0 +1,116 @@
+package io.bootify.pet_shop.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * LRU acotado de respuestas del catálogo ya serializadas a JSON (UTF-8). La clave
+ * incluye la versión del catálogo; al aparecer una versión nueva se descarta todo
+ * lo anterior, así que nunca se sirve un cuerpo desactualizado.
+ */
+@Component
+public class CatalogResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+    private long currentVersion = Long.MIN_VALUE;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final DistributionSummary payloadSize;
+
+    public CatalogResponseCache(ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.catalog.response-cache.max-entries:500}") int maxEntries,
+                                @Value("${app.catalog.response-cache.max-bytes:16777216}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+
+        this.hits = meterRegistry.counter("petshop.catalog.response_cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("petshop.catalog.response_cache.requests", "result", "miss");
+        this.payloadSize = DistributionSummary.builder("petshop.catalog.response_cache.payload")
+                .baseUnit("bytes")
+                .description("Tamaño de las respuestas serializadas al guardarlas en cache")
+                .register(meterRegistry);
+        Gauge.builder("petshop.catalog.response_cache.bytes", this, CatalogResponseCache::totalBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("petshop.catalog.response_cache.entries", this, CatalogResponseCache::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Devuelve los bytes guardados para la clave en esa versión del catálogo o, si no
+     * están, serializa lo que entregue el loader y lo guarda.
+     */
+    public byte[] get(long version, String key, Supplier<?> loader) {
+        synchronized (this) {
+            if (version == currentVersion) {
+                byte[] cached = entries.get(key);
+                if (cached != null) {
+                    hits.increment();
+                    return cached;
+                }
+            }
+        }
+        misses.increment();
+
+        // La serialización se hace fuera del lock; dos misses simultáneos calculan lo mismo
+        byte[] body = serialize(loader.get());
+        payloadSize.record(body.length);
+
+        synchronized (this) {
+            if (version > currentVersion) {
+                entries.clear();
+                totalBytes = 0;
+                currentVersion = version;
+            }
+            if (version == currentVersion && body.length <= maxBytes) {
+                byte[] previous = entries.put(key, body);
+                totalBytes += body.length - (previous != null ? previous.length : 0);
+                evict();
+            }
+        }
+        return body;
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, byte[]>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && eldest.hasNext()) {
+            totalBytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error al serializar la respuesta del catálogo", e);
+        }
+    }
+
+    private synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    private synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,401 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.dto.CursorPageDTO;
+import io.bootify.pet_shop.dto.FacetCountDTO;
+import io.bootify.pet_shop.dto.PageDTO;
+import io.bootify.pet_shop.dto.PriceRangeFacetDTO;
+import io.bootify.pet_shop.dto.ProductFacetsDTO;
+import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.dto.ProductSearchResponseDTO;
+import io.bootify.pet_shop.events.CatalogUpdatedEvent;
+import io.bootify.pet_shop.events.CategoryChangedEvent;
+import io.bootify.pet_shop.events.ProductChangedEvent;
+import io.bootify.pet_shop.models.ProductType;
+import io.bootify.pet_shop.repositories.ProductRepository;
+import io.bootify.pet_shop.util.ProductCursor;
+import io.bootify.pet_shop.util.SpanishTextAnalyzer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Atiende la navegación de clientes desde un snapshot en memoria del catálogo.
+ * Los métodos de lectura no son transaccionales a propósito: no piden conexión al pool.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSearchIndex searchIndex;
+    private final CatalogResponseCache responseCache;
+
+    // Límites de los rangos de precio para las facetas, en pesos
+    @Value("${app.catalog.facets.price-bounds:20000,50000,100000,200000}")
+    private BigDecimal[] facetPriceBounds;
+
+    private volatile CatalogSnapshot snapshot;
+
+    // Ids cambiados desde el último refresco; un solo hilo los aplica en lote fuera del request
+    private final Set<Long> pendingChanges = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Versión monótona del catálogo para los ETag. Parte de la hora de arranque para no
+    // repetir valores entre reinicios y sólo avanza cuando el snapshot nuevo ya es visible.
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public String catalogETag() {
+        return "catalog-" + version.get();
+    }
+
+    /**
+     * ETag de un producto según su updatedAt y el nombre de su categoría: renombrar la
+     * categoría cambia la respuesta sin tocar el producto. Null si no está en el catálogo.
+     */
+    public String productETag(Long id) {
+        ProductResponseDTO product = current().get(id);
+        if (product == null) {
+            return null;
+        }
+        if (product.getUpdatedAt() == null) {
+            return catalogETag();
+        }
+        return "product-" + id + "-" + product.getUpdatedAt().toInstant(ZoneOffset.UTC).toEpochMilli()
+                + "-" + Integer.toHexString(Objects.hashCode(product.getCategoryName()));
+    }
+
+    public PageDTO<ProductResponseDTO> getProducts(
+            String search,
+            List<Long> category,
+            List<ProductType> type,
+            Double minPrice,
+            Double maxPrice,
+            Boolean inStock,
+            String sort,
+            int page,
+            int size) {
+
+        int pageSize = pageSize(size);
+        int pageNumber = pageNumber(page, pageSize);
+        long offset = (long) pageNumber * pageSize;
+        CatalogSnapshot current = current();
+        BitSet selected = current.filter(category, type, minPrice, maxPrice, inStock);
+
+        if (search != null && !search.trim().isEmpty()) {
+            LinkedHashMap<Long, Double> ranked = searchIndex.search(search).getRanked();
+            BitSet matches = positionsOf(current, ranked.keySet());
+            selected.and(matches);
+
+            if ("relevance".equals(sort)) {
+                List<ProductResponseDTO> content = ranked.keySet().stream()
+                        .mapToInt(id -> current.positionOf(id))
+                        .filter(pos -> pos >= 0 && selected.get(pos))
+                        .skip(offset)
+                        .limit(pageSize)
+                        .mapToObj(current::at)
+                        .collect(Collectors.toList());
+                return PageDTO.of(content, pageNumber, pageSize, selected.cardinality());
+            }
+        }
+
+        List<ProductResponseDTO> content = current.page(selected, sort, (int) offset, pageSize);
+        return PageDTO.of(content, pageNumber, pageSize, selected.cardinality());
+    }
+
+    /**
+     * Scroll por keyset sobre el snapshot, con los mismos filtros y la misma búsqueda BM25
+     * que getProducts. El orden por relevancia no admite cursor y se atiende por nombre.
+     */
+    public CursorPageDTO<ProductResponseDTO> scrollProducts(
+            String search,
+            List<Long> category,
+            List<ProductType> type,
+            Double minPrice,
+            Double maxPrice,
+            Boolean inStock,
+            String sort,
+            String cursor,
+            int size) {
+
+        int pageSize = pageSize(size);
+        String order = ProductCursor.normalizeSort(sort);
+        ProductCursor after = cursor != null && !cursor.isBlank() ? ProductCursor.decode(cursor, order) : null;
+
+        CatalogSnapshot current = current();
+        BitSet selected = current.filter(category, type, minPrice, maxPrice, inStock);
+        if (search != null && !search.trim().isEmpty()) {
+            selected.and(positionsOf(current, searchIndex.search(search).getRanked().keySet()));
+        }
+
+        // Se pide un elemento extra para saber si hay otra página
+        List<ProductResponseDTO> rows = after != null
+                ? current.pageAfter(selected, order, after, pageSize + 1)
+                : current.page(selected, order, 0, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<ProductResponseDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? ProductCursor.after(items.get(items.size() - 1), order).encode() : null;
+        return new CursorPageDTO<>(new ArrayList<>(items), nextCursor, hasMore, pageSize);
+    }
+
+    // Igual que getProducts pero ya serializado; se reutilizan los bytes mientras no cambie el catálogo
+    public byte[] getProductsJson(
+            String search,
+            List<Long> category,
+            List<ProductType> type,
+            Double minPrice,
+            Double maxPrice,
+            Boolean inStock,
+            String sort,
+            int page,
+            int size) {
+
+        // Se normalizan antes de armar la clave: tamaños distintos no deben ocupar entradas distintas
+        int pageSize = pageSize(size);
+        int pageNumber = pageNumber(page, pageSize);
+
+        // La versión se lee antes que el snapshot: en el peor caso se guarda un cuerpo más nuevo que su clave
+        long currentVersion = version.get();
+        String key = String.join("|",
+                search != null ? SpanishTextAnalyzer.fold(search.trim()) : "",
+                category != null ? category.stream().sorted().map(String::valueOf).collect(Collectors.joining(",")) : "",
+                type != null ? type.stream().sorted().map(Enum::name).collect(Collectors.joining(",")) : "",
+                String.valueOf(minPrice),
+                String.valueOf(maxPrice),
+                String.valueOf(inStock),
+                String.valueOf(sort),
+                String.valueOf(pageNumber),
+                String.valueOf(pageSize));
+        return responseCache.get(currentVersion, key,
+                () -> getProducts(search, category, type, minPrice, maxPrice, inStock, sort, pageNumber, pageSize));
+    }
+
+    private static int pageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+
+    // El desplazamiento tiene que caber en un int para recorrer el snapshot
+    private static int pageNumber(int page, int pageSize) {
+        int pageNumber = Math.max(page, 0);
+        if ((long) pageNumber * pageSize > Integer.MAX_VALUE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Página fuera de rango");
+        }
+        return pageNumber;
+    }
+
+    public ProductFacetsDTO getFacets(
+            String search,
+            List<Long> category,
+            List<ProductType> type,
+            Double minPrice,
+            Double maxPrice,
+            Boolean inStock) {
+
+        CatalogSnapshot current = current();
+        BitSet candidates = current.activeProducts();
+        if (search != null && !search.trim().isEmpty()) {
+            candidates.and(positionsOf(current, searchIndex.search(search).getRanked().keySet()));
+        }
+
+        BigDecimal[] bounds = facetPriceBounds.clone();
+        Arrays.sort(bounds);
+        long[] boundsCents = Arrays.stream(bounds)
+                .mapToLong(b -> b.movePointRight(2).longValue())
+                .toArray();
+
+        CatalogSnapshot.FacetCounts counts = current.facets(
+                candidates, category, type, minPrice, maxPrice, inStock, boundsCents);
+
+        List<FacetCountDTO> categories = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : counts.categories.entrySet()) {
+            int pos = current.ofCategory(entry.getKey()).nextSetBit(0);
+            String name = pos >= 0 ? current.categoryNameAt(pos) : null;
+            categories.add(new FacetCountDTO(String.valueOf(entry.getKey()), name, entry.getValue()));
+        }
+        categories.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+
+        List<FacetCountDTO> types = new ArrayList<>();
+        for (ProductType productType : ProductType.values()) {
+            types.add(new FacetCountDTO(productType.name(), productType.name(),
+                    counts.types[productType.ordinal()]));
+        }
+
+        List<PriceRangeFacetDTO> priceRanges = new ArrayList<>();
+        for (int k = 0; k <= bounds.length; k++) {
+            priceRanges.add(new PriceRangeFacetDTO(
+                    k > 0 ? bounds[k - 1] : null,
+                    k < bounds.length ? bounds[k] : null,
+                    counts.priceBuckets[k]));
+        }
+
+        ProductFacetsDTO facets = new ProductFacetsDTO();
+        facets.setTotalProducts(counts.total);
+        facets.setCategories(categories);
+        facets.setTypes(types);
+        facets.setInStock(counts.inStock);
+        facets.setOutOfStock(counts.outOfStock);
+        facets.setPriceRanges(priceRanges);
+        return facets;
+    }
+
+    public ProductResponseDTO getProduct(Long id) {
+        ProductResponseDTO product = current().get(id);
+        if (product == null) {
+            throw new RuntimeException("Producto no encontrado");
+        }
+        return product;
+    }
+
+    public ProductSearchResponseDTO searchProducts(String keyword) {
+        CatalogSnapshot current = current();
+        ProductSearchIndex.SearchResult result = searchIndex.search(keyword);
+
+        ProductSearchResponseDTO response = new ProductSearchResponseDTO();
+        response.setQuery(keyword);
+        response.setSuggestion(result.getCorrectedQuery());
+        response.setProducts(result.getRanked().keySet().stream()
+                .map(current::get)
+                .filter(p -> p != null && Boolean.TRUE.equals(p.getActive()))
+                .collect(Collectors.toList()));
+        return response;
+    }
+
+    private BitSet positionsOf(CatalogSnapshot current, Collection<Long> productIds) {
+        BitSet positions = new BitSet(current.size());
+        for (Long id : productIds) {
+            int pos = current.positionOf(id);
+            if (pos >= 0) {
+                positions.set(pos);
+            }
+        }
+        return positions;
+    }
+
+    // Acceso de solo lectura para otros índices en memoria
+    CatalogSnapshot current() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = load();
+                }
+            }
+        }
+        return current;
+    }
+
+    public synchronized void reload() {
+        load();
+    }
+
+    private CatalogSnapshot load() {
+        List<ProductResponseDTO> products = productRepository.findAllWithCategory()
+                .stream()
+                .map(ProductService::convertToDTO)
+                .collect(Collectors.toList());
+        CatalogSnapshot fresh = CatalogSnapshot.of(products);
+        snapshot = fresh;
+        log.info("📦 Snapshot del catálogo cargado con {} productos", fresh.size());
+        eventPublisher.publishEvent(new CatalogUpdatedEvent(products, true));
+        version.incrementAndGet();
+        return fresh;
+    }
+
+    /**
+     * Se ejecuta al confirmar cada cambio de productos (incluido cada checkout), así que
+     * sólo anota los ids y agenda el refresco; los cambios que llegan mientras tanto se
+     * aplican juntos en una sola consulta.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductChangedEvent event) {
+        if (event.getProductIds().isEmpty() || snapshot == null) {
+            // Aún no se ha cargado: la primera lectura traerá el estado ya confirmado
+            return;
+        }
+        pendingChanges.addAll(event.getProductIds());
+        if (refreshScheduled.compareAndSet(false, true)) {
+            refreshExecutor.execute(this::applyPendingChanges);
+        }
+    }
+
+    private void applyPendingChanges() {
+        // Se baja la marca antes de tomar los ids: lo que llegue después agenda otra pasada
+        refreshScheduled.set(false);
+        Set<Long> ids = new HashSet<>(pendingChanges);
+        pendingChanges.removeAll(ids);
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                if (snapshot == null) {
+                    return;
+                }
+                List<ProductResponseDTO> changed = productRepository.findAllWithCategoryByIdIn(ids)
+                        .stream()
+                        .map(ProductService::convertToDTO)
+                        .collect(Collectors.toList());
+                // Los que ya no están en la base se borraron
+                Set<Long> removed = new HashSet<>(ids);
+                changed.forEach(product -> removed.remove(product.getId()));
+                snapshot = snapshot.with(changed, removed);
+                eventPublisher.publishEvent(new CatalogUpdatedEvent(changed, removed, false));
+                version.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            // Se reintenta con el próximo cambio
+            pendingChanges.addAll(ids);
+            log.warn("⚠️ No se pudo refrescar el catálogo para {} productos: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    // Renombrar una categoría cambia categoryName en muchos productos: se recarga todo
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        synchronized (this) {
+            if (snapshot == null) {
+                return;
+            }
+            load();
+        }
+    }
+}
@@ -0,0 +1,520 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.models.ProductType;
+import io.bootify.pet_shop.util.ProductCursor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Vista inmutable del catálogo optimizada para lectura. Los productos se guardan
+ * ordenados por id y los filtros se resuelven con bitsets por posición y arreglos
+ * primitivos, sin tocar la base de datos. Nunca se modifica: cada cambio produce
+ * un snapshot nuevo (copy-on-write). Los productos se entregan como copias, así que
+ * quien los reciba puede modificarlos sin afectar al snapshot.
+ */
+final class CatalogSnapshot {
+
+    private static final Collator NAME_COLLATOR = Collator.getInstance(Locale.of("es"));
+
+    private final ProductResponseDTO[] products;
+    private final long[] ids;
+    private final long[] priceCents;
+    private final BitSet active;
+    private final BitSet inStock;
+    private final BitSet[] byType;
+    private final int[] typeOrdinals;
+    private final Map<Long, BitSet> byCategory;
+    private final CollationKey[] nameKeys;
+    private final long[] createdAtNanos;
+    private final int[] byName;
+    private final int[] byPriceAsc;
+    private final int[] byNewest;
+
+    private CatalogSnapshot(List<ProductResponseDTO> source) {
+        products = source.stream()
+                .sorted(Comparator.comparing(ProductResponseDTO::getId))
+                .toArray(ProductResponseDTO[]::new);
+
+        int n = products.length;
+        ids = new long[n];
+        priceCents = new long[n];
+        active = new BitSet(n);
+        inStock = new BitSet(n);
+        typeOrdinals = new int[n];
+        byType = new BitSet[ProductType.values().length];
+        for (int t = 0; t < byType.length; t++) {
+            byType[t] = new BitSet(n);
+        }
+        byCategory = new HashMap<>();
+
+        for (int i = 0; i < n; i++) {
+            ProductResponseDTO p = products[i];
+            ids[i] = p.getId();
+            priceCents[i] = toCents(p.getPrice(), RoundingMode.HALF_UP);
+            if (Boolean.TRUE.equals(p.getActive())) {
+                active.set(i);
+            }
+            if (p.getStock() != null && p.getStock() > 0) {
+                inStock.set(i);
+            }
+            typeOrdinals[i] = p.getType() != null ? ProductType.valueOf(p.getType()).ordinal() : -1;
+            if (typeOrdinals[i] >= 0) {
+                byType[typeOrdinals[i]].set(i);
+            }
+            if (p.getCategoryId() != null) {
+                byCategory.computeIfAbsent(p.getCategoryId(), k -> new BitSet(n)).set(i);
+            }
+        }
+
+        // Las claves de colación se calculan una vez por producto y no en cada comparación.
+        // Las posiciones siguen el orden de id, así que desempatar por posición es desempatar por id
+        nameKeys = new CollationKey[n];
+        createdAtNanos = new long[n];
+        for (int i = 0; i < n; i++) {
+            nameKeys[i] = nameKey(products[i].getName());
+            createdAtNanos[i] = toNanos(products[i].getCreatedAt());
+        }
+        byName = order((a, b) -> {
+            int c = nameKeys[a].compareTo(nameKeys[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        byPriceAsc = order((a, b) -> {
+            int c = Long.compare(priceCents[a], priceCents[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        byNewest = order((a, b) -> {
+            int c = Long.compare(createdAtNanos[b], createdAtNanos[a]);
+            return c != 0 ? c : Integer.compare(b, a);
+        });
+    }
+
+    // Mismos productos y órdenes que base; sólo cambian los productos y el bitset de stock
+    private CatalogSnapshot(CatalogSnapshot base, ProductResponseDTO[] products, BitSet inStock) {
+        this.products = products;
+        this.inStock = inStock;
+        this.ids = base.ids;
+        this.priceCents = base.priceCents;
+        this.active = base.active;
+        this.byType = base.byType;
+        this.typeOrdinals = base.typeOrdinals;
+        this.byCategory = base.byCategory;
+        this.nameKeys = base.nameKeys;
+        this.createdAtNanos = base.createdAtNanos;
+        this.byName = base.byName;
+        this.byPriceAsc = base.byPriceAsc;
+        this.byNewest = base.byNewest;
+    }
+
+    static CatalogSnapshot of(Collection<ProductResponseDTO> products) {
+        return new CatalogSnapshot(new ArrayList<>(products));
+    }
+
+    /**
+     * Devuelve un snapshot nuevo con los productos indicados agregados o reemplazados y
+     * los ids de removed quitados. Si sólo cambió el stock de productos que ya estaban,
+     * se reutilizan los índices y órdenes sin volver a ordenar nada.
+     */
+    CatalogSnapshot with(Collection<ProductResponseDTO> changed, Collection<Long> removed) {
+        if (removed.isEmpty() && changed.stream().allMatch(this::isStockOnlyChange)) {
+            return withStock(changed);
+        }
+        Map<Long, ProductResponseDTO> merged = new LinkedHashMap<>(products.length + changed.size());
+        for (ProductResponseDTO p : products) {
+            merged.put(p.getId(), p);
+        }
+        for (ProductResponseDTO p : changed) {
+            merged.put(p.getId(), p);
+        }
+        merged.keySet().removeAll(removed);
+        return new CatalogSnapshot(new ArrayList<>(merged.values()));
+    }
+
+    private CatalogSnapshot withStock(Collection<ProductResponseDTO> changed) {
+        ProductResponseDTO[] patched = products.clone();
+        BitSet patchedInStock = (BitSet) inStock.clone();
+        for (ProductResponseDTO p : changed) {
+            int pos = positionOf(p.getId());
+            patched[pos] = p;
+            patchedInStock.set(pos, p.getStock() != null && p.getStock() > 0);
+        }
+        return new CatalogSnapshot(this, patched, patchedInStock);
+    }
+
+    // Stock, su clasificación y updatedAt no intervienen en filtros de categoría, tipo ni en los órdenes
+    private boolean isStockOnlyChange(ProductResponseDTO changed) {
+        ProductResponseDTO previous = get(changed.getId());
+        if (previous == null) {
+            return false;
+        }
+        ProductResponseDTO normalized = copyOf(changed);
+        normalized.setStock(previous.getStock());
+        normalized.setStockTier(previous.getStockTier());
+        normalized.setUpdatedAt(previous.getUpdatedAt());
+        return normalized.equals(previous);
+    }
+
+    int size() {
+        return products.length;
+    }
+
+    List<ProductResponseDTO> all() {
+        return Arrays.stream(products).map(CatalogSnapshot::copyOf).toList();
+    }
+
+    ProductResponseDTO get(long id) {
+        int pos = Arrays.binarySearch(ids, id);
+        return pos >= 0 ? copyOf(products[pos]) : null;
+    }
+
+    ProductResponseDTO at(int position) {
+        return copyOf(products[position]);
+    }
+
+    // Para datos sueltos sin copiar el producto entero
+    String categoryNameAt(int position) {
+        return products[position].getCategoryName();
+    }
+
+    int positionOf(long id) {
+        return Arrays.binarySearch(ids, id);
+    }
+
+    BitSet activeProducts() {
+        return (BitSet) active.clone();
+    }
+
+    BitSet inStockProducts() {
+        return inStock;
+    }
+
+    BitSet ofType(ProductType type) {
+        return byType[type.ordinal()];
+    }
+
+    BitSet ofCategory(Long categoryId) {
+        BitSet bits = byCategory.get(categoryId);
+        return bits != null ? bits : new BitSet();
+    }
+
+    long priceCentsAt(int position) {
+        return priceCents[position];
+    }
+
+    // Posiciones de productos activos que cumplen todos los filtros
+    BitSet filter(List<Long> categories, List<ProductType> types, Double minPrice, Double maxPrice,
+            Boolean onlyInStock) {
+        BitSet result = activeProducts();
+
+        BitSet categoryMask = categoryMask(categories);
+        if (categoryMask != null) {
+            result.and(categoryMask);
+        }
+
+        BitSet typeMask = typeMask(types);
+        if (typeMask != null) {
+            result.and(typeMask);
+        }
+
+        if (Boolean.TRUE.equals(onlyInStock)) {
+            result.and(inStock);
+        }
+
+        BitSet priceMask = priceMask(result, minPrice, maxPrice);
+        if (priceMask != null) {
+            result.and(priceMask);
+        }
+
+        return result;
+    }
+
+    /**
+     * Conteos de facetas en una sola pasada sobre los candidatos (productos activos ya
+     * acotados por la búsqueda de texto). Los conteos son disjuntivos: cada faceta se
+     * cuenta aplicando todos los filtros salvo el suyo, para que marcar "Perros" no
+     * deje en cero a las demás categorías.
+     */
+    FacetCounts facets(BitSet candidates, List<Long> categories, List<ProductType> types, Double minPrice,
+            Double maxPrice, Boolean onlyInStock, long[] priceBoundsCents) {
+        BitSet categoryMask = categoryMask(categories);
+        BitSet typeMask = typeMask(types);
+        BitSet stockMask = Boolean.TRUE.equals(onlyInStock) ? inStock : null;
+        BitSet priceMask = priceMask(candidates, minPrice, maxPrice);
+
+        FacetCounts counts = new FacetCounts(priceBoundsCents.length + 1);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            boolean c = categoryMask == null || categoryMask.get(i);
+            boolean t = typeMask == null || typeMask.get(i);
+            boolean s = stockMask == null || stockMask.get(i);
+            boolean p = priceMask == null || priceMask.get(i);
+
+            if (t && s && p && products[i].getCategoryId() != null) {
+                counts.categories.merge(products[i].getCategoryId(), 1, Integer::sum);
+            }
+            if (c && s && p && typeOrdinals[i] >= 0) {
+                counts.types[typeOrdinals[i]]++;
+            }
+            if (c && t && p) {
+                if (inStock.get(i)) {
+                    counts.inStock++;
+                } else {
+                    counts.outOfStock++;
+                }
+            }
+            if (c && t && s) {
+                counts.priceBuckets[bucketOf(priceCents[i], priceBoundsCents)]++;
+            }
+            if (c && t && s && p) {
+                counts.total++;
+            }
+        }
+        return counts;
+    }
+
+    private BitSet categoryMask(List<Long> categories) {
+        if (categories == null || categories.isEmpty()) {
+            return null;
+        }
+        BitSet any = new BitSet(products.length);
+        for (Long categoryId : categories) {
+            any.or(ofCategory(categoryId));
+        }
+        return any;
+    }
+
+    private BitSet typeMask(List<ProductType> types) {
+        if (types == null || types.isEmpty()) {
+            return null;
+        }
+        BitSet any = new BitSet(products.length);
+        for (ProductType type : types) {
+            any.or(ofType(type));
+        }
+        return any;
+    }
+
+    // Sólo evalúa el precio de las posiciones candidatas; null si no hay rango
+    private BitSet priceMask(BitSet candidates, Double minPrice, Double maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return null;
+        }
+        long min = minPrice != null ? toCents(BigDecimal.valueOf(minPrice), RoundingMode.CEILING) : Long.MIN_VALUE;
+        long max = maxPrice != null ? toCents(BigDecimal.valueOf(maxPrice), RoundingMode.FLOOR) : Long.MAX_VALUE;
+        BitSet mask = new BitSet(products.length);
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (priceCents[i] >= min && priceCents[i] <= max) {
+                mask.set(i);
+            }
+        }
+        return mask;
+    }
+
+    // Índice del rango [bounds[k-1], bounds[k]) que contiene el precio
+    private static int bucketOf(long cents, long[] boundsCents) {
+        int pos = Arrays.binarySearch(boundsCents, cents);
+        return pos >= 0 ? pos + 1 : -pos - 1;
+    }
+
+    // Recorre el orden solicitado y devuelve la ventana [offset, offset + limit) de las posiciones marcadas
+    List<ProductResponseDTO> page(BitSet selected, String sort, int offset, int limit) {
+        return collect(selected, sort, 0, offset, limit);
+    }
+
+    /**
+     * Ventana de hasta limit posiciones marcadas que siguen estrictamente a la clave del
+     * cursor en el orden solicitado. El punto de partida se busca por bisección sobre el
+     * orden precalculado, con los mismos criterios y desempates que al ordenar.
+     */
+    List<ProductResponseDTO> pageAfter(BitSet selected, String sort, ProductCursor after, int limit) {
+        int[] order = orderFor(sort);
+        IntUnaryOperator compareToCursor = cursorComparator(sort, after);
+        if ("price_desc".equals(sort)) {
+            // Se recorre byPriceAsc al revés: se sigue por lo que queda antes de la clave
+            int firstNotBefore = lowerBound(order, pos -> compareToCursor.applyAsInt(pos) >= 0);
+            return collect(selected, sort, order.length - firstNotBefore, 0, limit);
+        }
+        return collect(selected, sort, lowerBound(order, pos -> compareToCursor.applyAsInt(pos) > 0), 0, limit);
+    }
+
+    // Signo de la posición frente a la clave del cursor, en el sentido ascendente del arreglo de orden
+    private IntUnaryOperator cursorComparator(String sort, ProductCursor after) {
+        long id = after.getId();
+        switch (sort) {
+            case "price_asc":
+            case "price_desc": {
+                long cents = toCents(after.getPrice(), RoundingMode.HALF_UP);
+                return pos -> {
+                    int c = Long.compare(priceCents[pos], cents);
+                    return c != 0 ? c : Long.compare(ids[pos], id);
+                };
+            }
+            case "newest": {
+                long nanos = toNanos(after.getCreatedAt());
+                return pos -> {
+                    int c = Long.compare(nanos, createdAtNanos[pos]);
+                    return c != 0 ? c : Long.compare(id, ids[pos]);
+                };
+            }
+            default: {
+                CollationKey name = nameKey(after.getValue());
+                return pos -> {
+                    int c = nameKeys[pos].compareTo(name);
+                    return c != 0 ? c : Long.compare(ids[pos], id);
+                };
+            }
+        }
+    }
+
+    // Primer índice del orden cuya posición cumple la condición (monótona sobre el orden)
+    private static int lowerBound(int[] order, IntPredicate condition) {
+        int lo = 0;
+        int hi = order.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (condition.test(order[mid])) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    private List<ProductResponseDTO> collect(BitSet selected, String sort, int start, int offset, int limit) {
+        List<ProductResponseDTO> page = new ArrayList<>(Math.min(limit, selected.cardinality()));
+        boolean descending = "price_desc".equals(sort);
+        int[] order = orderFor(sort);
+        int skipped = 0;
+
+        for (int k = start; k < order.length && page.size() < limit; k++) {
+            int pos = order[descending ? order.length - 1 - k : k];
+            if (!selected.get(pos)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            page.add(copyOf(products[pos]));
+        }
+        return page;
+    }
+
+    private int[] orderFor(String sort) {
+        if (sort == null) {
+            return byName;
+        }
+        switch (sort) {
+            case "price_asc":
+            case "price_desc":
+                return byPriceAsc;
+            case "newest":
+                return byNewest;
+            case "name":
+            default:
+                return byName;
+        }
+    }
+
+    private int[] order(IntComparator comparator) {
+        int[] order = IntStream.range(0, products.length).toArray();
+        sort(order, new int[order.length], 0, order.length, comparator);
+        return order;
+    }
+
+    // Merge sort estable sobre int[] para no encajonar cada posición en un Integer
+    private static void sort(int[] a, int[] buffer, int from, int to, IntComparator comparator) {
+        if (to - from < 2) {
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sort(a, buffer, from, mid, comparator);
+        sort(a, buffer, mid, to, comparator);
+        if (comparator.compare(a[mid - 1], a[mid]) <= 0) {
+            return;
+        }
+        System.arraycopy(a, from, buffer, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && comparator.compare(buffer[i], buffer[j]) <= 0)) {
+                a[k] = buffer[i++];
+            } else {
+                a[k] = buffer[j++];
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface IntComparator {
+        int compare(int a, int b);
+    }
+
+    private static ProductResponseDTO copyOf(ProductResponseDTO p) {
+        ProductResponseDTO copy = new ProductResponseDTO();
+        copy.setId(p.getId());
+        copy.setName(p.getName());
+        copy.setDescription(p.getDescription());
+        copy.setPrice(p.getPrice());
+        copy.setStock(p.getStock());
+        copy.setMinStock(p.getMinStock());
+        copy.setStockTier(p.getStockTier());
+        copy.setImageUrl(p.getImageUrl());
+        copy.setHasUploadedImage(p.getHasUploadedImage());
+        copy.setActive(p.getActive());
+        copy.setType(p.getType());
+        copy.setCategoryName(p.getCategoryName());
+        copy.setCategoryId(p.getCategoryId());
+        copy.setCreatedAt(p.getCreatedAt());
+        copy.setUpdatedAt(p.getUpdatedAt());
+        return copy;
+    }
+
+    private static CollationKey nameKey(String name) {
+        return NAME_COLLATOR.getCollationKey(name != null ? name : "");
+    }
+
+    private static long toNanos(LocalDateTime dateTime) {
+        return dateTime != null
+                ? dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + dateTime.getNano()
+                : Long.MIN_VALUE;
+    }
+
+    private static long toCents(BigDecimal amount, RoundingMode rounding) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.movePointRight(2).setScale(0, rounding).longValue();
+    }
+
+    static final class FacetCounts {
+        final Map<Long, Integer> categories = new HashMap<>();
+        final int[] types = new int[ProductType.values().length];
+        final int[] priceBuckets;
+        int inStock;
+        int outOfStock;
+        int total;
+
+        private FacetCounts(int bucketCount) {
+            priceBuckets = new int[bucketCount];
+        }
+    }
+}
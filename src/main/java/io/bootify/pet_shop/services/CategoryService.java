@@ -2,14 +2,23 @@ package io.bootify.pet_shop.services;
 
 import io.bootify.pet_shop.dto.CategoryRequestDTO;
 import io.bootify.pet_shop.dto.CategoryResponseDTO;
+import io.bootify.pet_shop.events.CategoryChangedEvent;
+import io.bootify.pet_shop.events.ProductChangedEvent;
 import io.bootify.pet_shop.models.Category;
 import io.bootify.pet_shop.repositories.CategoryRepository;
 import io.bootify.pet_shop.repositories.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,6 +27,11 @@ public class CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository; // NUEVO
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Listado cacheado; se invalida después del commit de cambios de categorías o de cambios estructurales de productos
+    private volatile List<CategoryResponseDTO> cachedCategories;
+    private final AtomicLong generation = new AtomicLong();
 
     @Transactional
     public CategoryResponseDTO createCategory(CategoryRequestDTO request) {
@@ -30,22 +44,24 @@ public class CategoryService {
         category.setDescription(request.getDescription());
 
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(savedCategory.getId()));
         return convertToDTO(savedCategory);
     }
 
-    @Transactional(readOnly = true)
+    // Sin @Transactional a propósito: con la cache caliente no se pide conexión al pool
     public List<CategoryResponseDTO> getAllCategories() {
-        return categoryRepository.findAll()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        List<CategoryResponseDTO> categories = cachedCategories;
+        if (categories == null) {
+            categories = loadCategories();
+        }
+        return categories;
     }
 
-    @Transactional(readOnly = true)
     public CategoryResponseDTO getCategoryById(Long id) {
-        Category category = categoryRepository.findById(id)
+        return getAllCategories().stream()
+                .filter(category -> category.getId().equals(id))
+                .findFirst()
                 .orElseThrow(() -> new RuntimeException("Categoría no encontrada"));
-        return convertToDTO(category);
     }
 
     @Transactional
@@ -63,6 +79,7 @@ public class CategoryService {
         category.setDescription(request.getDescription());
 
         Category updatedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(updatedCategory.getId()));
         return convertToDTO(updatedCategory);
     }
 
@@ -78,17 +95,63 @@ public class CategoryService {
         }
 
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
+    }
+
+    // Antes que CatalogService suba la versión del catálogo, para que el ETag nuevo nunca vea la cache vieja
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        invalidate();
+    }
+
+    // Sólo altas, activaciones o cambios de categoría alteran los conteos; los movimientos de stock no
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsChanged(ProductChangedEvent event) {
+        if (event.isStructural()) {
+            invalidate();
+        }
+    }
+
+    private synchronized void invalidate() {
+        generation.incrementAndGet();
+        cachedCategories = null;
+    }
+
+    // Dos consultas en total: las categorías y un único conteo agrupado por categoría
+    private List<CategoryResponseDTO> loadCategories() {
+        long loadedGeneration = generation.get();
+
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : productRepository.countGroupedByCategoryId()) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        List<CategoryResponseDTO> categories = categoryRepository.findAll()
+                .stream()
+                .map(category -> convertToDTO(category, counts.getOrDefault(category.getId(), 0L)))
+                .collect(Collectors.toUnmodifiableList());
+
+        // Si hubo una invalidación mientras se cargaba, no se guarda un resultado posiblemente viejo
+        synchronized (this) {
+            if (generation.get() == loadedGeneration) {
+                cachedCategories = categories;
+            }
+        }
+        return categories;
     }
 
     private CategoryResponseDTO convertToDTO(Category category) {
+        return convertToDTO(category, productRepository.countByCategoryId(category.getId()));
+    }
+
+    private CategoryResponseDTO convertToDTO(Category category, Long productCount) {
         CategoryResponseDTO dto = new CategoryResponseDTO();
         dto.setId(category.getId());
         dto.setName(category.getName());
         dto.setDescription(category.getDescription());
         dto.setCreatedAt(category.getCreatedAt());
         dto.setUpdatedAt(category.getUpdatedAt());
-        
-        Long productCount = productRepository.countByCategoryId(category.getId());
         dto.setProductCount(productCount != null ? productCount.intValue() : 0);
         
         return dto;
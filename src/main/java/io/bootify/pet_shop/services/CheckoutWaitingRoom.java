@@ -0,0 +1,141 @@
+package io.bootify.pet_shop.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sala de espera para la creación de pedidos. Limita cuántos checkouts usan conexiones
+ * a la vez (por debajo del tamaño del pool, para que navegar siga funcionando) y hace
+ * esperar al resto en orden de llegada. Si la cola está llena o la espera estimada
+ * supera el presupuesto, rechaza enseguida en lugar de esperar el timeout de Hikari.
+ */
+@Slf4j
+@Component
+public class CheckoutWaitingRoom {
+
+    // Peso de la última muestra en el promedio móvil del tiempo de servicio
+    private static final double EWMA_ALPHA = 0.2;
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitMillis;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private volatile double avgServiceMillis;
+
+    private Timer waitTimer;
+
+    public CheckoutWaitingRoom(MeterRegistry meterRegistry,
+                               @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                               @Value("${app.checkout.admission.max-concurrent:0}") int maxConcurrent,
+                               @Value("${app.checkout.admission.max-queue:50}") int maxQueue,
+                               @Value("${app.checkout.admission.max-wait:PT8S}") Duration maxWait,
+                               @Value("${app.checkout.admission.initial-service-ms:400}") long initialServiceMillis) {
+        this.meterRegistry = meterRegistry;
+        // Por defecto se dejan dos conexiones libres para el resto de la aplicación
+        this.maxConcurrent = maxConcurrent > 0 ? maxConcurrent : Math.max(poolSize - 2, 1);
+        this.maxQueue = Math.max(maxQueue, 0);
+        this.maxWaitMillis = maxWait.toMillis();
+        this.avgServiceMillis = initialServiceMillis;
+        this.permits = new Semaphore(this.maxConcurrent, true);
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("petshop.checkout.queue.depth", waiting, AtomicInteger::get)
+                .description("Checkouts esperando turno")
+                .register(meterRegistry);
+        Gauge.builder("petshop.checkout.in_flight", this, room -> room.maxConcurrent - room.permits.availablePermits())
+                .register(meterRegistry);
+        waitTimer = Timer.builder("petshop.checkout.queue.wait")
+                .description("Tiempo de espera hasta entrar al checkout")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Espera turno para crear un pedido. Devuelve un ticket admitido (hay que llamar a
+     * {@link #leave(Ticket)} al terminar) o uno rechazado con la posición y la espera
+     * estimada para que el cliente reintente más tarde.
+     */
+    public Ticket enter() throws InterruptedException {
+        long start = System.nanoTime();
+        int position = waiting.incrementAndGet();
+        try {
+            // Sin cola y con lugar libre se entra directo (tryAcquire con timeout respeta el orden)
+            if (position > maxQueue && permits.availablePermits() == 0) {
+                return reject("QUEUE_FULL", position);
+            }
+            long estimate = estimateWaitMillis(position);
+            if (estimate > maxWaitMillis) {
+                return reject("WAIT_TOO_LONG", position);
+            }
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                return reject("TIMEOUT", position);
+            }
+        } finally {
+            waiting.decrementAndGet();
+        }
+        long waited = System.nanoTime() - start;
+        waitTimer.record(waited, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("petshop.checkout.admitted").increment();
+        return new Ticket(true, null, position, 0, System.nanoTime(), TimeUnit.NANOSECONDS.toMillis(waited));
+    }
+
+    public void leave(Ticket ticket) {
+        if (!ticket.isAdmitted()) {
+            return;
+        }
+        permits.release();
+        double serviceMillis = (System.nanoTime() - ticket.admittedAtNanos) / 1_000_000.0;
+        avgServiceMillis = avgServiceMillis + EWMA_ALPHA * (serviceMillis - avgServiceMillis);
+    }
+
+    // Con maxConcurrent checkouts en paralelo, quien está en la posición p espera unas p / maxConcurrent rondas
+    private long estimateWaitMillis(int position) {
+        if (permits.availablePermits() > 0 && position <= permits.availablePermits()) {
+            return 0;
+        }
+        long rounds = (position + maxConcurrent - 1) / maxConcurrent;
+        return (long) (rounds * avgServiceMillis);
+    }
+
+    private Ticket reject(String reason, int position) {
+        meterRegistry.counter("petshop.checkout.rejected", "reason", reason).increment();
+        long estimate = Math.max(estimateWaitMillis(position), (long) avgServiceMillis);
+        log.warn("🚦 Checkout rechazado ({}): posición {}, espera estimada {} ms", reason, position, estimate);
+        return new Ticket(false, reason, position, estimate, 0, 0);
+    }
+
+    @Getter
+    public static class Ticket {
+        private final boolean admitted;
+        private final String reason;          // QUEUE_FULL, WAIT_TOO_LONG o TIMEOUT si se rechazó
+        private final int position;           // posición en la cola al llegar
+        private final long estimatedWaitMillis;
+        private final long admittedAtNanos;
+        private final long waitedMillis;
+
+        private Ticket(boolean admitted, String reason, int position, long estimatedWaitMillis,
+                long admittedAtNanos, long waitedMillis) {
+            this.admitted = admitted;
+            this.reason = reason;
+            this.position = position;
+            this.estimatedWaitMillis = estimatedWaitMillis;
+            this.admittedAtNanos = admittedAtNanos;
+            this.waitedMillis = waitedMillis;
+        }
+    }
+}
@@ -1,19 +1,24 @@
 package io.bootify.pet_shop.services;
 
 import io.bootify.pet_shop.dto.*;
+import io.bootify.pet_shop.events.ProductChangedEvent;
 import io.bootify.pet_shop.models.*;
 import io.bootify.pet_shop.repositories.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -29,6 +34,13 @@ public class CustomerOrderService {
     private final AddressRepository addressRepository;
     private final PaymentRepository paymentRepository;
     private final SecurityService securityService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockReservationService stockReservationService;
+    private final OptimisticRetryExecutor optimisticRetry;
+    private final InventoryLedger inventoryLedger;
+    private final FlashSaleService flashSaleService;
+    private final ReplenishmentService replenishmentService;
+    private final CartStore cartStore;
 
     public List<CustomerOrderResponseDTO> getCustomerOrders() {
         User customer = getCurrentCustomer();
@@ -167,6 +179,8 @@ public class CustomerOrderService {
     @Transactional
     public CustomerOrderResponseDTO createOrderFromCart(CreateOrderRequest request) {
         User customer = getCurrentCustomer();
+        // Lo que el carrito tenga sólo en memoria se escribe en esta transacción antes de leerlo
+        CartStore.FlushedCart flushed = cartStore.flush(customer.getEmail());
         Cart cart = getCartWithItems(customer);
 
         if (cart.getItems().isEmpty()) {
@@ -179,6 +193,15 @@ public class CustomerOrderService {
 
         // Validar stock y precios
         validateCartItems(cart);
+        for (CartItem item : cart.getItems()) {
+            // Lo apartado por otros clientes no se puede vender aunque esté en la tabla
+            stockReservationService.assertAvailable(item.getProduct().getId(), item.getProduct().getName(),
+                    customer.getEmail(), item.getQuantity(),
+                    flashSaleService.availableOr(item.getProduct().getId(), item.getProduct().getStock()));
+        }
+
+        // Descontar stock de forma atómica antes de crear nada; falla si otro checkout se adelantó
+        Set<Long> flashProducts = decrementStock(cart);
 
         // Calcular subtotal (solo productos)
         BigDecimal subtotal = calculateCartTotal(cart);
@@ -197,20 +220,26 @@ public class CustomerOrderService {
                 totalAmount);
         Sale savedSale = saleRepository.save(sale);
 
-        // Crear items de la venta y actualizar stock
-        createSaleItems(savedSale, cart);
+        // Crear items de la venta
+        createSaleItems(savedSale, cart, flashProducts);
 
         // Procesar pago (simplificado)
         processPayment(savedSale);
 
         // Vaciar carrito
         clearCart(cart);
+        // Sólo se liberan las reservas de lo comprado; lo agregado durante el checkout las conserva
+        cartStore.clearAfterCommit(flushed, cleared ->
+                cleared.forEach(productId -> stockReservationService.release(productId, customer.getEmail())));
 
         return convertToCustomerOrderDTO(savedSale);
     }
 
-    @Transactional
     public void cancelOrder(Long orderId) {
+        optimisticRetry.run("cancelOrder", () -> applyCancelOrder(orderId));
+    }
+
+    private void applyCancelOrder(Long orderId) {
         User customer = getCurrentCustomer();
         Sale sale = saleRepository.findByIdAndUserId(orderId, customer.getId())
                 .orElseThrow(() -> new RuntimeException("Pedido no encontrado"));
@@ -301,18 +330,58 @@ public class CustomerOrderService {
         return subtotal.multiply(new BigDecimal("0.19"));
     }
 
-    private void createSaleItems(Sale sale, Cart cart) {
+    /**
+     * Un solo batch de UPDATE ... WHERE stock >= cantidad; las entidades Product en memoria
+     * no se tocan. Los productos en venta flash se descuentan de sus contadores en memoria,
+     * sin bloquear la fila. Devuelve los ids descontados por venta flash.
+     */
+    private Set<Long> decrementStock(Cart cart) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        Map<Long, Integer> flashQuantities = new HashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        for (CartItem item : cart.getItems()) {
+            Long productId = item.getProduct().getId();
+            (flashSaleService.isActive(productId) ? flashQuantities : quantities)
+                    .merge(productId, item.getQuantity(), Integer::sum);
+            names.put(productId, item.getProduct().getName());
+        }
+
+        // Primero lo que no toca la base: si falla, el checkout no llega a bloquear filas
+        List<Long> rejected = flashSaleService.acquire(flashQuantities);
+        if (rejected.isEmpty()) {
+            rejected = productRepository.decrementStockIfAvailable(quantities);
+        }
+        if (!rejected.isEmpty()) {
+            throw new RuntimeException("Stock insuficiente para " + rejected.stream()
+                    .map(names::get)
+                    .collect(Collectors.joining(", ")));
+        }
+        return flashQuantities.keySet();
+    }
+
+    private void createSaleItems(Sale sale, Cart cart, Set<Long> flashProducts) {
+        Map<Long, Integer> deltas = new HashMap<>();
+        Map<Long, Integer> sold = new HashMap<>();
         for (CartItem cartItem : cart.getItems()) {
             Product product = cartItem.getProduct();
+            sold.merge(product.getId(), cartItem.getQuantity(), Integer::sum);
 
             // Crear item de venta
             SaleItem saleItem = new SaleItem(sale, product, cartItem.getQuantity(), product.getPrice());
+            if (flashProducts.contains(product.getId())) {
+                // products.stock se descuenta en el próximo volcado de la venta flash
+                saleItem.setStockApplied(false);
+            } else {
+                deltas.merge(product.getId(), -cartItem.getQuantity(), Integer::sum);
+            }
             sale.addItem(saleItem);
             saleItemRepository.save(saleItem);
-
-            // Actualizar stock
-            product.setStock(product.getStock() - cartItem.getQuantity());
-            productRepository.save(product);
+        }
+        // Los productos flash se registran y se refrescan en el catálogo al volcarse
+        inventoryLedger.record(MovementType.SALE, deltas, Map.of(), "Venta", sale.getInvoiceNumber());
+        replenishmentService.recordSalesAfterCommit(sold);
+        if (!deltas.isEmpty()) {
+            eventPublisher.publishEvent(ProductChangedEvent.stock(deltas.keySet()));
         }
     }
 
@@ -338,11 +407,17 @@ public class CustomerOrderService {
     }
 
     private void releaseStock(Sale sale) {
+        Map<Long, Integer> quantities = new HashMap<>();
         for (SaleItem item : sale.getItems()) {
-            Product product = item.getProduct();
-            product.setStock(product.getStock() + item.getQuantity());
-            productRepository.save(product);
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
         }
+        productRepository.incrementStock(quantities);
+        inventoryLedger.record(MovementType.CANCELLATION, quantities, Map.of(), "Pedido cancelado por el cliente",
+                sale.getInvoiceNumber());
+        flashSaleService.applyAdjustments(quantities);
+        eventPublisher.publishEvent(ProductChangedEvent.stock(sale.getItems().stream()
+                .map(item -> item.getProduct().getId())
+                .collect(Collectors.toSet())));
     }
 
     private BigDecimal calculateCartTotal(Cart cart) {
@@ -0,0 +1,338 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.dto.FlashSaleStatusDTO;
+import io.bootify.pet_shop.events.ProductChangedEvent;
+import io.bootify.pet_shop.models.MovementType;
+import io.bootify.pet_shop.models.Product;
+import io.bootify.pet_shop.repositories.ProductRepository;
+import io.bootify.pet_shop.util.StripedStockCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Modo venta flash por producto. Mientras está activo, el checkout descuenta el stock
+ * de un contador en memoria repartido en celdas (sin bloquear la fila de products) y
+ * deja los sale_items con stock_applied = false. Un proceso periódico vuelca esas
+ * unidades a products.stock en una sola sentencia. Como los pendientes viven en la
+ * tabla de pedidos, un reinicio no pierde descuentos: al arrancar se vuelcan y los
+ * contadores se vuelven a sembrar desde products.stock.
+ * Los contadores son locales a esta instancia; el modo supone una sola instancia.
+ */
+@Slf4j
+@Service
+@Lazy(false)
+public class FlashSaleService {
+
+    private final ProductRepository productRepository;
+    private final InventoryLedger inventoryLedger;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final int shards;
+    private final long drainTimeoutMillis;
+
+    private final Map<Long, StripedStockCounter> counters = new ConcurrentHashMap<>();
+    // Hay ventas confirmadas sin volcar; evita consultar la base cada segundo sin ventas flash
+    private final AtomicBoolean pendingWrites = new AtomicBoolean();
+    // Checkouts que tomaron unidades de un contador y todavía no terminaron su transacción
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Activar y desactivar se serializan entre sí; los checkouts no lo usan
+    private final Object modeLock = new Object();
+
+    public FlashSaleService(ProductRepository productRepository,
+                            InventoryLedger inventoryLedger,
+                            ApplicationEventPublisher eventPublisher,
+                            MeterRegistry meterRegistry,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.flash-sale.shards:0}") int shards,
+                            @Value("${app.flash-sale.drain-timeout:PT5S}") Duration drainTimeout) {
+        this.productRepository = productRepository;
+        this.inventoryLedger = inventoryLedger;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shards = shards > 0 ? shards : Runtime.getRuntime().availableProcessors() * 2;
+        this.drainTimeoutMillis = drainTimeout.toMillis();
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("petshop.flash_sale.products", counters, Map::size)
+                .description("Productos en modo venta flash")
+                .register(meterRegistry);
+    }
+
+    // Recuperación tras un reinicio: primero se vuelca lo pendiente y luego se siembran los contadores
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        flushPending();
+        List<Product> flashProducts = productRepository.findByFlashSaleTrue();
+        for (Product product : flashProducts) {
+            counters.put(product.getId(), new StripedStockCounter(shards, product.getStock()));
+        }
+        if (!flashProducts.isEmpty()) {
+            log.info("⚡ Venta flash restaurada para {} productos", flashProducts.size());
+        }
+    }
+
+    public boolean isActive(Long productId) {
+        return counters.containsKey(productId);
+    }
+
+    // Stock disponible según el contador, o el valor dado si el producto no está en venta flash
+    public int availableOr(Long productId, int fallback) {
+        StripedStockCounter counter = counters.get(productId);
+        return counter != null ? (int) counter.available() : fallback;
+    }
+
+    /**
+     * Descuenta las cantidades de los contadores sin tocar la base de datos. Si alguna
+     * no alcanza no descuenta nada y devuelve los ids rechazados. Si la transacción en
+     * curso se revierte, las unidades vuelven a los contadores.
+     */
+    public List<Long> acquire(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+        // Se cuenta antes de buscar los contadores: al desactivar, quitar el contador y
+        // esperar a que esto llegue a cero garantiza que nadie quedó descontando de él
+        inFlight.incrementAndGet();
+        boolean completionPending = false;
+        try {
+            List<Long> rejected = new ArrayList<>();
+            Map<StripedStockCounter, Integer> acquired = new HashMap<>();
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                StripedStockCounter counter = counters.get(entry.getKey());
+                if (counter != null && counter.tryAcquire(entry.getValue())) {
+                    acquired.merge(counter, entry.getValue(), Integer::sum);
+                } else {
+                    rejected.add(entry.getKey());
+                }
+            }
+            if (!rejected.isEmpty()) {
+                acquired.forEach(StripedStockCounter::release);
+                return rejected;
+            }
+            meterRegistry.counter("petshop.flash_sale.units_acquired").increment(
+                    acquired.values().stream().mapToInt(Integer::intValue).sum());
+            completionPending = true;
+            afterCompletion(committed -> {
+                if (committed) {
+                    pendingWrites.set(true);
+                } else {
+                    acquired.forEach(StripedStockCounter::release);
+                }
+                inFlight.decrementAndGet();
+            });
+            return rejected;
+        } finally {
+            if (!completionPending) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Refleja en los contadores un cambio de stock hecho directamente en products
+     * (ajustes y cancelaciones). Los descuentos se toman del contador en el momento y
+     * fallan si la venta flash ya vendió esas unidades, aunque products.stock todavía no
+     * lo muestre; si la transacción se revierte vuelven al contador. Las sumas se
+     * aplican una vez confirmada.
+     */
+    public void applyAdjustments(Map<Long, Integer> deltas) {
+        if (counters.isEmpty()) {
+            return;
+        }
+        Map<StripedStockCounter, Integer> taken = new HashMap<>();
+        Map<Long, Integer> added = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+            StripedStockCounter counter = counters.get(entry.getKey());
+            Integer delta = entry.getValue();
+            if (counter == null || delta == null || delta == 0) {
+                continue;
+            }
+            if (delta > 0) {
+                added.put(entry.getKey(), delta);
+            } else if (counter.tryAcquire(-delta)) {
+                taken.merge(counter, -delta, Integer::sum);
+            } else {
+                taken.forEach(StripedStockCounter::release);
+                throw new RuntimeException("Stock insuficiente para el producto " + entry.getKey()
+                        + ": la venta flash ya vendió esas unidades. Disponible: " + counter.available());
+            }
+        }
+        if (taken.isEmpty() && added.isEmpty()) {
+            return;
+        }
+        afterCompletion(committed -> {
+            if (!committed) {
+                taken.forEach(StripedStockCounter::release);
+                return;
+            }
+            added.forEach((productId, delta) -> {
+                StripedStockCounter counter = counters.get(productId);
+                if (counter != null) {
+                    counter.adjust(delta);
+                }
+            });
+        });
+    }
+
+    public FlashSaleStatusDTO enable(Long productId) {
+        synchronized (modeLock) {
+            StripedStockCounter existing = counters.get(productId);
+            if (existing != null) {
+                return new FlashSaleStatusDTO(productId, existing.available(), existing.shards());
+            }
+            flushPending();
+            return transactionTemplate.execute(status -> {
+                // El bloqueo hace esperar a los checkouts por base de datos; al liberarse, el
+                // UPDATE condicional los rechaza porque flash_sale ya es true
+                Integer stock = productRepository.lockStock(List.of(productId)).get(productId);
+                if (stock == null) {
+                    throw new RuntimeException("Producto no encontrado");
+                }
+                productRepository.setFlashSale(productId, true);
+                StripedStockCounter counter = new StripedStockCounter(shards, stock);
+                counters.put(productId, counter);
+                afterCompletion(committed -> {
+                    if (!committed) {
+                        counters.remove(productId, counter);
+                    }
+                });
+                eventPublisher.publishEvent(ProductChangedEvent.stock(List.of(productId)));
+                log.info("⚡ Venta flash activada para producto {} con {} unidades en {} celdas",
+                        productId, stock, counter.shards());
+                return new FlashSaleStatusDTO(productId, counter.available(), counter.shards());
+            });
+        }
+    }
+
+    /**
+     * Vuelve el producto al descuento por base de datos. Primero se quita el contador (los
+     * checkouts flash nuevos se rechazan) y se espera a los que ya descontaron; después,
+     * con la fila bloqueada, se vuelca lo pendiente y se apaga el flag en la misma
+     * transacción, así ningún checkout por base ve un stock que todavía no restó la venta flash.
+     */
+    public void disable(Long productId) {
+        synchronized (modeLock) {
+            StripedStockCounter counter = counters.remove(productId);
+            try {
+                awaitInFlight();
+                Map<Long, Integer> applied = transactionTemplate.execute(status -> {
+                    if (productRepository.lockStock(List.of(productId)).isEmpty()) {
+                        throw new RuntimeException("Producto no encontrado");
+                    }
+                    Map<Long, Integer> units = applyPending();
+                    productRepository.setFlashSale(productId, false);
+                    eventPublisher.publishEvent(ProductChangedEvent.stock(List.of(productId)));
+                    return units;
+                });
+                recordFlushed(applied);
+            } catch (RuntimeException e) {
+                if (counter != null) {
+                    counters.putIfAbsent(productId, counter);
+                }
+                throw e;
+            }
+        }
+        log.info("⚡ Venta flash desactivada para producto {}", productId);
+    }
+
+    public List<FlashSaleStatusDTO> getStatus() {
+        return counters.entrySet().stream()
+                .map(e -> new FlashSaleStatusDTO(e.getKey(), e.getValue().available(), e.getValue().shards()))
+                .sorted(Comparator.comparing(FlashSaleStatusDTO::getProductId))
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${app.flash-sale.flush-interval-ms:1000}")
+    public void flush() {
+        if (pendingWrites.getAndSet(false)) {
+            flushPending();
+        }
+    }
+
+    // Un solo UPDATE por volcado, sin importar cuántos pedidos se acumularon
+    private void flushPending() {
+        try {
+            recordFlushed(transactionTemplate.execute(status -> applyPending()));
+        } catch (RuntimeException e) {
+            // Los sale_items siguen pendientes; se reintenta en el próximo ciclo
+            pendingWrites.set(true);
+            log.warn("⚠️ No se pudo volcar la venta flash: {}", e.getMessage());
+        }
+    }
+
+    // Debe correr dentro de una transacción
+    private Map<Long, Integer> applyPending() {
+        Map<Long, Integer> units = productRepository.applyPendingSaleItems();
+        if (!units.isEmpty()) {
+            Map<Long, Integer> deltas = new HashMap<>();
+            units.forEach((productId, quantity) -> deltas.put(productId, -quantity));
+            inventoryLedger.record(MovementType.SALE, deltas, Map.of(), "Venta flash", null);
+            eventPublisher.publishEvent(ProductChangedEvent.stock(units.keySet()));
+        }
+        return units;
+    }
+
+    private void recordFlushed(Map<Long, Integer> applied) {
+        if (applied != null && !applied.isEmpty()) {
+            meterRegistry.counter("petshop.flash_sale.units_flushed").increment(
+                    applied.values().stream().mapToInt(Integer::intValue).sum());
+            log.debug("⚡ Volcadas ventas flash de {} productos", applied.size());
+        }
+    }
+
+    private void awaitInFlight() {
+        long deadline = System.currentTimeMillis() + drainTimeoutMillis;
+        while (inFlight.get() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new RuntimeException("Hay checkouts de venta flash en curso; intente de nuevo");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrumpido esperando los checkouts de venta flash", e);
+            }
+        }
+    }
+
+    private static void afterCompletion(Consumer<Boolean> callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+}
@@ -0,0 +1,164 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.config.JwtProperties;
+import io.bootify.pet_shop.dto.CartResponseDTO;
+import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.util.GuestCartCodec;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Carrito de los visitantes anónimos. Vive sólo en una cookie firmada, así que no hay
+ * fila en la base ni reservas de stock; los productos se validan contra el snapshot del
+ * catálogo. Al iniciar sesión el contenido se suma al carrito del cliente.
+ */
+@Slf4j
+@Service
+public class GuestCartService {
+
+    public static final String COOKIE_NAME = "guest_cart";
+
+    private final CartService cartService;
+    private final CatalogService catalogService;
+    private final GuestCartCodec codec;
+    private final Duration maxAge;
+
+    public GuestCartService(CartService cartService,
+                            CatalogService catalogService,
+                            JwtProperties jwtProperties,
+                            @Value("${app.cart.guest.secret:}") String secret,
+                            @Value("${app.cart.guest.max-age:P30D}") Duration maxAge) {
+        this.cartService = cartService;
+        this.catalogService = catalogService;
+        // Sin secreto propio se deriva uno del de los JWT
+        this.codec = secret.isBlank()
+                ? GuestCartCodec.derivedFrom(jwtProperties.getSecret(), COOKIE_NAME)
+                : new GuestCartCodec(secret.getBytes(StandardCharsets.UTF_8));
+        this.maxAge = maxAge;
+    }
+
+    public CartResponseDTO getCart(HttpServletRequest request) {
+        return toDTO(read(request));
+    }
+
+    public CartResponseDTO addToCart(HttpServletRequest request, HttpServletResponse response,
+                                     Long productId, Integer quantity) {
+        Map<Long, Integer> items = new LinkedHashMap<>(read(request));
+        ProductResponseDTO product = CartService.getAvailableProduct(catalogService.current(), productId);
+        CartService.validateQuantity(quantity, product.getStock());
+
+        int newQuantity = items.getOrDefault(productId, 0) + quantity;
+        CartService.validateQuantity(newQuantity, Math.min(product.getStock(), GuestCartCodec.MAX_QUANTITY));
+        if (!items.containsKey(productId) && items.size() >= GuestCartCodec.MAX_ITEMS) {
+            throw new RuntimeException("El carrito admite hasta " + GuestCartCodec.MAX_ITEMS + " productos");
+        }
+        items.put(productId, newQuantity);
+
+        write(request, response, items);
+        return toDTO(items);
+    }
+
+    public CartResponseDTO updateCartItem(HttpServletRequest request, HttpServletResponse response,
+                                          Long productId, Integer quantity) {
+        if (quantity <= 0) {
+            return removeFromCart(request, response, productId);
+        }
+        Map<Long, Integer> items = new LinkedHashMap<>(read(request));
+        if (!items.containsKey(productId)) {
+            throw new RuntimeException("Producto no encontrado en el carrito");
+        }
+        ProductResponseDTO product = CartService.getAvailableProduct(catalogService.current(), productId);
+        CartService.validateQuantity(quantity, Math.min(product.getStock(), GuestCartCodec.MAX_QUANTITY));
+        items.put(productId, quantity);
+
+        write(request, response, items);
+        return toDTO(items);
+    }
+
+    public CartResponseDTO removeFromCart(HttpServletRequest request, HttpServletResponse response, Long productId) {
+        Map<Long, Integer> items = new LinkedHashMap<>(read(request));
+        if (items.remove(productId) == null) {
+            throw new RuntimeException("Producto no encontrado en el carrito");
+        }
+
+        write(request, response, items);
+        return toDTO(items);
+    }
+
+    public void clearCart(HttpServletRequest request, HttpServletResponse response) {
+        clear(request, response);
+    }
+
+    /**
+     * Suma el carrito de la cookie al del cliente que acaba de iniciar sesión y borra la
+     * cookie. Si la suma falla el carrito de visitante se pierde, pero el login sigue.
+     */
+    public void mergeIntoCustomerCart(HttpServletRequest request, HttpServletResponse response, String email) {
+        if (readCookie(request) == null) {
+            return;
+        }
+        try {
+            cartService.mergeGuestCart(email, read(request));
+        } catch (RuntimeException e) {
+            log.warn("⚠️ No se pudo recuperar el carrito de visitante de {}: {}", email, e.getMessage());
+        } finally {
+            clear(request, response);
+        }
+    }
+
+    private Map<Long, Integer> read(HttpServletRequest request) {
+        return codec.decode(readCookie(request));
+    }
+
+    private static String readCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, Map<Long, Integer> items) {
+        if (items.isEmpty()) {
+            clear(request, response);
+            return;
+        }
+        addCookie(request, response, codec.encode(items), maxAge);
+    }
+
+    private void clear(HttpServletRequest request, HttpServletResponse response) {
+        addCookie(request, response, "", Duration.ZERO);
+    }
+
+    private static void addCookie(HttpServletRequest request, HttpServletResponse response, String value,
+                                  Duration maxAge) {
+        ResponseCookie cookie = ResponseCookie.from(COOKIE_NAME, value)
+                .httpOnly(true)
+                .secure(request.isSecure())
+                .sameSite("Lax")
+                .path("/")
+                .maxAge(maxAge)
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    private CartResponseDTO toDTO(Map<Long, Integer> items) {
+        return cartService.convertToDTO(null, null, null, items, Map.of());
+    }
+}
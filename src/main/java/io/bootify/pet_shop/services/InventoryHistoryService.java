@@ -0,0 +1,277 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.dto.InventoryMovementDTO;
+import io.bootify.pet_shop.dto.InventoryReconciliationDTO;
+import io.bootify.pet_shop.dto.StockAtDTO;
+import io.bootify.pet_shop.models.InventoryMovement;
+import io.bootify.pet_shop.repositories.InventoryMovementRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Consultas sobre el libro de inventario. Cada cierto tiempo se guarda un snapshot por
+ * producto con el stock acumulado hasta su último movimiento, de modo que "stock a la
+ * fecha T" sólo suma los movimientos posteriores al snapshot. La conciliación compara
+ * snapshot + movimientos contra products.stock por rangos de ids en paralelo.
+ */
+@Slf4j
+@Service
+@Lazy(false)
+public class InventoryHistoryService {
+
+    private static final String PREVIOUS_WATERMARK_SQL =
+            "SELECT COALESCE(MAX(last_movement_id), 0) FROM inventory_snapshots";
+
+    /*
+     * Hasta qué id están todos los movimientos confirmados o descartados. Se avanza por ids
+     * consecutivos desde la marca anterior; un hueco es un id tomado por una transacción aún
+     * abierta o revertida, y sólo se salta cuando el movimiento siguiente ya tiene más de
+     * snapshotLag de antigüedad. Parámetros: marca anterior (dos veces), corte, marca anterior (dos veces).
+     */
+    private static final String WATERMARK_SQL =
+            "SELECT COALESCE((SELECT MIN(t.prev_id) FROM (SELECT id, created_at, "
+                    + "LAG(id, 1, CAST(? AS BIGINT)) OVER (ORDER BY id) AS prev_id "
+                    + "FROM inventory_movements WHERE id > ?) t "
+                    + "WHERE t.id <> t.prev_id + 1 AND t.created_at >= ?), "
+                    + "(SELECT MAX(id) FROM inventory_movements WHERE id > ?), ?)";
+
+    // Productos que aún no tienen snapshot: su stock actual menos lo confirmado después de la marca
+    private static final String BASELINE_SNAPSHOT_SQL =
+            "INSERT INTO inventory_snapshots (product_id, stock, last_movement_id, taken_at) "
+                    + "SELECT p.id, p.stock - COALESCE((SELECT SUM(m.quantity_delta) FROM inventory_movements m "
+                    + "WHERE m.product_id = p.id AND m.id > ?), 0), ?, ? FROM products p "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM inventory_snapshots s WHERE s.product_id = p.id)";
+
+    // Nuevo snapshot sólo para productos con movimientos entre su snapshot anterior y la marca
+    private static final String INCREMENTAL_SNAPSHOT_SQL =
+            "INSERT INTO inventory_snapshots (product_id, stock, last_movement_id, taken_at) "
+                    + "SELECT s.product_id, s.stock + SUM(m.quantity_delta), ?, ? "
+                    + "FROM (SELECT DISTINCT ON (product_id) product_id, stock, last_movement_id "
+                    + "FROM inventory_snapshots ORDER BY product_id, taken_at DESC, id DESC) s "
+                    + "JOIN inventory_movements m ON m.product_id = s.product_id "
+                    + "AND m.id > s.last_movement_id AND m.id <= ? "
+                    + "GROUP BY s.product_id, s.stock";
+
+    private static final String STOCK_AT_SQL =
+            "SELECT s.stock + COALESCE(SUM(m.quantity_delta), 0), COUNT(m.id) "
+                    + "FROM (SELECT stock, last_movement_id FROM inventory_snapshots "
+                    + "WHERE product_id = ? AND taken_at <= ? ORDER BY taken_at DESC, id DESC LIMIT 1) s "
+                    + "LEFT JOIN inventory_movements m ON m.product_id = ? "
+                    + "AND m.id > s.last_movement_id AND m.created_at <= ? "
+                    + "GROUP BY s.stock";
+
+    // Sin snapshot previo sólo se puede reconstruir si el producto nació con el libro (INITIAL)
+    private static final String STOCK_AT_FROM_ORIGIN_SQL =
+            "SELECT SUM(quantity_delta), COUNT(*) FROM inventory_movements "
+                    + "WHERE product_id = ? AND created_at <= ? "
+                    + "HAVING BOOL_OR(type = 'INITIAL')";
+
+    private static final String RECONCILE_CHUNK_SQL =
+            "SELECT p.id, p.name, p.stock, COALESCE(s.stock, 0) + COALESCE(SUM(m.quantity_delta), 0) "
+                    + "FROM products p "
+                    + "LEFT JOIN LATERAL (SELECT stock, last_movement_id FROM inventory_snapshots "
+                    + "WHERE product_id = p.id ORDER BY taken_at DESC, id DESC LIMIT 1) s ON TRUE "
+                    + "LEFT JOIN inventory_movements m ON m.product_id = p.id "
+                    + "AND m.id > COALESCE(s.last_movement_id, 0) "
+                    + "WHERE p.id BETWEEN ? AND ? "
+                    + "GROUP BY p.id, p.name, p.stock, s.stock "
+                    + "HAVING p.stock <> COALESCE(s.stock, 0) + COALESCE(SUM(m.quantity_delta), 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryMovementRepository movementRepository;
+    private final MeterRegistry meterRegistry;
+    private final Duration snapshotLag;
+    private final int chunkSize;
+    private final ExecutorService reconcileExecutor;
+
+    private final AtomicInteger lastDiscrepancies = new AtomicInteger();
+
+    public InventoryHistoryService(JdbcTemplate jdbcTemplate,
+                                   InventoryMovementRepository movementRepository,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.inventory.snapshot.lag:PT5M}") Duration snapshotLag,
+                                   @Value("${app.inventory.reconcile.chunk-size:500}") int chunkSize,
+                                   @Value("${app.inventory.reconcile.parallelism:2}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.movementRepository = movementRepository;
+        this.meterRegistry = meterRegistry;
+        this.snapshotLag = snapshotLag;
+        this.chunkSize = Math.max(chunkSize, 1);
+        // Pocos hilos: cada tramo ocupa una conexión y el pool de Hikari es chico
+        this.reconcileExecutor = Executors.newFixedThreadPool(Math.max(parallelism, 1));
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("petshop.inventory.reconcile.discrepancies", lastDiscrepancies, AtomicInteger::get)
+                .description("Productos cuyo stock no coincide con el libro en la última conciliación")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        reconcileExecutor.shutdownNow();
+    }
+
+    public List<InventoryMovementDTO> getMovements(Long productId, int page, int size) {
+        int pageSize = Math.min(Math.max(size, 1), 200);
+        return movementRepository.findByProductIdOrderByIdDesc(productId, PageRequest.of(Math.max(page, 0), pageSize))
+                .stream()
+                .map(InventoryHistoryService::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    public StockAtDTO getStockAt(Long productId, LocalDateTime at) {
+        Timestamp time = Timestamp.valueOf(at);
+        List<StockAtDTO> fromSnapshot = jdbcTemplate.query(STOCK_AT_SQL,
+                (rs, i) -> new StockAtDTO(productId, at, rs.getInt(1), rs.getInt(2)),
+                productId, time, productId, time);
+        if (!fromSnapshot.isEmpty()) {
+            return fromSnapshot.get(0);
+        }
+        List<StockAtDTO> fromOrigin = jdbcTemplate.query(STOCK_AT_FROM_ORIGIN_SQL,
+                (rs, i) -> new StockAtDTO(productId, at, rs.getInt(1), rs.getInt(2)),
+                productId, time);
+        if (fromOrigin.isEmpty()) {
+            throw new RuntimeException("No hay historial de inventario para el producto en esa fecha");
+        }
+        return fromOrigin.get(0);
+    }
+
+    /**
+     * Los snapshots iniciales y los incrementales se consolidan hasta la misma marca: los ids
+     * se asignan al insertar y no al confirmar, y así un movimiento de una transacción aún
+     * abierta no queda salteado para siempre.
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.snapshot.interval-ms:3600000}",
+            initialDelayString = "${app.inventory.snapshot.initial-delay-ms:120000}")
+    public void takeSnapshots() {
+        LocalDateTime now = LocalDateTime.now();
+        long watermark = committedWatermark(now);
+        int baseline = takeBaselineSnapshots(now, watermark);
+        int incremental = jdbcTemplate.update(INCREMENTAL_SNAPSHOT_SQL, watermark, Timestamp.valueOf(now), watermark);
+        if (baseline > 0 || incremental > 0) {
+            log.info("📸 Snapshots de inventario: {} iniciales, {} incrementales (hasta el movimiento {})",
+                    baseline, incremental, watermark);
+        }
+    }
+
+    private long committedWatermark(LocalDateTime now) {
+        long previous = jdbcTemplate.queryForObject(PREVIOUS_WATERMARK_SQL, Long.class);
+        Timestamp cutoff = Timestamp.valueOf(now.minus(snapshotLag));
+        return jdbcTemplate.queryForObject(WATERMARK_SQL, Long.class, previous, previous, cutoff, previous, previous);
+    }
+
+    private int takeBaselineSnapshots(LocalDateTime now, long watermark) {
+        return jdbcTemplate.update(BASELINE_SNAPSHOT_SQL, watermark, watermark, Timestamp.valueOf(now));
+    }
+
+    @Scheduled(cron = "${app.inventory.reconcile.cron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    public InventoryReconciliationDTO reconcile() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+        // Los productos sin snapshot se toman tal cual están para no reportarlos como descuadre
+        takeBaselineSnapshots(startedAt, committedWatermark(startedAt));
+
+        List<InventoryReconciliationDTO.Discrepancy> discrepancies = new ArrayList<>();
+        List<Future<List<InventoryReconciliationDTO.Discrepancy>>> chunks = new ArrayList<>();
+        jdbcTemplate.query("SELECT MIN(id), MAX(id) FROM products", rs -> {
+            long min = rs.getLong(1);
+            if (rs.wasNull()) {
+                return;
+            }
+            long max = rs.getLong(2);
+            for (long from = min; from <= max; from += chunkSize) {
+                long fromId = from;
+                long toId = Math.min(from + chunkSize - 1, max);
+                chunks.add(reconcileExecutor.submit(() -> reconcileChunk(fromId, toId)));
+            }
+        });
+
+        try {
+            for (Future<List<InventoryReconciliationDTO.Discrepancy>> chunk : chunks) {
+                discrepancies.addAll(chunk.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            chunks.forEach(chunk -> chunk.cancel(true));
+            throw new RuntimeException("Conciliación de inventario interrumpida");
+        } catch (ExecutionException e) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            throw new RuntimeException("Error en la conciliación de inventario: " + e.getCause().getMessage());
+        }
+        discrepancies.sort(Comparator.comparing(InventoryReconciliationDTO.Discrepancy::getProductId));
+
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("petshop.inventory.reconcile.duration").register(meterRegistry)
+                .record(Duration.ofNanos(elapsed));
+        lastDiscrepancies.set(discrepancies.size());
+
+        InventoryReconciliationDTO result = new InventoryReconciliationDTO();
+        result.setStartedAt(startedAt);
+        result.setDurationMs(elapsed / 1_000_000);
+        result.setChunks(chunks.size());
+        result.setDiscrepancyCount(discrepancies.size());
+        result.setDiscrepancies(discrepancies);
+
+        if (discrepancies.isEmpty()) {
+            log.info("✅ Conciliación de inventario sin diferencias ({} tramos, {} ms)",
+                    chunks.size(), result.getDurationMs());
+        } else {
+            log.warn("⚠️ Conciliación de inventario: {} productos con diferencias ({} tramos, {} ms)",
+                    discrepancies.size(), chunks.size(), result.getDurationMs());
+        }
+        return result;
+    }
+
+    // Una sola consulta por tramo: el snapshot de la sentencia ve stock y movimientos de forma consistente
+    private List<InventoryReconciliationDTO.Discrepancy> reconcileChunk(long fromId, long toId) {
+        return jdbcTemplate.query(RECONCILE_CHUNK_SQL, (rs, i) -> {
+            int recorded = rs.getInt(3);
+            int ledger = rs.getInt(4);
+            return new InventoryReconciliationDTO.Discrepancy(rs.getLong(1), rs.getString(2), recorded, ledger,
+                    recorded - ledger);
+        }, fromId, toId);
+    }
+
+    private static InventoryMovementDTO convertToDTO(InventoryMovement movement) {
+        InventoryMovementDTO dto = new InventoryMovementDTO();
+        dto.setId(movement.getId());
+        dto.setProductId(movement.getProductId());
+        dto.setType(movement.getType().name());
+        dto.setQuantityDelta(movement.getQuantityDelta());
+        dto.setStockAfter(movement.getStockAfter());
+        dto.setReason(movement.getReason());
+        dto.setReference(movement.getReference());
+        dto.setCreatedBy(movement.getCreatedBy());
+        dto.setCreatedAt(movement.getCreatedAt());
+        return dto;
+    }
+}
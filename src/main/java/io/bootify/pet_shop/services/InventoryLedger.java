@@ -0,0 +1,72 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.models.MovementType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Registra los movimientos de inventario en la misma transacción que modifica
+ * products.stock, así el libro y el stock se confirman (o se deshacen) juntos.
+ * Todas las filas de una operación se insertan en un único batch.
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryLedger {
+
+    private static final String INSERT_MOVEMENT_SQL =
+            "INSERT INTO inventory_movements (product_id, type, quantity_delta, stock_after, reason, reference, "
+                    + "created_by, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int MAX_REASON_LENGTH = 255;
+    private static final int MAX_REFERENCE_LENGTH = 100;
+    private static final int MAX_ACTOR_LENGTH = 150;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void record(Long productId, MovementType type, int delta, Integer stockAfter, String reason,
+            String reference) {
+        record(type, Map.of(productId, delta), stockAfter != null ? Map.of(productId, stockAfter) : Map.of(),
+                reason, reference);
+    }
+
+    // deltas: productId -> variación (positiva si entra stock); stockAfter es opcional por producto
+    public void record(MovementType type, Map<Long, Integer> deltas, Map<Long, Integer> stockAfter, String reason,
+            String reference) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String actor = currentActor();
+        String trimmedReason = truncate(reason, MAX_REASON_LENGTH);
+        String trimmedReference = truncate(reference, MAX_REFERENCE_LENGTH);
+
+        List<Object[]> batch = new ArrayList<>(deltas.size());
+        for (Map.Entry<Long, Integer> entry : new TreeMap<>(deltas).entrySet()) {
+            batch.add(new Object[] { entry.getKey(), type.name(), entry.getValue(), stockAfter.get(entry.getKey()),
+                    trimmedReason, trimmedReference, actor, now });
+        }
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT_SQL, batch);
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? truncate(authentication.getName(), MAX_ACTOR_LENGTH) : "system";
+    }
+
+    private static String truncate(String value, int max) {
+        if (value == null || value.length() <= max) {
+            return value;
+        }
+        return value.substring(0, max);
+    }
+}
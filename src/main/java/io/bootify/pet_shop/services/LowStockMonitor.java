@@ -0,0 +1,178 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.events.CatalogUpdatedEvent;
+import io.bootify.pet_shop.events.LowStockAlertEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conjunto en memoria de productos activos con stock en o por debajo del mínimo.
+ * Se mantiene con los {@link CatalogUpdatedEvent} que siguen a cada cambio de stock
+ * (checkout, ajustes, cancelaciones), así que consultarlo no toca la base de datos.
+ * Cada vez que un producto empeora de nivel se publica un {@link LowStockAlertEvent};
+ * si vuelve a caer al mismo nivel dentro del debounce no se repite la alerta.
+ */
+@Slf4j
+@Service
+@Lazy(false)
+public class LowStockMonitor {
+
+    private enum Level { OK, LOW, OUT }
+
+    private record Alert(Level level, long at) {
+    }
+
+    private final CatalogService catalogService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final long debounceMillis;
+
+    private final Map<Long, ProductResponseDTO> lowStock = new ConcurrentHashMap<>();
+    private final Map<Long, Level> levels = new ConcurrentHashMap<>();
+    private final Map<Long, Alert> lastAlerts = new ConcurrentHashMap<>();
+    private volatile boolean seeded;
+
+    public LowStockMonitor(CatalogService catalogService,
+                           ApplicationEventPublisher eventPublisher,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.stock.low-alert.debounce:PT30M}") Duration debounce) {
+        this.catalogService = catalogService;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.debounceMillis = debounce.toMillis();
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("petshop.stock.low.products", lowStock, Map::size)
+                .description("Productos activos con stock en o por debajo del mínimo")
+                .register(meterRegistry);
+    }
+
+    // Sin snapshot del catálogo no llegan eventos de cambios: se carga al arrancar
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOnStartup() {
+        ensureSeeded();
+    }
+
+    @EventListener
+    public void onCatalogUpdated(CatalogUpdatedEvent event) {
+        if (event.isFullReload()) {
+            // Carga completa: se reconstruye el estado sin alertar por lo que ya estaba bajo
+            synchronized (this) {
+                lowStock.clear();
+                levels.clear();
+                event.getChangedProducts().forEach(product -> apply(product, false));
+                seeded = true;
+            }
+            log.info("📉 Productos con stock bajo: {}", lowStock.size());
+            return;
+        }
+        if (!seeded) {
+            return;
+        }
+        synchronized (this) {
+            event.getChangedProducts().forEach(product -> apply(product, true));
+            event.getRemovedProductIds().forEach(productId -> {
+                levels.remove(productId);
+                lowStock.remove(productId);
+            });
+        }
+    }
+
+    public List<ProductResponseDTO> getLowStockProducts() {
+        ensureSeeded();
+        return lowStock.values().stream()
+                .sorted(Comparator.comparing((ProductResponseDTO p) -> p.getStock() > 0)
+                        .thenComparing(ProductResponseDTO::getStock)
+                        .thenComparing(ProductResponseDTO::getName, Comparator.nullsLast(String::compareTo)))
+                .toList();
+    }
+
+    // Productos con stock en o por debajo del mínimo que todavía tienen unidades
+    public long countLowStock() {
+        ensureSeeded();
+        return levels.values().stream().filter(level -> level == Level.LOW).count();
+    }
+
+    public long countOutOfStock() {
+        ensureSeeded();
+        return levels.values().stream().filter(level -> level == Level.OUT).count();
+    }
+
+    private void ensureSeeded() {
+        if (!seeded) {
+            // current() carga el snapshot si hace falta y eso publica la carga completa
+            catalogService.current();
+            if (!seeded) {
+                synchronized (this) {
+                    if (!seeded) {
+                        catalogService.current().all().forEach(product -> apply(product, false));
+                        seeded = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private void apply(ProductResponseDTO product, boolean alert) {
+        Level level = levelOf(product);
+        Level previous = level == Level.OK ? levels.remove(product.getId()) : levels.put(product.getId(), level);
+        if (level == Level.OK) {
+            lowStock.remove(product.getId());
+            return;
+        }
+        lowStock.put(product.getId(), product);
+
+        boolean worsened = previous == null || level.compareTo(previous) > 0;
+        if (alert && worsened) {
+            maybeAlert(product, level);
+        }
+    }
+
+    private void maybeAlert(ProductResponseDTO product, Level level) {
+        long now = System.currentTimeMillis();
+        Alert last = lastAlerts.get(product.getId());
+        // Un producto que oscila alrededor del mínimo (ventas y reposiciones) avisa una sola vez
+        if (last != null && last.level().compareTo(level) >= 0 && now - last.at() < debounceMillis) {
+            return;
+        }
+        lastAlerts.put(product.getId(), new Alert(level, now));
+        meterRegistry.counter("petshop.stock.low.alerts", "level", level.name()).increment();
+
+        boolean outOfStock = level == Level.OUT;
+        log.warn("⚠️ {} producto {} ({}): stock {} / mínimo {}", outOfStock ? "Se agotó" : "Stock bajo en",
+                product.getId(), product.getName(), product.getStock(), product.getMinStock());
+        eventPublisher.publishEvent(new LowStockAlertEvent(product.getId(), product.getName(),
+                product.getStock(), minStockOf(product), outOfStock));
+    }
+
+    private static Level levelOf(ProductResponseDTO product) {
+        if (!Boolean.TRUE.equals(product.getActive()) || product.getStock() == null) {
+            return Level.OK;
+        }
+        if (product.getStock() <= 0) {
+            return Level.OUT;
+        }
+        return product.getStock() <= minStockOf(product) ? Level.LOW : Level.OK;
+    }
+
+    private static int minStockOf(ProductResponseDTO product) {
+        return product.getMinStock() != null ? product.getMinStock() : 5;
+    }
+}
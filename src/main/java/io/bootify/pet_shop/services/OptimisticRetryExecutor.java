@@ -0,0 +1,93 @@
+package io.bootify.pet_shop.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta una operación en su propia transacción y la reintenta si al confirmar
+ * choca con otra escritura sobre la misma fila (@Version). Entre intentos espera
+ * un backoff exponencial con jitter para que los competidores no vuelvan a chocar.
+ */
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.retry.optimistic.max-attempts:4}") int maxAttempts,
+                                   @Value("${app.retry.optimistic.base-backoff-ms:20}") long baseBackoffMs) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.baseBackoffMs = baseBackoffMs;
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        // Dentro de una transacción ajena no se puede reintentar: el conflicto sube al llamador
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                String entity = entityOf(e);
+                meterRegistry.counter("petshop.optimistic_lock.conflicts",
+                        "entity", entity, "operation", operation).increment();
+
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("petshop.optimistic_lock.exhausted",
+                            "entity", entity, "operation", operation).increment();
+                    log.warn("⚠️ {}: conflicto de concurrencia en {} tras {} intentos", operation, entity, attempt);
+                    throw new RuntimeException("El registro fue modificado por otro usuario, intenta de nuevo");
+                }
+                log.info("🔁 {}: conflicto de concurrencia en {}, reintento {}/{}", operation, entity,
+                        attempt + 1, maxAttempts);
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void run(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void backoff(int attempt) {
+        long ceiling = baseBackoffMs << Math.min(attempt - 1, 10);
+        long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Operación interrumpida", e);
+        }
+    }
+
+    private static String entityOf(OptimisticLockingFailureException e) {
+        if (e instanceof ObjectOptimisticLockingFailureException objectFailure
+                && objectFailure.getPersistentClassName() != null) {
+            String name = objectFailure.getPersistentClassName();
+            return name.substring(name.lastIndexOf('.') + 1);
+        }
+        return "unknown";
+    }
+}
@@ -0,0 +1,211 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.events.CatalogUpdatedEvent;
+import io.bootify.pet_shop.util.SpanishTextAnalyzer;
+import io.bootify.pet_shop.util.SymSpellDictionary;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria sobre nombre, descripción y categoría de los productos
+ * activos, con ranking BM25 y corrección de errores de tipeo (distancia de edición
+ * hasta 2). Se actualiza de forma incremental con cada {@link CatalogUpdatedEvent}.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    // Pesos por campo (BM25F simplificado): el nombre pesa más que la descripción
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final int MAX_EDIT_DISTANCE = 2;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // término -> (productId -> frecuencia ponderada)
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    // productId -> (término -> frecuencia ponderada), para poder desindexar
+    private final Map<Long, Map<String, Float>> documents = new HashMap<>();
+    private final Map<Long, Float> documentLengths = new HashMap<>();
+    private double totalLength;
+
+    // Vocabulario sin stemming para sugerir correcciones
+    private final SymSpellDictionary vocabulary = new SymSpellDictionary(MAX_EDIT_DISTANCE);
+    private final Map<Long, List<String>> documentWords = new HashMap<>();
+
+    @EventListener
+    public void onCatalogUpdated(CatalogUpdatedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.isFullReload()) {
+                postings.clear();
+                documents.clear();
+                documentLengths.clear();
+                totalLength = 0;
+                vocabulary.clear();
+                documentWords.clear();
+            }
+            for (ProductResponseDTO product : event.getChangedProducts()) {
+                remove(product.getId());
+                if (Boolean.TRUE.equals(product.getActive())) {
+                    add(product);
+                }
+            }
+            event.getRemovedProductIds().forEach(this::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (event.isFullReload()) {
+            log.info("🔎 Índice de búsqueda construido: {} productos, {} términos, {} palabras de vocabulario",
+                    documents.size(), postings.size(), vocabulary.size());
+        }
+    }
+
+    /**
+     * Devuelve los ids de productos que contienen al menos un término de la consulta,
+     * ordenados por puntaje BM25 descendente. Las palabras que no existen en el
+     * vocabulario se reemplazan por la corrección más cercana en la misma pasada.
+     */
+    public SearchResult search(String query) {
+        Map<Long, Double> scores = new HashMap<>();
+        String correctedQuery = null;
+
+        lock.readLock().lock();
+        try {
+            List<String> words = SpanishTextAnalyzer.words(query);
+            List<String> terms = new ArrayList<>(words.size());
+            List<String> correctedWords = new ArrayList<>(words.size());
+            boolean corrected = false;
+
+            for (String word : words) {
+                String term = SpanishTextAnalyzer.stem(word);
+                if (!postings.containsKey(term) && !vocabulary.contains(word)) {
+                    String suggestion = vocabulary.lookup(word);
+                    if (suggestion != null) {
+                        word = suggestion;
+                        term = SpanishTextAnalyzer.stem(suggestion);
+                        corrected = true;
+                    }
+                }
+                terms.add(term);
+                correctedWords.add(word);
+            }
+            if (corrected) {
+                correctedQuery = String.join(" ", correctedWords);
+            }
+
+            int n = documents.size();
+            if (n == 0 || terms.isEmpty()) {
+                return new SearchResult(new LinkedHashMap<>(), correctedQuery);
+            }
+            double avgLength = totalLength / n;
+
+            for (String term : terms) {
+                Map<Long, Float> termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                double df = termPostings.size();
+                double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+
+                for (Map.Entry<Long, Float> posting : termPostings.entrySet()) {
+                    double tf = posting.getValue();
+                    double length = documentLengths.get(posting.getKey());
+                    double score = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+                    scores.merge(posting.getKey(), score, Double::sum);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        LinkedHashMap<Long, Double> ranked = new LinkedHashMap<>();
+        scores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(e -> ranked.put(e.getKey(), e.getValue()));
+        return new SearchResult(ranked, correctedQuery);
+    }
+
+    private void add(ProductResponseDTO product) {
+        Map<String, Float> frequencies = new HashMap<>();
+        accumulate(frequencies, product.getName(), NAME_WEIGHT);
+        accumulate(frequencies, product.getCategoryName(), CATEGORY_WEIGHT);
+        accumulate(frequencies, product.getDescription(), DESCRIPTION_WEIGHT);
+        if (frequencies.isEmpty()) {
+            return;
+        }
+
+        float length = 0;
+        for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(product.getId(), entry.getValue());
+            length += entry.getValue();
+        }
+        documents.put(product.getId(), frequencies);
+        documentLengths.put(product.getId(), length);
+        totalLength += length;
+
+        List<String> words = new ArrayList<>();
+        for (String text : new String[] { product.getName(), product.getCategoryName(), product.getDescription() }) {
+            words.addAll(SpanishTextAnalyzer.words(text));
+        }
+        words.forEach(vocabulary::add);
+        documentWords.put(product.getId(), words);
+    }
+
+    private void remove(Long productId) {
+        Map<String, Float> previous = documents.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        for (String term : previous.keySet()) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(productId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        Float length = documentLengths.remove(productId);
+        totalLength -= length != null ? length : 0;
+
+        List<String> words = documentWords.remove(productId);
+        if (words != null) {
+            words.forEach(vocabulary::remove);
+        }
+    }
+
+    private static void accumulate(Map<String, Float> frequencies, String text, float weight) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        for (String term : SpanishTextAnalyzer.terms(text)) {
+            frequencies.merge(term, weight, Float::sum);
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class SearchResult {
+        private final LinkedHashMap<Long, Double> ranked;
+        private final String correctedQuery; // null si no hubo que corregir nada
+    }
+}
@@ -1,33 +1,62 @@
 package io.bootify.pet_shop.services;
 
+import io.bootify.pet_shop.dto.BulkStockUpdateRequestDTO;
+import io.bootify.pet_shop.dto.BulkStockUpdateResponseDTO;
+import io.bootify.pet_shop.dto.CursorPageDTO;
 import io.bootify.pet_shop.dto.ProductRequestDTO;
 import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.dto.ProductStatsDTO;
+import io.bootify.pet_shop.dto.StockTierSummaryDTO;
 import io.bootify.pet_shop.dto.StockUpdateRequestDTO;
+import io.bootify.pet_shop.events.ProductChangedEvent;
 import io.bootify.pet_shop.models.Category;
+import io.bootify.pet_shop.models.MovementType;
 import io.bootify.pet_shop.models.Product;
 import io.bootify.pet_shop.models.ProductType;
+import io.bootify.pet_shop.models.StockTier;
 import io.bootify.pet_shop.models.User;
 import io.bootify.pet_shop.repositories.CategoryRepository;
 import io.bootify.pet_shop.repositories.ProductRepository;
+import io.bootify.pet_shop.repositories.ProductSpecifications;
+import io.bootify.pet_shop.util.ProductCursor;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.Comparator;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
+    private static final int MAX_BULK_STOCK_ROWS = 20_000;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final FileStorageService fileStorageService;
     private final SecurityService securityService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OptimisticRetryExecutor optimisticRetry;
+    private final InventoryLedger inventoryLedger;
+    private final LowStockMonitor lowStockMonitor;
+    private final FlashSaleService flashSaleService;
 
     private User getCurrentUser() {
         return securityService.getCurrentUser();
@@ -58,6 +87,8 @@ public class ProductService {
         product.setActive(true);
 
         Product savedProduct = productRepository.save(product);
+        inventoryLedger.record(savedProduct.getId(), MovementType.INITIAL, savedProduct.getStock(),
+                savedProduct.getStock(), "Alta de producto", null);
 
         if (request.getImageFile() != null && !request.getImageFile().isEmpty()) {
             handleImageUpload(request.getImageFile(), savedProduct);
@@ -67,6 +98,7 @@ public class ProductService {
             savedProduct = productRepository.save(savedProduct);
         }
 
+        eventPublisher.publishEvent(ProductChangedEvent.of(savedProduct.getId()));
         return convertToDTO(savedProduct);
     }
 
@@ -74,7 +106,7 @@ public class ProductService {
     public List<ProductResponseDTO> getAllProducts() {
         return productRepository.findAllWithCategory()
                 .stream()
-                .map(this::convertToDTO)
+                .map(ProductService::convertToDTO)
                 .collect(Collectors.toList());
     }
 
@@ -85,8 +117,12 @@ public class ProductService {
         return convertToDTO(product);
     }
 
-    @Transactional
+    // Se reintenta si el producto cambió (p. ej. una venta descontó stock) entre la lectura y el guardado
     public ProductResponseDTO updateProduct(Long id, ProductRequestDTO request) {
+        return optimisticRetry.execute("updateProduct", () -> applyProductUpdate(id, request));
+    }
+
+    private ProductResponseDTO applyProductUpdate(Long id, ProductRequestDTO request) {
         User currentUser = getCurrentUser();
         Product product = productRepository.findByIdWithCategory(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
@@ -106,9 +142,11 @@ public class ProductService {
         product.setPrice(request.getPrice());
         product.setMinStock(request.getMinStock());
         product.setType(ProductType.valueOf(request.getType()));
+        boolean structural = !Objects.equals(categoryIdOf(product), request.getCategoryId());
         product.setCategory(category);
 
         if (request.getActive() != null) {
+            structural |= !request.getActive().equals(product.getActive());
             product.setActive(request.getActive());
         }
 
@@ -122,14 +160,23 @@ public class ProductService {
         }
 
         Product updatedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(Set.of(updatedProduct.getId()), structural));
         return convertToDTO(updatedProduct);
     }
 
-    @Transactional
+    private static Long categoryIdOf(Product product) {
+        return product.getCategory() != null ? product.getCategory().getId() : null;
+    }
+
     public ProductResponseDTO updateStock(Long id, StockUpdateRequestDTO request) {
+        return optimisticRetry.execute("updateStock", () -> applyStockUpdate(id, request));
+    }
+
+    private ProductResponseDTO applyStockUpdate(Long id, StockUpdateRequestDTO request) {
         User currentUser = getCurrentUser();
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Producto no encontrado"));
+        int previousStock = product.getStock();
 
         switch (request.getOperation().toUpperCase()) {
             case "ADD":
@@ -148,10 +195,178 @@ public class ProductService {
                 throw new RuntimeException("Operación no válida: " + request.getOperation());
         }
 
+        // En venta flash products.stock todavía incluye las ventas sin volcar; lo que queda
+        // de verdad es el contador, y un descuento mayor dejaría la fila negativa al volcar
+        int delta = product.getStock() - previousStock;
+        int available = flashSaleService.availableOr(id, previousStock);
+        if (available + delta < 0) {
+            throw new RuntimeException("Stock insuficiente. Disponible: " + available);
+        }
+
         Product updatedProduct = productRepository.save(product);
+        inventoryLedger.record(updatedProduct.getId(), MovementType.ADJUSTMENT,
+                delta, updatedProduct.getStock(), request.getReason(), null);
+        flashSaleService.applyAdjustments(Map.of(updatedProduct.getId(), delta));
+        eventPublisher.publishEvent(ProductChangedEvent.stock(List.of(updatedProduct.getId())));
         return convertToDTO(updatedProduct);
     }
 
+    /**
+     * Ajuste masivo en una sola transacción: valida todas las filas, bloquea los productos
+     * con una consulta y aplica los ajustes válidos con una única sentencia.
+     */
+    @Transactional
+    public BulkStockUpdateResponseDTO bulkUpdateStock(BulkStockUpdateRequestDTO request) {
+        User currentUser = getCurrentUser();
+        List<BulkStockUpdateRequestDTO.Item> items = expandBulkItems(request);
+        if (items.isEmpty()) {
+            throw new RuntimeException("No se indicaron productos para ajustar");
+        }
+        if (items.size() > MAX_BULK_STOCK_ROWS) {
+            throw new RuntimeException("Máximo " + MAX_BULK_STOCK_ROWS + " productos por ajuste masivo");
+        }
+
+        BulkStockUpdateResponseDTO.Result[] results = new BulkStockUpdateResponseDTO.Result[items.size()];
+        Map<Long, Integer> positions = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            BulkStockUpdateRequestDTO.Item item = items.get(i);
+            String error = validateBulkItem(item);
+            if (error == null && positions.putIfAbsent(item.getProductId(), i) != null) {
+                error = "Producto repetido en la solicitud";
+            }
+            if (error != null) {
+                results[i] = bulkResult(item, null, null, error);
+            }
+        }
+
+        // Las filas quedan bloqueadas hasta el commit, así el stock leído no cambia antes del UPDATE
+        Map<Long, Integer> currentStock = productRepository.lockStock(positions.keySet());
+        List<Integer> valid = new ArrayList<>();
+        for (int pos : positions.values()) {
+            BulkStockUpdateRequestDTO.Item item = items.get(pos);
+            Integer stock = currentStock.get(item.getProductId());
+            if (stock == null) {
+                results[pos] = bulkResult(item, null, null, "Producto no encontrado");
+                continue;
+            }
+            // Igual que en el ajuste individual: en venta flash se valida contra el contador
+            int available = flashSaleService.availableOr(item.getProductId(), stock);
+            if (available + bulkDelta(item, stock) < 0) {
+                results[pos] = bulkResult(item, stock, null, "Stock insuficiente. Disponible: " + available);
+            } else {
+                valid.add(pos);
+            }
+        }
+
+        boolean anyInvalid = valid.size() < items.size();
+        if (request.isAllOrNothing() && anyInvalid) {
+            for (int pos : valid) {
+                BulkStockUpdateRequestDTO.Item item = items.get(pos);
+                results[pos] = bulkResult(item, currentStock.get(item.getProductId()), null,
+                        "No aplicado: la solicitud tiene filas inválidas");
+            }
+            valid.clear();
+        }
+
+        Long[] ids = new Long[valid.size()];
+        String[] operations = new String[valid.size()];
+        Integer[] quantities = new Integer[valid.size()];
+        for (int k = 0; k < valid.size(); k++) {
+            BulkStockUpdateRequestDTO.Item item = items.get(valid.get(k));
+            ids[k] = item.getProductId();
+            operations[k] = item.getOperation();
+            quantities[k] = item.getQuantity();
+        }
+        Map<Long, Integer> newStock = productRepository.applyStockAdjustments(ids, operations, quantities);
+
+        for (int pos : valid) {
+            BulkStockUpdateRequestDTO.Item item = items.get(pos);
+            Integer updated = newStock.get(item.getProductId());
+            results[pos] = bulkResult(item, currentStock.get(item.getProductId()), updated,
+                    updated != null ? null : "No se pudo aplicar el ajuste");
+        }
+        if (!newStock.isEmpty()) {
+            Map<Long, Integer> deltas = new LinkedHashMap<>();
+            for (Map.Entry<Long, Integer> entry : newStock.entrySet()) {
+                deltas.put(entry.getKey(), entry.getValue() - currentStock.get(entry.getKey()));
+            }
+            inventoryLedger.record(MovementType.BULK_ADJUSTMENT, deltas, newStock, request.getReason(), null);
+            flashSaleService.applyAdjustments(deltas);
+            eventPublisher.publishEvent(ProductChangedEvent.stock(newStock.keySet()));
+        }
+
+        BulkStockUpdateResponseDTO response = new BulkStockUpdateResponseDTO();
+        response.setResults(Arrays.asList(results));
+        response.setRequested(items.size());
+        response.setApplied(newStock.size());
+        response.setFailed(items.size() - newStock.size());
+
+        log.info("📦 SUPER_ADMIN {} aplicó ajuste masivo de stock: {} aplicados, {} rechazados{}",
+                currentUser.getEmail(), response.getApplied(), response.getFailed(),
+                request.getReason() != null ? " (" + request.getReason() + ")" : "");
+        return response;
+    }
+
+    private static int bulkDelta(BulkStockUpdateRequestDTO.Item item, int stock) {
+        return switch (item.getOperation()) {
+            case "ADD" -> item.getQuantity();
+            case "SUBTRACT" -> -item.getQuantity();
+            default -> item.getQuantity() - stock;
+        };
+    }
+
+    // Unifica las dos formas de la solicitud en una lista de ajustes con la operación en mayúsculas
+    private List<BulkStockUpdateRequestDTO.Item> expandBulkItems(BulkStockUpdateRequestDTO request) {
+        List<BulkStockUpdateRequestDTO.Item> items = new ArrayList<>();
+        if (request.getItems() != null) {
+            for (BulkStockUpdateRequestDTO.Item item : request.getItems()) {
+                if (item != null) {
+                    items.add(item);
+                }
+            }
+        }
+        if (request.getProductIds() != null) {
+            for (Long productId : request.getProductIds()) {
+                BulkStockUpdateRequestDTO.Item item = new BulkStockUpdateRequestDTO.Item();
+                item.setProductId(productId);
+                item.setOperation(request.getOperation());
+                item.setQuantity(request.getQuantity());
+                items.add(item);
+            }
+        }
+        for (BulkStockUpdateRequestDTO.Item item : items) {
+            if (item.getOperation() != null) {
+                item.setOperation(item.getOperation().trim().toUpperCase());
+            }
+        }
+        return items;
+    }
+
+    private String validateBulkItem(BulkStockUpdateRequestDTO.Item item) {
+        if (item.getProductId() == null) {
+            return "Falta el producto";
+        }
+        if (item.getQuantity() == null) {
+            return "Falta la cantidad";
+        }
+        String operation = Objects.toString(item.getOperation(), "");
+        switch (operation) {
+            case "ADD":
+            case "SUBTRACT":
+                return item.getQuantity() > 0 ? null : "La cantidad debe ser mayor a 0";
+            case "SET":
+                return item.getQuantity() >= 0 ? null : "El stock no puede ser negativo";
+            default:
+                return "Operación no válida: " + item.getOperation();
+        }
+    }
+
+    private static BulkStockUpdateResponseDTO.Result bulkResult(BulkStockUpdateRequestDTO.Item item,
+            Integer previousStock, Integer newStock, String error) {
+        return new BulkStockUpdateResponseDTO.Result(item.getProductId(), item.getOperation(), item.getQuantity(),
+                previousStock, newStock, error == null, error);
+    }
+
     @Transactional
     public ProductResponseDTO toggleProductStatus(Long id) {
         User currentUser = getCurrentUser();
@@ -160,6 +375,7 @@ public class ProductService {
 
         product.setActive(!product.getActive());
         Product updatedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.of(updatedProduct.getId()));
 
         String status = product.getActive() ? "activado" : "desactivado";
         System.out
@@ -172,7 +388,7 @@ public class ProductService {
     public List<ProductResponseDTO> searchProducts(String keyword) {
         return productRepository.findByNameContainingIgnoreCase(keyword)
                 .stream()
-                .map(this::convertToDTO)
+                .map(ProductService::convertToDTO)
                 .collect(Collectors.toList());
     }
 
@@ -205,15 +421,53 @@ public class ProductService {
         }
     }
 
-    @Transactional(readOnly = true)
+    // Se sirve desde memoria; el monitor se actualiza con cada cambio de stock
     public List<ProductResponseDTO> getLowStockProducts() {
-        return productRepository.findByStockLessThanEqualMinStock()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return lowStockMonitor.getLowStockProducts();
     }
 
-    private ProductResponseDTO convertToDTO(Product product) {
+    // Productos activos por nivel de stock; los niveles sin productos quedan en 0
+    @Transactional(readOnly = true)
+    public Map<StockTier, Long> getStockTierCounts() {
+        Map<StockTier, Long> counts = new EnumMap<>(StockTier.class);
+        for (StockTier tier : StockTier.values()) {
+            counts.put(tier, 0L);
+        }
+        for (Object[] row : productRepository.countActiveGroupedByStockTier()) {
+            if (row != null && row[0] != null) {
+                counts.put((StockTier) row[0], ((Number) row[1]).longValue());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Conteo de todos los niveles más el detalle de los pedidos: dos consultas en total,
+     * sin importar cuántos niveles se listen.
+     */
+    @Transactional(readOnly = true)
+    public StockTierSummaryDTO getStockTierSummary(Collection<StockTier> tiers) {
+        Set<StockTier> requested = tiers.isEmpty() ? EnumSet.noneOf(StockTier.class) : EnumSet.copyOf(tiers);
+        Map<String, List<ProductResponseDTO>> products = new LinkedHashMap<>();
+        for (StockTier tier : requested) {
+            products.put(tier.name(), new ArrayList<>());
+        }
+        if (!requested.isEmpty()) {
+            for (Product product : productRepository.findActiveByStockTierIn(requested)) {
+                products.get(product.getStockTier().name()).add(convertToDTO(product));
+            }
+        }
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        getStockTierCounts().forEach((tier, count) -> counts.put(tier.name(), count));
+
+        StockTierSummaryDTO summary = new StockTierSummaryDTO();
+        summary.setCounts(counts);
+        summary.setProducts(products);
+        return summary;
+    }
+
+    static ProductResponseDTO convertToDTO(Product product) {
         ProductResponseDTO dto = new ProductResponseDTO();
         dto.setId(product.getId());
         dto.setName(product.getName());
@@ -221,6 +475,7 @@ public class ProductService {
         dto.setPrice(product.getPrice());
         dto.setStock(product.getStock());
         dto.setMinStock(product.getMinStock());
+        dto.setStockTier(product.getStockTier() != null ? product.getStockTier().name() : null);
         dto.setImageUrl(product.getDisplayImage());
         dto.setHasUploadedImage(product.getImageFileName() != null);
         dto.setActive(product.getActive());
@@ -240,105 +495,60 @@ public class ProductService {
     }
 
     @Transactional(readOnly = true)
-    public List<ProductResponseDTO> getProductsWithFilters(
-            String search,
-            List<Long> category,
-            List<ProductType> type,
-            Double minPrice,
-            Double maxPrice,
-            Boolean inStock,
-            String sort,
-            int page,
-            int size) {
-
-
-        List<Product> products;
-
-        if (search != null && !search.trim().isEmpty()) {
-            // Si hay búsqueda, usar el método existente
-            products = productRepository.findByNameContainingIgnoreCase(search);
-        } else {
-            // Si no hay búsqueda, obtener todos los productos activos
-            products = productRepository.findByActiveTrue();
-        }
+    public CursorPageDTO<ProductResponseDTO> scrollAllProducts(String search, Long category, Boolean active,
+            List<ProductType> type, Double minPrice, Double maxPrice, Boolean inStock,
+            String sort, String cursor, int size) {
+        // Vista de administración: incluye productos inactivos salvo que se filtre por estado
+        Specification<Product> filters = Specification.allOf(
+                ProductSpecifications.nameContains(search),
+                ProductSpecifications.inCategories(category != null ? List.of(category) : null),
+                ProductSpecifications.activeIs(active),
+                ProductSpecifications.ofTypes(type),
+                ProductSpecifications.priceAtLeast(minPrice),
+                ProductSpecifications.priceAtMost(maxPrice),
+                ProductSpecifications.inStock(inStock));
+        return scroll(filters, sort, cursor, size);
+    }
 
-        // Aplicar filtros básicos
-        List<Product> filteredProducts = products.stream()
-                .filter(product -> {
-                    // Filtro por categoría
-                    if (category != null && !category.isEmpty()) {
-                        if (product.getCategory() == null)
-                            return false;
-                        return category.contains(product.getCategory().getId());
-                    }
-                    return true;
-                })
-                .filter(product -> {
-                    // Filtro por tipo
-                    if (type != null && !type.isEmpty()) {
-                        return type.contains(product.getType());
-                    }
-                    return true;
-                })
-                .filter(product -> {
-                    // Filtro por precio mínimo
-                    if (minPrice != null) {
-                        return product.getPrice().compareTo(BigDecimal.valueOf(minPrice)) >= 0;
-                    }
-                    return true;
-                })
-                .filter(product -> {
-                    // Filtro por precio máximo
-                    if (maxPrice != null) {
-                        return product.getPrice().compareTo(BigDecimal.valueOf(maxPrice)) <= 0;
-                    }
-                    return true;
-                })
-                .filter(product -> {
-                    // Filtro por stock
-                    if (inStock != null && inStock) {
-                        return product.getStock() > 0;
-                    }
-                    return true;
-                })
-                .collect(Collectors.toList());
+    // Totales para las tarjetas del panel en una sola consulta, sin cargar los productos
+    @Transactional(readOnly = true)
+    public ProductStatsDTO getProductStats() {
+        Object[] row = productRepository.summarizeProducts().get(0);
+        ProductStatsDTO stats = new ProductStatsDTO();
+        stats.setTotal(toLong(row[0]));
+        stats.setActive(toLong(row[1]));
+        stats.setLowStock(toLong(row[2]));
+        stats.setOutOfStock(toLong(row[3]));
+        stats.setCategories(toLong(row[4]));
+        return stats;
+    }
 
-        // Aplicar ordenamiento
-        filteredProducts = applySorting(filteredProducts, sort);
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
 
-        // Aplicar paginación (básica)
-        int start = page * size;
-        int end = Math.min(start + size, filteredProducts.size());
+    private CursorPageDTO<ProductResponseDTO> scroll(Specification<Product> filters, String sort,
+            String cursor, int size) {
+        int pageSize = Math.min(Math.max(size, 1), 100);
+        ProductCursor after = cursor != null && !cursor.isBlank() ? ProductCursor.decode(cursor, sort) : null;
 
-        if (start > filteredProducts.size()) {
-            return List.of();
-        }
+        Specification<Product> spec = filters
+                .and(ProductSpecifications.after(after))
+                .and(ProductSpecifications.fetchCategory());
+        Sort order = ProductSpecifications.sortFor(sort);
 
-        return filteredProducts.subList(start, end)
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
-    }
+        // Se pide un elemento extra para saber si hay otra página sin ejecutar COUNT
+        List<Product> rows = productRepository.findBy(spec, q -> q.sortBy(order).limit(pageSize + 1).all());
 
-    private List<Product> applySorting(List<Product> products, String sort) {
-        switch (sort) {
-            case "price_asc":
-                return products.stream()
-                        .sorted(Comparator.comparing(Product::getPrice))
-                        .collect(Collectors.toList());
-            case "price_desc":
-                return products.stream()
-                        .sorted(Comparator.comparing(Product::getPrice).reversed())
-                        .collect(Collectors.toList());
-            case "newest":
-                return products.stream()
-                        .sorted(Comparator.comparing(Product::getCreatedAt).reversed())
-                        .collect(Collectors.toList());
-            case "name":
-            default:
-                return products.stream()
-                        .sorted(Comparator.comparing(Product::getName))
-                        .collect(Collectors.toList());
-        }
+        boolean hasMore = rows.size() > pageSize;
+        List<Product> pageRows = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore
+                ? ProductCursor.after(pageRows.get(pageRows.size() - 1), sort).encode()
+                : null;
+
+        List<ProductResponseDTO> items = pageRows.stream()
+                .map(ProductService::convertToDTO)
+                .collect(Collectors.toList());
+        return new CursorPageDTO<>(items, nextCursor, hasMore, pageSize);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,185 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.dto.ProductSuggestionDTO;
+import io.bootify.pet_shop.events.CatalogUpdatedEvent;
+import io.bootify.pet_shop.repositories.SaleItemRepository;
+import io.bootify.pet_shop.util.CompletionTrie;
+import io.bootify.pet_shop.util.SpanishTextAnalyzer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Autocompletado de productos y categorías. Las sugerencias se ordenan por unidades
+ * vendidas y se sirven desde un árbol radix en memoria, sin consultar la base de
+ * datos por cada tecla.
+ */
+@Slf4j
+@Service
+@Lazy(false)
+@RequiredArgsConstructor
+public class ProductSuggestService {
+
+    private static final int TOP_K = 10;
+
+    private final CatalogService catalogService;
+    private final SaleItemRepository saleItemRepository;
+    private final MeterRegistry meterRegistry;
+
+    private volatile CompletionTrie<ProductSuggestionDTO> trie;
+    private volatile Map<Long, Long> salesByProduct;
+
+    // Sólo los campos que afectan las sugerencias; evita reconstruir por cambios de stock
+    private final Map<Long, String> signatures = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("petshop.suggest.index.bytes", this, s -> s.trie != null ? s.trie.estimatedBytes() : 0)
+                .description("Tamaño estimado del árbol de autocompletado")
+                .register(meterRegistry);
+        Gauge.builder("petshop.suggest.index.nodes", this, s -> s.trie != null ? s.trie.nodeCount() : 0)
+                .register(meterRegistry);
+    }
+
+    public List<ProductSuggestionDTO> suggest(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        return current().complete(prefix, Math.min(Math.max(limit, 1), TOP_K));
+    }
+
+    @EventListener
+    public void onCatalogUpdated(CatalogUpdatedEvent event) {
+        boolean changed = event.isFullReload();
+        for (ProductResponseDTO product : event.getChangedProducts()) {
+            String signature = signatureOf(product);
+            if (!Objects.equals(signatures.put(product.getId(), signature), signature)) {
+                changed = true;
+            }
+        }
+        for (Long removedId : event.getRemovedProductIds()) {
+            if (signatures.remove(removedId) != null) {
+                changed = true;
+            }
+        }
+        if (changed && trie != null) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.suggest.sales-refresh-ms:600000}",
+            initialDelayString = "${app.search.suggest.sales-refresh-ms:600000}")
+    public void refreshSalesVolume() {
+        salesByProduct = loadSalesVolume();
+        if (trie != null) {
+            rebuild();
+        }
+    }
+
+    private CompletionTrie<ProductSuggestionDTO> current() {
+        CompletionTrie<ProductSuggestionDTO> current = trie;
+        if (current == null) {
+            synchronized (this) {
+                current = trie;
+                if (current == null) {
+                    current = rebuild();
+                }
+            }
+        }
+        return current;
+    }
+
+    private synchronized CompletionTrie<ProductSuggestionDTO> rebuild() {
+        Map<Long, Long> sales = salesByProduct;
+        if (sales == null) {
+            sales = loadSalesVolume();
+            salesByProduct = sales;
+        }
+
+        List<ProductResponseDTO> products = catalogService.current().all().stream()
+                .filter(p -> Boolean.TRUE.equals(p.getActive()))
+                .sorted(Comparator.comparing(ProductResponseDTO::getName, Comparator.nullsLast(String::compareTo)))
+                .toList();
+
+        CompletionTrie.Builder<ProductSuggestionDTO> builder = CompletionTrie.builder(TOP_K);
+        Map<Long, Long> categorySales = new HashMap<>();
+        Map<Long, String> categoryNames = new HashMap<>();
+
+        for (ProductResponseDTO product : products) {
+            long volume = sales.getOrDefault(product.getId(), 0L);
+            int entry = builder.addEntry(
+                    new ProductSuggestionDTO("PRODUCT", product.getId(), product.getName(), volume), volume);
+            addWordStartKeys(builder, product.getName(), entry);
+
+            if (product.getCategoryId() != null) {
+                categorySales.merge(product.getCategoryId(), volume, Long::sum);
+                categoryNames.putIfAbsent(product.getCategoryId(), product.getCategoryName());
+            }
+        }
+
+        for (Map.Entry<Long, String> category : categoryNames.entrySet()) {
+            long volume = categorySales.getOrDefault(category.getKey(), 0L);
+            int entry = builder.addEntry(
+                    new ProductSuggestionDTO("CATEGORY", category.getKey(), category.getValue(), volume), volume);
+            addWordStartKeys(builder, category.getValue(), entry);
+        }
+
+        CompletionTrie<ProductSuggestionDTO> built = builder.build();
+        trie = built;
+        log.info("🔤 Índice de autocompletado: {} entradas, {} nodos, ~{} KB",
+                built.size(), built.nodeCount(), built.estimatedBytes() / 1024);
+        return built;
+    }
+
+    private Map<Long, Long> loadSalesVolume() {
+        Map<Long, Long> volume = new HashMap<>();
+        for (Object[] row : saleItemRepository.findTopSellingProducts()) {
+            if (row != null && row.length >= 3 && row[0] != null && row[2] != null) {
+                volume.put(((Number) row[0]).longValue(), ((Number) row[2]).longValue());
+            }
+        }
+        return volume;
+    }
+
+    // "Juguete Interactivo para Gatos" se encuentra escribiendo "jug", "inter" o "gat"
+    private static void addWordStartKeys(CompletionTrie.Builder<ProductSuggestionDTO> builder, String text,
+            int entry) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        builder.addKey(normalized, entry);
+        for (int i = 1; i < normalized.length(); i++) {
+            if (normalized.charAt(i - 1) == ' ') {
+                builder.addKey(normalized.substring(i), entry);
+            }
+        }
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return SpanishTextAnalyzer.fold(text).replaceAll("[^a-z0-9ñ]+", " ").trim();
+    }
+
+    private static String signatureOf(ProductResponseDTO product) {
+        return product.getName() + "|" + product.getActive() + "|" + product.getCategoryId() + "|"
+                + product.getCategoryName();
+    }
+}
@@ -0,0 +1,178 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.dto.ReplenishmentSuggestionDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sugerencias de reposición a partir de la velocidad de venta de cada producto. La
+ * velocidad es un promedio móvil exponencial en el tiempo: cada venta suma
+ * cantidad / τ y lo acumulado decae con e^(-Δt/τ), así que actualizarla cuesta O(1)
+ * por venta y no hace falta volver a agregar el historial. Al arrancar se siembra con
+ * una sola consulta sobre sale_items; después sólo se alimenta desde el checkout.
+ */
+@Slf4j
+@Service
+@Lazy(false)
+public class ReplenishmentService {
+
+    private static final double MILLIS_PER_DAY = Duration.ofDays(1).toMillis();
+
+    // Las ventas más viejas que 8τ aportan menos de un 0,04 % y no se leen al sembrar
+    private static final int SEED_WINDOW_FACTOR = 8;
+
+    private static final String SEED_SQL = """
+            SELECT si.product_id,
+                   SUM(si.quantity * EXP(-EXTRACT(EPOCH FROM (? - si.created_at)) / ?)) AS weighted
+            FROM sale_items si
+            WHERE si.created_at >= ? AND si.created_at < ?
+            GROUP BY si.product_id
+            """;
+
+    /** Tasa en unidades por día, válida en el instante at (epoch millis). */
+    private record Velocity(double rate, long at) {
+
+        Velocity decayedTo(long time, double tauMillis) {
+            if (time <= at) {
+                return this;
+            }
+            return new Velocity(rate * Math.exp(-(time - at) / tauMillis), time);
+        }
+
+        // Como la tasa es una suma de exponenciales, dos estimaciones se combinan sumando
+        Velocity plus(Velocity other, double tauMillis) {
+            long time = Math.max(at, other.at);
+            return new Velocity(decayedTo(time, tauMillis).rate + other.decayedTo(time, tauMillis).rate, time);
+        }
+    }
+
+    private final CatalogService catalogService;
+    private final JdbcTemplate jdbcTemplate;
+    private final double tauMillis;
+    private final double tauDays;
+    private final int leadTimeDays;
+    private final int targetCoverDays;
+
+    private final Map<Long, Velocity> velocities = new ConcurrentHashMap<>();
+
+    public ReplenishmentService(CatalogService catalogService,
+                                JdbcTemplate jdbcTemplate,
+                                @Value("${app.replenishment.time-constant:P14D}") Duration timeConstant,
+                                @Value("${app.replenishment.lead-time-days:7}") int leadTimeDays,
+                                @Value("${app.replenishment.target-cover-days:21}") int targetCoverDays) {
+        this.catalogService = catalogService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.tauMillis = timeConstant.toMillis();
+        this.tauDays = tauMillis / MILLIS_PER_DAY;
+        this.leadTimeDays = leadTimeDays;
+        this.targetCoverDays = targetCoverDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        long now = System.currentTimeMillis();
+        Timestamp cutoff = new Timestamp(now);
+        Timestamp from = new Timestamp(now - (long) (tauMillis * SEED_WINDOW_FACTOR));
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(SEED_SQL, cutoff, tauMillis / 1000, from, cutoff);
+        for (Map<String, Object> row : rows) {
+            Long productId = ((Number) row.get("product_id")).longValue();
+            double weighted = ((Number) row.get("weighted")).doubleValue();
+            // Las ventas registradas mientras corría la consulta ya están en el mapa y se suman
+            velocities.merge(productId, new Velocity(weighted / tauDays, now), (a, b) -> a.plus(b, tauMillis));
+        }
+        log.info("📈 Velocidad de venta sembrada para {} productos", rows.size());
+    }
+
+    /**
+     * Suma las unidades vendidas a la velocidad de cada producto cuando la transacción
+     * del pedido se confirma.
+     */
+    public void recordSalesAfterCommit(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> sold = Map.copyOf(quantities);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recordSales(sold);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recordSales(sold);
+            }
+        });
+    }
+
+    public List<ReplenishmentSuggestionDTO> getSuggestions(boolean onlyNeeded) {
+        long now = System.currentTimeMillis();
+        List<ReplenishmentSuggestionDTO> suggestions = new ArrayList<>();
+        for (ProductResponseDTO product : catalogService.current().all()) {
+            if (!Boolean.TRUE.equals(product.getActive())) {
+                continue;
+            }
+            ReplenishmentSuggestionDTO suggestion = suggest(product, dailyVelocity(product.getId(), now));
+            if (!onlyNeeded || suggestion.isReorderNeeded()) {
+                suggestions.add(suggestion);
+            }
+        }
+        suggestions.sort(Comparator
+                .comparing(ReplenishmentSuggestionDTO::isReorderNeeded).reversed()
+                .thenComparing(ReplenishmentSuggestionDTO::getDaysOfCover, Comparator.nullsLast(Double::compare))
+                .thenComparing(ReplenishmentSuggestionDTO::getProductName, Comparator.nullsLast(String::compareTo)));
+        return suggestions;
+    }
+
+    private void recordSales(Map<Long, Integer> quantities) {
+        long now = System.currentTimeMillis();
+        quantities.forEach((productId, quantity) -> {
+            if (quantity != null && quantity > 0) {
+                Velocity sale = new Velocity(quantity / tauDays, now);
+                velocities.merge(productId, sale, (a, b) -> a.plus(b, tauMillis));
+            }
+        });
+    }
+
+    private double dailyVelocity(Long productId, long now) {
+        Velocity velocity = velocities.get(productId);
+        return velocity != null ? velocity.decayedTo(now, tauMillis).rate() : 0;
+    }
+
+    // El stock mínimo actúa como stock de seguridad sobre el consumo esperado
+    private ReplenishmentSuggestionDTO suggest(ProductResponseDTO product, double velocity) {
+        int stock = product.getStock() != null ? product.getStock() : 0;
+        int minStock = product.getMinStock() != null ? product.getMinStock() : 0;
+        int reorderPoint = (int) Math.ceil(velocity * leadTimeDays) + minStock;
+        int target = (int) Math.ceil(velocity * (leadTimeDays + targetCoverDays)) + minStock;
+        int quantity = stock <= reorderPoint ? Math.max(target - stock, 0) : 0;
+
+        ReplenishmentSuggestionDTO dto = new ReplenishmentSuggestionDTO();
+        dto.setProductId(product.getId());
+        dto.setProductName(product.getName());
+        dto.setCategoryName(product.getCategoryName());
+        dto.setStock(stock);
+        dto.setMinStock(minStock);
+        dto.setDailyVelocity(Math.round(velocity * 100) / 100.0);
+        dto.setDaysOfCover(velocity > 0 ? Math.round(stock / velocity * 10) / 10.0 : null);
+        dto.setReorderPoint(reorderPoint);
+        dto.setReorderNeeded(quantity > 0);
+        dto.setSuggestedQuantity(quantity);
+        return dto;
+    }
+}
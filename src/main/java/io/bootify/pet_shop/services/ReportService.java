@@ -2,6 +2,7 @@ package io.bootify.pet_shop.services;
 
 import io.bootify.pet_shop.models.Role;
 import io.bootify.pet_shop.models.SaleStatus;
+import io.bootify.pet_shop.models.StockTier;
 import io.bootify.pet_shop.repositories.ProductRepository;
 import io.bootify.pet_shop.repositories.SaleItemRepository;
 import io.bootify.pet_shop.repositories.SaleRepository;
@@ -15,6 +16,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +31,8 @@ public class ReportService {
     private final UserRepository userRepository;
     private final SaleRepository saleRepository;
     private final SaleItemRepository saleItemRepository;
+    private final ProductService productService;
+    private final LowStockMonitor lowStockMonitor;
 
     public Map<String, Object> getDashboardStats() {
         Map<String, Object> stats = new HashMap<>();
@@ -39,8 +43,8 @@ public class ReportService {
             // Estadísticas de productos
             stats.put("totalProducts", safeCount(productRepository::count));
             stats.put("activeProducts", safeCount(productRepository::countActiveProducts));
-            stats.put("lowStockProducts", safeCount(productRepository::countLowStockProducts));
-            stats.put("outOfStockProducts", safeCount(productRepository::countOutOfStockProducts));
+            stats.put("lowStockProducts", safeCount(lowStockMonitor::countLowStock));
+            stats.put("outOfStockProducts", safeCount(lowStockMonitor::countOutOfStock));
 
             // Estadísticas de usuarios
             stats.put("totalCustomers", safeCount(() -> userRepository.countByRole(Role.CUSTOMER)));
@@ -128,8 +132,8 @@ public class ReportService {
             report.put("totalProducts", totalProducts);
             report.put("activeProducts", activeProducts);
             report.put("inactiveProducts", totalProducts - activeProducts);
-            report.put("lowStockProducts", safeCount(productRepository::countLowStockProducts));
-            report.put("outOfStockProducts", safeCount(productRepository::countOutOfStockProducts));
+            report.put("lowStockProducts", safeCount(lowStockMonitor::countLowStock));
+            report.put("outOfStockProducts", safeCount(lowStockMonitor::countOutOfStock));
 
         } catch (Exception e) {
             log.error("Error generating inventory report", e);
@@ -157,18 +161,13 @@ public class ReportService {
             // 1. DISTRIBUCIÓN DE STOCK - CORREGIDO
             Map<String, Long> stockDistribution = new HashMap<>();
 
-            // Obtener datos REALES del repositorio
-            Long sinStock = safeCount(productRepository::countOutOfStockProducts);
-            Long stockCritico = safeCount(productRepository::countCriticalStockProducts);
-            Long stockBajo = safeCount(productRepository::countLowStockProducts);
-            Long stockNormal = safeCount(productRepository::countNormalStockProducts);
-            Long stockExcelente = safeCount(productRepository::countExcellentStockProducts);
-
-            stockDistribution.put("Sin Stock", sinStock);
-            stockDistribution.put("Stock Crítico", stockCritico);
-            stockDistribution.put("Stock Bajo", stockBajo);
-            stockDistribution.put("Stock Normal", stockNormal);
-            stockDistribution.put("Stock Excelente", stockExcelente);
+            // Un solo GROUP BY sobre la columna generada; los niveles no se solapan
+            Map<StockTier, Long> stockTiers = stockTierCounts();
+            stockDistribution.put("Sin Stock", stockTiers.get(StockTier.OUT_OF_STOCK));
+            stockDistribution.put("Stock Crítico", stockTiers.get(StockTier.CRITICAL));
+            stockDistribution.put("Stock Bajo", stockTiers.get(StockTier.LOW));
+            stockDistribution.put("Stock Normal", stockTiers.get(StockTier.NORMAL));
+            stockDistribution.put("Stock Excelente", stockTiers.get(StockTier.EXCELLENT));
 
             chartsData.put("stockDistribution", stockDistribution);
 
@@ -317,6 +316,19 @@ public class ReportService {
     }
 
     // Métodos auxiliares para manejo seguro de errores
+    private Map<StockTier, Long> stockTierCounts() {
+        try {
+            return productService.getStockTierCounts();
+        } catch (Exception e) {
+            log.warn("Error counting stock tiers, returning 0", e);
+            Map<StockTier, Long> empty = new EnumMap<>(StockTier.class);
+            for (StockTier tier : StockTier.values()) {
+                empty.put(tier, 0L);
+            }
+            return empty;
+        }
+    }
+
     private Long safeCount(Supplier<Long> supplier) {
         try {
             Long result = supplier.get();
@@ -1,6 +1,7 @@
 package io.bootify.pet_shop.services;
 
 import io.bootify.pet_shop.dto.*;
+import io.bootify.pet_shop.events.ProductChangedEvent;
 import io.bootify.pet_shop.models.*;
 import io.bootify.pet_shop.repositories.SaleRepository;
 import io.bootify.pet_shop.repositories.SaleItemRepository;
@@ -8,6 +9,7 @@ import io.bootify.pet_shop.repositories.PaymentRepository;
 import io.bootify.pet_shop.repositories.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -18,7 +20,9 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -31,6 +35,11 @@ public class SaleService {
     private final PaymentRepository paymentRepository;
     private final ProductRepository productRepository;
     private final SecurityService securityService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OptimisticRetryExecutor optimisticRetry;
+    private final InventoryLedger inventoryLedger;
+    private final LowStockMonitor lowStockMonitor;
+    private final FlashSaleService flashSaleService;
 
     private User getCurrentUser() {
         return securityService.getCurrentUser();
@@ -128,8 +137,11 @@ public class SaleService {
 
     // ========== MÉTODOS DE GESTIÓN ==========
 
-    @Transactional
     public SaleResponseDTO updateSaleStatus(Long id, UpdateSaleStatusRequest request) {
+        return optimisticRetry.execute("updateSaleStatus", () -> applySaleStatus(id, request));
+    }
+
+    private SaleResponseDTO applySaleStatus(Long id, UpdateSaleStatusRequest request) {
         User currentUser = getCurrentUser();
         Sale sale = saleRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Venta no encontrada"));
@@ -156,8 +168,12 @@ public class SaleService {
         return convertToDTO(updatedSale);
     }
 
-    @Transactional
+    // Si otro proceso cambia la venta a la vez, el reintento vuelve a validar el estado y no repone stock dos veces
     public void cancelSale(Long id) {
+        optimisticRetry.run("cancelSale", () -> applyCancelSale(id));
+    }
+
+    private void applyCancelSale(Long id) {
         User currentUser = getCurrentUser();
         Sale sale = saleRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Venta no encontrada"));
@@ -168,6 +184,10 @@ public class SaleService {
             throw new RuntimeException("No se puede cancelar una venta ya entregada");
         }
 
+        if (sale.getStatus() == SaleStatus.CANCELLED) {
+            throw new RuntimeException("La venta ya está cancelada");
+        }
+
         sale.setStatus(SaleStatus.CANCELLED);
         releaseStock(sale);
         saleRepository.save(sale);
@@ -201,7 +221,7 @@ public class SaleService {
         stats.setTodayRevenue(todayRevenue != null ? todayRevenue : BigDecimal.ZERO);
 
         // Productos con stock bajo
-        stats.setLowStockProducts(productRepository.countLowStockProducts());
+        stats.setLowStockProducts(lowStockMonitor.countLowStock());
 
         return stats;
     }
@@ -296,15 +316,20 @@ public class SaleService {
     }
 
     private void releaseStock(Sale sale) {
-        // Liberar stock reservado al cancelar una venta
+        // Liberar stock reservado al cancelar una venta, en un solo batch
+        Map<Long, Integer> quantities = new HashMap<>();
         for (SaleItem item : sale.getItems()) {
-            Product product = item.getProduct();
-            int newStock = product.getStock() + item.getQuantity();
-            product.setStock(newStock);
-            productRepository.save(product);
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
             log.info("🔄 Stock liberado: producto {} +{} unidades",
-                    product.getName(), item.getQuantity());
+                    item.getProduct().getName(), item.getQuantity());
         }
+        productRepository.incrementStock(quantities);
+        inventoryLedger.record(MovementType.CANCELLATION, quantities, Map.of(), "Venta cancelada",
+                sale.getInvoiceNumber());
+        flashSaleService.applyAdjustments(quantities);
+        eventPublisher.publishEvent(ProductChangedEvent.stock(sale.getItems().stream()
+                .map(item -> item.getProduct().getId())
+                .collect(Collectors.toSet())));
         log.info("🔄 Stock liberado para venta cancelada {}", sale.getInvoiceNumber());
     }
 
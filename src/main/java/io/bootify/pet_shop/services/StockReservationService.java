@@ -0,0 +1,173 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.dto.StockAvailabilityDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reservas temporales de stock. Agregar al carrito aparta las unidades por un tiempo
+ * y empezar el checkout extiende el plazo; la disponibilidad que ve un cliente es
+ * stock - lo apartado por los demás. Las reservas viven sólo en memoria: se consultan
+ * sin ir a la base de datos y, si la aplicación se reinicia, simplemente se pierden.
+ */
+@Slf4j
+@Service
+@Lazy(false)
+public class StockReservationService {
+
+    private record Hold(int quantity, long expiresAt) {
+    }
+
+    // productId -> (email del cliente -> reserva); los mapas internos son inmutables y se
+    // reemplazan con compute(), así las lecturas no necesitan lock
+    private final Map<Long, Map<String, Hold>> holdsByProduct = new ConcurrentHashMap<>();
+
+    private final Duration cartTtl;
+    private final Duration checkoutTtl;
+
+    public StockReservationService(@Value("${app.stock.reservation.cart-ttl:PT15M}") Duration cartTtl,
+                                   @Value("${app.stock.reservation.checkout-ttl:PT10M}") Duration checkoutTtl) {
+        this.cartTtl = cartTtl;
+        this.checkoutTtl = checkoutTtl;
+    }
+
+    // Aparta quantity unidades para el cliente (reemplaza su reserva anterior del producto)
+    public void hold(Long productId, String holder, int quantity, int stock) {
+        place(productId, holder, quantity, stock, cartTtl);
+    }
+
+    /**
+     * Aparta varias cantidades (productId -> unidades) a la vez. Si alguna no alcanza, las
+     * reservas del cliente vuelven a como estaban antes de la llamada y se relanza el error.
+     */
+    public void holdAll(String holder, Map<Long, Integer> quantities, Map<Long, Integer> stocks) {
+        Map<Long, Hold> previous = new HashMap<>();
+        try {
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                Long productId = entry.getKey();
+                Map<String, Hold> holds = holdsByProduct.get(productId);
+                previous.put(productId, holds != null ? holds.get(holder) : null);
+                place(productId, holder, entry.getValue(), stocks.get(productId), cartTtl);
+            }
+        } catch (RuntimeException e) {
+            previous.forEach((productId, hold) -> restore(productId, holder, hold));
+            throw e;
+        }
+    }
+
+    // Al iniciar el checkout se renuevan las reservas con el plazo del checkout
+    public void holdForCheckout(Long productId, String holder, int quantity, int stock) {
+        place(productId, holder, quantity, stock, checkoutTtl);
+    }
+
+    public void release(Long productId, String holder) {
+        holdsByProduct.computeIfPresent(productId, (id, holds) -> without(holds, holder));
+    }
+
+    public void releaseAll(String holder) {
+        for (Long productId : holdsByProduct.keySet()) {
+            release(productId, holder);
+        }
+    }
+
+    public int reservedByOthers(Long productId, String holder) {
+        return reserved(holdsByProduct.get(productId), holder, System.currentTimeMillis());
+    }
+
+    public void assertAvailable(Long productId, String productName, String holder, int quantity, int stock) {
+        int available = stock - reservedByOthers(productId, holder);
+        if (quantity > available) {
+            throw new RuntimeException("Stock insuficiente para " + productName +
+                    ". Disponible: " + Math.max(available, 0) + ", Solicitado: " + quantity);
+        }
+    }
+
+    public StockAvailabilityDTO availability(Long productId, String holder, int stock) {
+        int reserved = reservedByOthers(productId, holder);
+        return new StockAvailabilityDTO(productId, stock, reserved, Math.max(stock - reserved, 0));
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.reservation.sweep-interval-ms:60000}")
+    public void releaseExpired() {
+        long now = System.currentTimeMillis();
+        int[] released = new int[1];
+        for (Long productId : holdsByProduct.keySet()) {
+            holdsByProduct.computeIfPresent(productId, (id, holds) -> {
+                Map<String, Hold> alive = new HashMap<>();
+                holds.forEach((holder, hold) -> {
+                    if (hold.expiresAt() > now) {
+                        alive.put(holder, hold);
+                    }
+                });
+                released[0] += holds.size() - alive.size();
+                return alive.isEmpty() ? null : Map.copyOf(alive);
+            });
+        }
+        if (released[0] > 0) {
+            log.info("⏱️ Liberadas {} reservas de stock vencidas", released[0]);
+        }
+    }
+
+    private void place(Long productId, String holder, int quantity, int stock, Duration ttl) {
+        long now = System.currentTimeMillis();
+        holdsByProduct.compute(productId, (id, holds) -> {
+            int available = stock - reserved(holds, holder, now);
+            if (quantity > available) {
+                // La excepción deja el mapa sin cambios
+                throw new RuntimeException("Cantidad solicitada (" + quantity +
+                        ") excede el stock disponible (" + Math.max(available, 0) + ")");
+            }
+            Map<String, Hold> next = holds != null ? new HashMap<>(holds) : new HashMap<>();
+            Hold previous = next.get(holder);
+            long expiresAt = now + ttl.toMillis();
+            if (previous != null && previous.expiresAt() > expiresAt) {
+                expiresAt = previous.expiresAt();
+            }
+            next.put(holder, new Hold(quantity, expiresAt));
+            return Map.copyOf(next);
+        });
+    }
+
+    // Deja la reserva del cliente como estaba, sin validar: ya estaba apartada
+    private void restore(Long productId, String holder, Hold hold) {
+        holdsByProduct.compute(productId, (id, holds) -> {
+            Map<String, Hold> next = holds != null ? new HashMap<>(holds) : new HashMap<>();
+            if (hold != null) {
+                next.put(holder, hold);
+            } else {
+                next.remove(holder);
+            }
+            return next.isEmpty() ? null : Map.copyOf(next);
+        });
+    }
+
+    private static Map<String, Hold> without(Map<String, Hold> holds, String holder) {
+        if (!holds.containsKey(holder)) {
+            return holds;
+        }
+        Map<String, Hold> next = new HashMap<>(holds);
+        next.remove(holder);
+        return next.isEmpty() ? null : Map.copyOf(next);
+    }
+
+    private static int reserved(Map<String, Hold> holds, String excludedHolder, long now) {
+        if (holds == null) {
+            return 0;
+        }
+        int total = 0;
+        for (Map.Entry<String, Hold> entry : holds.entrySet()) {
+            if (!entry.getKey().equals(excludedHolder) && entry.getValue().expiresAt() > now) {
+                total += entry.getValue().quantity();
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,222 @@
+package io.bootify.pet_shop.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Árbol radix inmutable para autocompletado. Cada nodo guarda precalculados los
+ * índices de sus mejores {@code k} entradas por peso, así que una consulta sólo
+ * recorre el prefijo y copia el resultado, sin explorar el subárbol.
+ */
+public final class CompletionTrie<T> {
+
+    private static final int OBJECT_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+
+    private final Node root;
+    private final List<T> entries;
+    private final int nodeCount;
+    private final long estimatedBytes;
+
+    private CompletionTrie(Node root, List<T> entries, int nodeCount, long estimatedBytes) {
+        this.root = root;
+        this.entries = entries;
+        this.nodeCount = nodeCount;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    public List<T> complete(String prefix, int limit) {
+        Node node = root;
+        int offset = 0;
+        while (node != null && offset < prefix.length()) {
+            Node child = node.child(prefix.charAt(offset));
+            if (child == null) {
+                return List.of();
+            }
+            int matched = 0;
+            while (matched < child.label.length && offset < prefix.length()) {
+                if (child.label[matched] != prefix.charAt(offset)) {
+                    return List.of();
+                }
+                matched++;
+                offset++;
+            }
+            node = child;
+        }
+        if (node == null) {
+            return List.of();
+        }
+        int count = Math.min(limit, node.top.length);
+        List<T> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(entries.get(node.top[i]));
+        }
+        return result;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    // Estimación del tamaño del árbol (nodos, etiquetas, hijos y top-k); no incluye las entradas
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    public static <T> Builder<T> builder(int topK) {
+        return new Builder<>(topK);
+    }
+
+    private static final class Node {
+        private final char[] label;
+        private final char[] firstChars;
+        private final Node[] children;
+        private final int[] top;
+
+        private Node(char[] label, char[] firstChars, Node[] children, int[] top) {
+            this.label = label;
+            this.firstChars = firstChars;
+            this.children = children;
+            this.top = top;
+        }
+
+        private Node child(char c) {
+            int pos = Arrays.binarySearch(firstChars, c);
+            return pos >= 0 ? children[pos] : null;
+        }
+    }
+
+    public static final class Builder<T> {
+
+        private final int topK;
+        private final List<T> entries = new ArrayList<>();
+        private final List<Long> weights = new ArrayList<>();
+        private final List<String> keys = new ArrayList<>();
+        private final List<Integer> keyEntries = new ArrayList<>();
+
+        private int nodeCount;
+        private long bytes;
+
+        private Builder(int topK) {
+            this.topK = topK;
+        }
+
+        // Registra una entrada; luego se le asocian una o varias claves
+        public int addEntry(T entry, long weight) {
+            entries.add(entry);
+            weights.add(weight);
+            return entries.size() - 1;
+        }
+
+        public Builder<T> addKey(String key, int entryIndex) {
+            if (key != null && !key.isEmpty()) {
+                keys.add(key);
+                keyEntries.add(entryIndex);
+            }
+            return this;
+        }
+
+        public CompletionTrie<T> build() {
+            long[] weightArray = weights.stream().mapToLong(Long::longValue).toArray();
+            Integer[] order = new Integer[keys.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing(keys::get));
+
+            String[] sortedKeys = new String[order.length];
+            int[] sortedEntries = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedKeys[i] = keys.get(order[i]);
+                sortedEntries[i] = keyEntries.get(order[i]);
+            }
+
+            nodeCount = 0;
+            bytes = 0;
+            Node root = build(sortedKeys, sortedEntries, 0, sortedKeys.length, 0, new char[0], weightArray);
+            return new CompletionTrie<>(root, List.copyOf(entries), nodeCount, bytes);
+        }
+
+        // Construye el nodo para las claves [from, to) que comparten los primeros depth caracteres
+        private Node build(String[] sortedKeys, int[] sortedEntries, int from, int to, int depth, char[] label,
+                long[] weightArray) {
+            List<Node> children = new ArrayList<>();
+            List<Character> firstChars = new ArrayList<>();
+            Set<Integer> terminal = new LinkedHashSet<>();
+
+            int i = from;
+            while (i < to) {
+                if (sortedKeys[i].length() == depth) {
+                    terminal.add(sortedEntries[i]);
+                    i++;
+                    continue;
+                }
+                char c = sortedKeys[i].charAt(depth);
+                int j = i;
+                while (j < to && sortedKeys[j].length() > depth && sortedKeys[j].charAt(depth) == c) {
+                    j++;
+                }
+                // Compresión radix: alargar la etiqueta mientras todas las claves coincidan
+                int end = depth + 1;
+                while (true) {
+                    if (sortedKeys[i].length() <= end || sortedKeys[j - 1].length() <= end) {
+                        break;
+                    }
+                    // Al estar ordenadas, basta comparar la primera y la última clave del grupo
+                    if (sortedKeys[i].charAt(end) != sortedKeys[j - 1].charAt(end)) {
+                        break;
+                    }
+                    end++;
+                }
+                char[] childLabel = sortedKeys[i].substring(depth, end).toCharArray();
+                children.add(build(sortedKeys, sortedEntries, i, j, end, childLabel, weightArray));
+                firstChars.add(c);
+                i = j;
+            }
+
+            int[] top = selectTop(terminal, children, weightArray);
+
+            char[] firstCharArray = new char[firstChars.size()];
+            for (int k = 0; k < firstCharArray.length; k++) {
+                firstCharArray[k] = firstChars.get(k);
+            }
+
+            nodeCount++;
+            bytes += OBJECT_HEADER_BYTES + 4L * REFERENCE_BYTES
+                    + arrayBytes(label.length * 2L)
+                    + arrayBytes(firstCharArray.length * 2L)
+                    + arrayBytes((long) children.size() * REFERENCE_BYTES)
+                    + arrayBytes(top.length * 4L);
+
+            return new Node(label, firstCharArray, children.toArray(new Node[0]), top);
+        }
+
+        private int[] selectTop(Set<Integer> terminal, List<Node> children, long[] weightArray) {
+            Set<Integer> candidates = new LinkedHashSet<>(terminal);
+            for (Node child : children) {
+                for (int entry : child.top) {
+                    candidates.add(entry);
+                }
+            }
+            return candidates.stream()
+                    .sorted(Comparator.<Integer>comparingLong(e -> weightArray[e]).reversed()
+                            .thenComparing(Comparator.naturalOrder()))
+                    .limit(topK)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+
+        private static long arrayBytes(long payload) {
+            long raw = OBJECT_HEADER_BYTES + payload;
+            return (raw + 7) / 8 * 8;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package io.bootify.pet_shop.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Codifica el carrito de un visitante anónimo (productId -> cantidad) en un valor de
+ * cookie compacto y firmado: versión, cantidad de items y, por cada uno, la diferencia
+ * con el id anterior y la cantidad, todo en varint; al final van los primeros bytes de
+ * un HMAC-SHA256 del contenido. Se valida sin consultar la base: si la firma o el
+ * formato no cuadran, el carrito se descarta.
+ */
+public final class GuestCartCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+    private static final int MAC_LENGTH = 12;
+
+    public static final int MAX_ITEMS = 50;
+    public static final int MAX_QUANTITY = 999;
+
+    private final SecretKeySpec key;
+    // Crear e inicializar un Mac cuesta más que firmar la cookie; se reutiliza por hilo
+    private final ThreadLocal<Mac> macs;
+
+    public GuestCartCodec(byte[] secret) {
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> newMac(key));
+    }
+
+    // Deriva una clave propia a partir de otro secreto, para no firmar cookies con la clave de los JWT
+    public static GuestCartCodec derivedFrom(String secret, String label) {
+        return new GuestCartCodec(hmac(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM),
+                label.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public String encode(Map<Long, Integer> items) {
+        if (items.size() > MAX_ITEMS) {
+            throw new IllegalArgumentException("Demasiados productos en el carrito");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2 + items.size() * 4 + MAC_LENGTH);
+        out.write(VERSION);
+        writeVarint(out, items.size());
+        long previous = 0;
+        for (Map.Entry<Long, Integer> item : new TreeMap<>(items).entrySet()) {
+            if (item.getKey() <= previous || item.getValue() < 1 || item.getValue() > MAX_QUANTITY) {
+                throw new IllegalArgumentException("Item de carrito inválido");
+            }
+            writeVarint(out, item.getKey() - previous);
+            writeVarint(out, item.getValue());
+            previous = item.getKey();
+        }
+        byte[] payload = out.toByteArray();
+        out.write(macs.get().doFinal(payload), 0, MAC_LENGTH);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    /** Devuelve los items de la cookie, o un mapa vacío si es inválida o fue alterada. */
+    public Map<Long, Integer> decode(String value) {
+        if (value == null || value.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            byte[] data = Base64.getUrlDecoder().decode(value);
+            if (data.length <= MAC_LENGTH) {
+                return Map.of();
+            }
+            byte[] payload = Arrays.copyOf(data, data.length - MAC_LENGTH);
+            byte[] mac = Arrays.copyOfRange(data, data.length - MAC_LENGTH, data.length);
+            if (!MessageDigest.isEqual(mac, Arrays.copyOf(macs.get().doFinal(payload), MAC_LENGTH))) {
+                return Map.of();
+            }
+            return parse(payload);
+        } catch (IllegalArgumentException e) {
+            return Map.of();
+        }
+    }
+
+    private static Map<Long, Integer> parse(byte[] payload) {
+        int[] position = { 0 };
+        if (payload[position[0]++] != VERSION) {
+            return Map.of();
+        }
+        long count = readVarint(payload, position);
+        if (count > MAX_ITEMS) {
+            return Map.of();
+        }
+        Map<Long, Integer> items = new TreeMap<>();
+        long productId = 0;
+        for (int i = 0; i < count; i++) {
+            productId += readVarint(payload, position);
+            long quantity = readVarint(payload, position);
+            if (quantity < 1 || quantity > MAX_QUANTITY) {
+                return Map.of();
+            }
+            items.put(productId, (int) quantity);
+        }
+        return position[0] == payload.length ? Collections.unmodifiableMap(items) : Map.of();
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] data, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= data.length) {
+                throw new IllegalArgumentException("Varint incompleto");
+            }
+            byte b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint demasiado largo");
+    }
+
+    private static byte[] hmac(SecretKeySpec key, byte[] data) {
+        return newMac(key).doFinal(data);
+    }
+
+    private static Mac newMac(SecretKeySpec key) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 no disponible", e);
+        }
+    }
+}
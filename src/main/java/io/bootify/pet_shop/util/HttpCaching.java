@@ -0,0 +1,33 @@
+package io.bootify.pet_shop.util;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Respuestas para GET condicionales con ETag. El navegador guarda la respuesta
+ * pero revalida siempre; si el ETag no cambió recibe un 304 sin cuerpo.
+ */
+public final class HttpCaching {
+
+    // Privado: las APIs de cliente requieren sesión y no deben quedar en caches compartidos
+    public static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private HttpCaching() {
+    }
+
+    public static <T> ResponseEntity<T> ok(String etag, T body) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body);
+    }
+
+    // Cuerpo JSON ya serializado; se escribe tal cual sin pasar por Jackson
+    public static ResponseEntity<byte[]> okJson(String etag, byte[] json) {
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).contentType(MediaType.APPLICATION_JSON).body(json);
+    }
+
+    // Se repiten ETag y Cache-Control para que el 304 no herede los encabezados no-store por defecto
+    public static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+    }
+}
@@ -0,0 +1,122 @@
+package io.bootify.pet_shop.util;
+
+import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.models.Product;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Cursor opaco para paginación por keyset: guarda el orden activo, el valor de la
+ * columna de orden y el id del último producto entregado. Lo envía el cliente, así que
+ * al decodificarlo se validan los valores tipados y cualquier error es un 400.
+ */
+public final class ProductCursor {
+
+    private final String sort;
+    private final String value;
+    private final Long id;
+    private final BigDecimal price;
+    private final LocalDateTime createdAt;
+
+    private ProductCursor(String sort, String value, Long id) {
+        this.sort = sort;
+        this.value = value;
+        this.id = id;
+        this.price = sort.startsWith("price_") ? new BigDecimal(value) : null;
+        this.createdAt = "newest".equals(sort) ? LocalDateTime.parse(value) : null;
+    }
+
+    public static ProductCursor after(Product product, String sort) {
+        String normalized = normalizeSort(sort);
+        return new ProductCursor(normalized,
+                sortValue(normalized, product.getName(), product.getPrice(), product.getCreatedAt()),
+                product.getId());
+    }
+
+    public static ProductCursor after(ProductResponseDTO product, String sort) {
+        String normalized = normalizeSort(sort);
+        return new ProductCursor(normalized,
+                sortValue(normalized, product.getName(), product.getPrice(), product.getCreatedAt()),
+                product.getId());
+    }
+
+    public static ProductCursor decode(String cursor, String sort) {
+        String cursorSort;
+        ProductCursor decoded;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = raw.indexOf('|');
+            int last = raw.lastIndexOf('|');
+            if (first < 0 || last <= first) {
+                throw new IllegalArgumentException();
+            }
+            cursorSort = raw.substring(0, first);
+            if (!cursorSort.equals(normalizeSort(cursorSort))) {
+                throw new IllegalArgumentException();
+            }
+            long id = Long.parseLong(raw.substring(last + 1));
+            if (id <= 0) {
+                throw new IllegalArgumentException();
+            }
+            // El constructor parsea el precio o la fecha según el orden
+            decoded = new ProductCursor(cursorSort, raw.substring(first + 1, last), id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor inválido");
+        }
+        if (!cursorSort.equals(normalizeSort(sort))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "El cursor no corresponde al orden solicitado");
+        }
+        return decoded;
+    }
+
+    public String encode() {
+        String raw = sort + "|" + value + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String normalizeSort(String sort) {
+        if ("price_asc".equals(sort) || "price_desc".equals(sort) || "newest".equals(sort)) {
+            return sort;
+        }
+        return "name";
+    }
+
+    private static String sortValue(String sort, String name, BigDecimal price, LocalDateTime createdAt) {
+        switch (sort) {
+            case "price_asc":
+            case "price_desc":
+                return price.toPlainString();
+            case "newest":
+                return createdAt.toString();
+            default:
+                return name;
+        }
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    // Nombre del último producto; sólo tiene sentido con el orden por nombre
+    public String getValue() {
+        return value;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
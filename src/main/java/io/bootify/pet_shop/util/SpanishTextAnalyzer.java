@@ -0,0 +1,85 @@
+package io.bootify.pet_shop.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normaliza texto en español para búsqueda: minúsculas, sin tildes,
+ * sin palabras vacías y con un stemming ligero (plurales, género y
+ * sufijos derivativos frecuentes como -ción o -miento).
+ */
+public final class SpanishTextAnalyzer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9ñ]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "sin", "su", "sus", "u", "un", "una", "unos", "unas", "y");
+
+    // Ordenados de mayor a menor longitud para quitar siempre el sufijo más largo
+    private static final String[] DERIVATIONAL_SUFFIXES = {
+            "amientos", "imientos", "aciones", "amiento", "imiento", "idades", "adoras", "adores",
+            "acion", "mente", "ables", "ibles", "istas", "adora", "ador", "idad", "able", "ible",
+            "ista", "osos", "osas", "oso", "osa"
+    };
+
+    private static final String[] INFLECTIONAL_SUFFIXES = { "es", "os", "as", "s", "o", "a", "e" };
+
+    private static final int MIN_STEM_LENGTH = 3;
+
+    private SpanishTextAnalyzer() {
+    }
+
+    // Minúsculas y sin tildes; la ñ se conserva porque cambia el significado
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('ñ', '\u0001');
+        String folded = DIACRITICS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+        return folded.replace('\u0001', 'ñ');
+    }
+
+    // Palabras normalizadas sin stemming (vocabulario visible para el usuario)
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String token : SEPARATORS.split(fold(text))) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                words.add(token);
+            }
+        }
+        return words;
+    }
+
+    // Términos indexables: palabras normalizadas y reducidas a su raíz
+    public static List<String> terms(String text) {
+        List<String> words = words(text);
+        List<String> terms = new ArrayList<>(words.size());
+        for (String word : words) {
+            terms.add(stem(word));
+        }
+        return terms;
+    }
+
+    public static String stem(String word) {
+        if (word.length() <= MIN_STEM_LENGTH || Character.isDigit(word.charAt(0))) {
+            return word;
+        }
+        for (String suffix : DERIVATIONAL_SUFFIXES) {
+            if (word.endsWith(suffix) && word.length() - suffix.length() >= MIN_STEM_LENGTH) {
+                return word.substring(0, word.length() - suffix.length());
+            }
+        }
+        for (String suffix : INFLECTIONAL_SUFFIXES) {
+            if (word.endsWith(suffix) && word.length() - suffix.length() >= MIN_STEM_LENGTH) {
+                return word.substring(0, word.length() - suffix.length());
+            }
+        }
+        return word;
+    }
+}
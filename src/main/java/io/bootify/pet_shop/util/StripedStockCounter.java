@@ -0,0 +1,114 @@
+package io.bootify.pet_shop.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contador de stock repartido en varias celdas para que muchos hilos descuenten sin
+ * competir por la misma variable. A diferencia de LongAdder admite un descuento
+ * condicional: nunca deja el total por debajo de cero. Cada hilo prueba primero una
+ * celda al azar con CAS y, si no alcanza, toma unidades de las demás.
+ */
+public final class StripedStockCounter {
+
+    // Cada celda ocupa su propia línea de caché (8 longs = 64 bytes) para evitar false sharing
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells;
+    private final int shards;
+
+    public StripedStockCounter(int shards, long initial) {
+        int size = Integer.highestOneBit(Math.max(shards, 1));
+        this.shards = size;
+        this.cells = new AtomicLongArray(size * PADDING);
+        long base = Math.max(initial, 0) / size;
+        long remainder = Math.max(initial, 0) % size;
+        for (int i = 0; i < size; i++) {
+            cells.set(i * PADDING, base + (i < remainder ? 1 : 0));
+        }
+    }
+
+    /**
+     * Descuenta quantity unidades si hay suficientes en total. Devuelve false sin
+     * modificar nada si no alcanzan.
+     */
+    public boolean tryAcquire(long quantity) {
+        if (quantity <= 0) {
+            return true;
+        }
+        int start = ThreadLocalRandom.current().nextInt(shards);
+
+        // Camino rápido: una sola celda con unidades suficientes
+        for (int i = 0; i < shards; i++) {
+            int index = ((start + i) & (shards - 1)) * PADDING;
+            long current = cells.get(index);
+            while (current >= quantity) {
+                if (cells.compareAndSet(index, current, current - quantity)) {
+                    return true;
+                }
+                current = cells.get(index);
+            }
+        }
+
+        // Camino lento: juntar unidades de varias celdas y devolverlas si no alcanzan
+        long taken = drain(start, quantity);
+        if (taken < quantity) {
+            release(taken);
+            return false;
+        }
+        return true;
+    }
+
+    // Devuelve unidades (rollback de un checkout, cancelación o reposición)
+    public void release(long quantity) {
+        if (quantity > 0) {
+            int index = ThreadLocalRandom.current().nextInt(shards) * PADDING;
+            cells.addAndGet(index, quantity);
+        }
+    }
+
+    /**
+     * Ajuste administrativo: positivo suma y negativo descuenta. Si no hay unidades
+     * suficientes falla sin modificar nada; recortar en cero dejaría products.stock
+     * negativo al volcar las ventas pendientes.
+     */
+    public void adjust(long delta) {
+        if (delta > 0) {
+            release(delta);
+        } else if (delta < 0 && !tryAcquire(-delta)) {
+            throw new IllegalStateException("Unidades insuficientes en el contador: se pidieron "
+                    + (-delta) + ", hay " + available());
+        }
+    }
+
+    // Suma de las celdas; con escrituras concurrentes es una aproximación momentánea
+    public long available() {
+        long sum = 0;
+        for (int i = 0; i < shards; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    // Toma hasta quantity unidades recorriendo las celdas desde start; devuelve cuántas tomó
+    private long drain(int start, long quantity) {
+        long taken = 0;
+        for (int i = 0; i < shards && taken < quantity; i++) {
+            int index = ((start + i) & (shards - 1)) * PADDING;
+            long current = cells.get(index);
+            while (current > 0) {
+                long take = Math.min(current, quantity - taken);
+                if (cells.compareAndSet(index, current, current - take)) {
+                    taken += take;
+                    break;
+                }
+                current = cells.get(index);
+            }
+        }
+        return taken;
+    }
+
+    public int shards() {
+        return shards;
+    }
+}
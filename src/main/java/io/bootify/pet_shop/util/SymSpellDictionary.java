@@ -0,0 +1,159 @@
+package io.bootify.pet_shop.util;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Diccionario de corrección ortográfica al estilo SymSpell: por cada palabra se
+ * precalculan sus variantes con hasta {@code maxDistance} letras borradas, de modo
+ * que una búsqueda sólo genera los borrados de la consulta y consulta un mapa.
+ * No es thread-safe; el llamador debe sincronizar.
+ */
+public class SymSpellDictionary {
+
+    private static final int PREFIX_LENGTH = 7;
+
+    private final int maxDistance;
+    private final Map<String, Integer> wordCounts = new HashMap<>();
+    private final Map<String, Set<String>> deletes = new HashMap<>();
+
+    public SymSpellDictionary(int maxDistance) {
+        this.maxDistance = maxDistance;
+    }
+
+    public void add(String word) {
+        if (wordCounts.merge(word, 1, Integer::sum) == 1) {
+            for (String variant : variants(word)) {
+                deletes.computeIfAbsent(variant, k -> new HashSet<>()).add(word);
+            }
+        }
+    }
+
+    public void remove(String word) {
+        Integer count = wordCounts.get(word);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            wordCounts.put(word, count - 1);
+            return;
+        }
+        wordCounts.remove(word);
+        for (String variant : variants(word)) {
+            Set<String> words = deletes.get(variant);
+            if (words != null) {
+                words.remove(word);
+                if (words.isEmpty()) {
+                    deletes.remove(variant);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        wordCounts.clear();
+        deletes.clear();
+    }
+
+    public boolean contains(String word) {
+        return wordCounts.containsKey(word);
+    }
+
+    public int size() {
+        return wordCounts.size();
+    }
+
+    /**
+     * Palabra del vocabulario más cercana (menor distancia y, a igual distancia,
+     * la más frecuente), o null si ninguna está a {@code maxDistance} o menos.
+     */
+    public String lookup(String input) {
+        if (wordCounts.containsKey(input)) {
+            return input;
+        }
+        String best = null;
+        int bestDistance = maxDistance + 1;
+        int bestCount = 0;
+
+        Set<String> candidates = new HashSet<>();
+        for (String variant : variants(input)) {
+            if (wordCounts.containsKey(variant)) {
+                candidates.add(variant);
+            }
+            Set<String> words = deletes.get(variant);
+            if (words != null) {
+                candidates.addAll(words);
+            }
+        }
+
+        for (String candidate : candidates) {
+            if (Math.abs(candidate.length() - input.length()) > maxDistance) {
+                continue;
+            }
+            int distance = distance(input, candidate, bestDistance);
+            int count = wordCounts.getOrDefault(candidate, 0);
+            if (distance < bestDistance || (distance == bestDistance && count > bestCount)) {
+                best = candidate;
+                bestDistance = distance;
+                bestCount = count;
+            }
+        }
+        return bestDistance <= maxDistance ? best : null;
+    }
+
+    // Incluye la propia clave: el prefijo y todas sus variantes con hasta maxDistance borrados
+    private Set<String> variants(String word) {
+        String key = word.length() > PREFIX_LENGTH ? word.substring(0, PREFIX_LENGTH) : word;
+        Set<String> result = new HashSet<>();
+        result.add(key);
+        collectDeletes(key, 0, result);
+        return result;
+    }
+
+    private void collectDeletes(String word, int depth, Set<String> result) {
+        if (depth >= maxDistance || word.length() <= 1) {
+            return;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            String deleted = word.substring(0, i) + word.substring(i + 1);
+            if (result.add(deleted)) {
+                collectDeletes(deleted, depth + 1, result);
+            }
+        }
+    }
+
+    // Distancia de Damerau-Levenshtein (alineamiento óptimo); corta al superar el límite
+    private static int distance(String a, String b, int limit) {
+        int n = a.length();
+        int m = b.length();
+        int[] prevPrev = new int[m + 1];
+        int[] prev = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(prev[j] + 1, current[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, prevPrev[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] tmp = prevPrev;
+            prevPrev = prev;
+            prev = current;
+            current = tmp;
+        }
+        return prev[m];
+    }
+}
@@ -1,4 +1,5 @@
 let products = [];
+let nextCursor = null;
 let categories = [];
 let currentProductId = null;
 
@@ -27,6 +28,8 @@ function setupEventListeners() {
     document.getElementById('search-input').addEventListener('input', debounce(filterProducts, ADMIN_CONFIG.DEBOUNCE_DELAY));
     document.getElementById('status-filter').addEventListener('change', filterProducts);
     document.getElementById('category-filter').addEventListener('change', filterProducts);
+    document.getElementById('type-filter').addEventListener('change', filterProducts);
+    document.getElementById('stock-filter').addEventListener('change', filterProducts);
 
     document.addEventListener('keydown', function (e) {
         if (e.ctrlKey && e.key === 'f') {
@@ -40,36 +43,71 @@ function setupEventListeners() {
     });
 }
 
+// Los productos llegan por páginas con los filtros resueltos en el servidor
 async function loadProducts() {
     showLoading(true);
     try {
-        const response = await fetch('/api/super-admin/products', {
-            method: 'GET',
-            headers: getHeaders()
-        });
-
-        if (!response.ok) {
-            const errorText = await response.text();
-            throw new Error(`Error ${response.status}: ${errorText}`);
-        }
-
-        const responseData = await response.json();
-        products = extractArrayFromResponse(responseData);
-
+        const [page] = await Promise.all([fetchProductsPage(null), updateStatistics()]);
+        products = page.items || [];
+        nextCursor = page.hasMore ? page.nextCursor : null;
         displayProducts(products);
-        updateStatistics();
-
     } catch (error) {
         console.error('Error cargando productos:', error);
         showAlert('Error al cargar los productos: ' + error.message, 'danger');
         products = [];
+        nextCursor = null;
         displayProducts(products);
-        updateStatistics();
     } finally {
         showLoading(false);
     }
 }
 
+async function loadMoreProducts() {
+    if (!nextCursor) {
+        return;
+    }
+    const button = document.getElementById('load-more-products');
+    button.disabled = true;
+    try {
+        const page = await fetchProductsPage(nextCursor);
+        const newItems = page.items || [];
+        nextCursor = page.hasMore ? page.nextCursor : null;
+        displayProducts(newItems, products.length);
+        products = products.concat(newItems);
+    } catch (error) {
+        console.error('Error cargando más productos:', error);
+        showAlert('Error al cargar más productos: ' + error.message, 'danger');
+    } finally {
+        button.disabled = false;
+    }
+}
+
+async function fetchProductsPage(cursor) {
+    const params = new URLSearchParams({ size: ADMIN_CONFIG.PRODUCTS_PAGE_SIZE });
+    const search = document.getElementById('search-input').value.trim();
+    const status = document.getElementById('status-filter').value;
+    const category = document.getElementById('category-filter').value;
+    const type = document.getElementById('type-filter').value;
+    const stock = document.getElementById('stock-filter').value;
+    if (search) params.set('search', search);
+    if (status) params.set('active', status === 'active');
+    if (category) params.set('category', category);
+    if (type) params.set('type', type);
+    if (stock === 'in-stock') params.set('inStock', true);
+    if (cursor) params.set('cursor', cursor);
+
+    const response = await fetch(`/api/super-admin/products/scroll?${params}`, {
+        method: 'GET',
+        headers: getHeaders()
+    });
+
+    if (!response.ok) {
+        const errorText = await response.text();
+        throw new Error(`Error ${response.status}: ${errorText}`);
+    }
+    return response.json();
+}
+
 async function loadCategories() {
     try {
         const response = await fetch('/api/super-admin/categories', {
@@ -98,12 +136,28 @@ async function loadCategories() {
     }
 }
 
-function updateStatistics() {
-    const total = products.length;
-    const active = products.filter(p => p.active).length;
-    const lowStock = products.filter(p => p.stock <= p.minStock && p.stock > 0).length;
-    const outOfStock = products.filter(p => p.stock === 0).length;
-    const uniqueCategories = new Set(products.map(p => p.categoryName)).size;
+// Totales de todo el catálogo, no sólo de las páginas cargadas
+async function updateStatistics() {
+    let stats;
+    try {
+        const response = await fetch('/api/super-admin/products/stats', {
+            method: 'GET',
+            headers: getHeaders()
+        });
+        if (!response.ok) {
+            throw new Error(`HTTP error! status: ${response.status}`);
+        }
+        stats = await response.json();
+    } catch (error) {
+        console.error('Error cargando estadísticas:', error);
+        return;
+    }
+
+    const total = stats.total;
+    const active = stats.active;
+    const lowStock = stats.lowStock;
+    const outOfStock = stats.outOfStock;
+    const uniqueCategories = stats.categories;
 
     document.getElementById('total-products').textContent = total.toLocaleString();
     document.getElementById('active-products').textContent = active.toLocaleString();
@@ -118,18 +172,22 @@ function updateStatistics() {
     animateCounter('out-of-stock-products', outOfStock);
 }
 
-function displayProducts(productsToShow) {
+function displayProducts(productsToShow, startIndex = 0) {
     const container = document.getElementById('products-container');
     const countElement = document.getElementById('product-count');
+    const loadMoreButton = document.getElementById('load-more-products');
 
     if (!Array.isArray(productsToShow)) {
         productsToShow = [];
     }
 
-    container.innerHTML = '';
-    countElement.textContent = productsToShow.length.toLocaleString();
+    if (startIndex === 0) {
+        container.innerHTML = '';
+    }
+    countElement.textContent = (startIndex + productsToShow.length).toLocaleString();
+    loadMoreButton.classList.toggle('d-none', !nextCursor);
 
-    if (productsToShow.length === 0) {
+    if (startIndex === 0 && productsToShow.length === 0) {
         container.innerHTML = `
             <div class="empty-products">
                 <i class="fas fa-box-open fa-3x mb-3"></i>
@@ -143,10 +201,8 @@ function displayProducts(productsToShow) {
         return;
     }
 
-    productsToShow.forEach((product, index) => {
-        const productCard = createProductCard(product, index);
-        container.innerHTML += productCard;
-    });
+    const cards = productsToShow.map((product, index) => createProductCard(product, startIndex + index));
+    container.insertAdjacentHTML('beforeend', cards.join(''));
 }
 
 function createProductCard(product, index) {
@@ -476,32 +532,16 @@ async function toggleProductStatus(productId) {
 }
 
 function filterProducts() {
-    const searchTerm = document.getElementById('search-input').value.toLowerCase();
-    const statusFilter = document.getElementById('status-filter').value;
-    const categoryFilter = document.getElementById('category-filter').value;
-
-    let filteredProducts = products.filter(product => {
-        const matchesSearch = product.name.toLowerCase().includes(searchTerm) ||
-            (product.description && product.description.toLowerCase().includes(searchTerm)) ||
-            (product.sku && product.sku.toLowerCase().includes(searchTerm));
-        const matchesStatus = !statusFilter ||
-            (statusFilter === 'active' && product.active) ||
-            (statusFilter === 'inactive' && !product.active);
-        const matchesCategory = !categoryFilter ||
-            (product.categoryName &&
-                categories.find(c => c.id == categoryFilter)?.name === product.categoryName);
-
-        return matchesSearch && matchesStatus && matchesCategory;
-    });
-
-    displayProducts(filteredProducts);
+    loadProducts();
 }
 
 function clearFilters() {
     document.getElementById('search-input').value = '';
     document.getElementById('status-filter').value = '';
     document.getElementById('category-filter').value = '';
-    displayProducts(products);
+    document.getElementById('type-filter').value = '';
+    document.getElementById('stock-filter').value = '';
+    loadProducts();
     showAlert('Filtros limpiados', 'info');
 }
 
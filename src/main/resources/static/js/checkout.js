@@ -161,9 +161,12 @@ class CheckoutManager {
     async loadCheckoutData() {
         try {
 
-            // Cargar carrito
-            const cartResponse = await fetch('/api/customer/cart');
-            if (!cartResponse.ok) throw new Error('Error al cargar el carrito');
+            // Cargar carrito y apartar su stock mientras dura el checkout
+            const cartResponse = await fetch('/api/customer/cart/reserve', { method: 'POST' });
+            if (!cartResponse.ok) {
+                const error = await cartResponse.json().catch(() => ({}));
+                throw new Error(error.message || 'Error al cargar el carrito');
+            }
             this.checkoutData.cart = await cartResponse.json();
 
             // Cargar direcciones
@@ -465,13 +468,7 @@ class CheckoutManager {
                 totalAmount: this.calculatedAmounts.finalTotal
             };
 
-            const response = await fetch('/api/customer/orders', {
-                method: 'POST',
-                headers: {
-                    'Content-Type': 'application/json',
-                },
-                body: JSON.stringify(orderData)
-            });
+            const response = await this.submitOrder(orderData, proceedBtn);
 
             if (response.ok) {
                 const orderResponse = await response.json();
@@ -505,6 +502,34 @@ class CheckoutManager {
         }
     }
 
+    // Si el servidor responde 503 por la sala de espera, espera lo indicado en Retry-After y reintenta
+    async submitOrder(orderData, proceedBtn, maxAttempts = 5) {
+        for (let attempt = 1; ; attempt++) {
+            const response = await fetch('/api/customer/orders', {
+                method: 'POST',
+                headers: {
+                    'Content-Type': 'application/json',
+                },
+                body: JSON.stringify(orderData)
+            });
+
+            if (response.status !== 503 || attempt >= maxAttempts) {
+                return response;
+            }
+
+            const queue = await response.json().catch(() => ({}));
+            const waitSeconds = parseInt(response.headers.get('Retry-After'), 10) || queue.estimatedWaitSeconds || 2;
+            proceedBtn.textContent = queue.position
+                ? `En fila (posición ${queue.position})...`
+                : 'En fila...';
+            if (attempt === 1) {
+                this.showNotification(queue.message || 'Hay muchos pedidos en proceso, reintentando...', 'info');
+            }
+            await new Promise(resolve => setTimeout(resolve, waitSeconds * 1000));
+            proceedBtn.textContent = 'Procesando...';
+        }
+    }
+
     validateCheckout() {
         const errors = [];
 
@@ -3,7 +3,8 @@
 const ADMIN_CONFIG = {
     DEBOUNCE_DELAY: 300,
     ANIMATION_DURATION: 1000,
-    ALERT_TIMEOUT: 5000
+    ALERT_TIMEOUT: 5000,
+    PRODUCTS_PAGE_SIZE: 50
 };
 
 // Utilidades de tiempo
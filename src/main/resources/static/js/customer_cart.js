@@ -38,6 +38,17 @@ class CustomerCart {
             }
         });
 
+        // Antes de ir al checkout se envían los cambios de cantidad pendientes
+        document.getElementById('checkoutBtn')?.addEventListener('click', async (e) => {
+            if (this.pendingDeltas?.size > 0) {
+                e.preventDefault();
+                const href = e.currentTarget.href;
+                clearTimeout(this.pendingTimer);
+                await this.flushPendingDeltas();
+                window.location.href = href;
+            }
+        });
+
         // Escuchar eventos de actualización
         window.addEventListener('customerCartUpdated', () => {
             this.loadCart();
@@ -380,29 +391,47 @@ class CustomerCart {
         document.getElementById('productModalOverlay').style.display = 'none';
     }
 
-    async updateItemQuantity(productId, action) {
-        try {
-            const currentItem = this.currentCart?.items?.find(item => item.productId === parseInt(productId));
-            if (!currentItem) return;
+    // Los clics de +/- se acumulan y se envían juntos en un solo PATCH
+    updateItemQuantity(productId, action) {
+        const currentItem = this.currentCart?.items?.find(item => item.productId === parseInt(productId));
+        if (!currentItem) return;
 
-            let newQuantity = action === 'increase' ? currentItem.quantity + 1 : currentItem.quantity - 1;
-            
-            if (newQuantity < 1) {
-                this.showDeleteModal(productId, currentItem.productName);
-                return;
-            }
+        const delta = action === 'increase' ? 1 : -1;
+        if (currentItem.quantity + delta < 1) {
+            this.showDeleteModal(productId, currentItem.productName);
+            return;
+        }
+
+        currentItem.quantity += delta;
+        this.pendingDeltas = this.pendingDeltas || new Map();
+        this.pendingDeltas.set(currentItem.productId, (this.pendingDeltas.get(currentItem.productId) || 0) + delta);
+        this.displayCartItems(this.currentCart.items);
 
-            const response = await fetch(`/api/customer/cart/items/${productId}?quantity=${newQuantity}`, {
-                method: 'PUT',
+        clearTimeout(this.pendingTimer);
+        this.pendingTimer = setTimeout(() => this.flushPendingDeltas(), 400);
+    }
+
+    async flushPendingDeltas() {
+        if (!this.pendingDeltas || this.pendingDeltas.size === 0) return;
+
+        const items = Array.from(this.pendingDeltas, ([productId, quantity]) => ({ productId, quantity }))
+            .filter(item => item.quantity !== 0);
+        this.pendingDeltas = new Map();
+        if (items.length === 0) return;
+
+        try {
+            const response = await fetch('/api/customer/cart/items', {
+                method: 'PATCH',
                 headers: {
                     'Content-Type': 'application/json'
-                }
+                },
+                body: JSON.stringify({ items })
             });
 
             if (response.ok) {
+                this.currentCart = await response.json();
+                this.displayCart(this.currentCart);
                 this.showNotification('Cantidad actualizada correctamente', 'success');
-                // Disparar evento específico para esta vista y el global
-                window.dispatchEvent(new CustomEvent('customerCartUpdated'));
                 window.dispatchEvent(new CustomEvent('cartUpdated'));
             } else {
                 const errorData = await response.json();
@@ -411,6 +440,8 @@ class CustomerCart {
         } catch (error) {
             console.error('Error updating item quantity:', error);
             this.showNotification(error.message || 'Error al actualizar la cantidad', 'error');
+            // Ningún cambio se aplicó: se vuelve a mostrar el carrito del servidor
+            this.loadCart();
         }
     }
 
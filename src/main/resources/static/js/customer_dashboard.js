@@ -192,8 +192,9 @@ class DashboardManager {
 
     updateCartCount() {
         // Obtener del localStorage como respaldo temporal
+        // Productos distintos, igual que el contador del header
         const cart = this.getCartFromStorage();
-        const totalItems = cart.reduce((sum, item) => sum + item.quantity, 0);
+        const totalItems = cart.length;
         document.getElementById('cartItemsCount').textContent = totalItems;
 
         // También actualizar el contador del header
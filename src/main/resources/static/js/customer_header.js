@@ -9,7 +9,7 @@ class HeaderManager {
     init() {
         this.setupEventListeners();
         this.setupScrollEffects();
-        this.updateCartCount();
+        this.initCartCount();
         this.initParticleSystem();
         this.createMobileOverlay();
         
@@ -78,7 +78,7 @@ class HeaderManager {
 
         // Escuchar actualizaciones del carrito
         window.addEventListener('cartUpdated', () => {
-            this.updateCartCount();
+            this.refreshCartCount();
             this.animateCartUpdate();
         });
 
@@ -334,9 +334,35 @@ class HeaderManager {
         }
     }
 
+    // El servidor ya renderiza el contador; localStorage sólo si la vista no lo trae
+    initCartCount() {
+        const serverCount = document.getElementById('headerCartCount')?.dataset.serverCount;
+        if (serverCount !== undefined && serverCount !== '') {
+            this.renderCartCount(Number(serverCount));
+        } else {
+            this.updateCartCount();
+        }
+    }
+
+    async refreshCartCount() {
+        try {
+            const response = await fetch('/api/customer/cart/count');
+            if (response.ok) {
+                this.renderCartCount(await response.json());
+                return;
+            }
+        } catch (error) {
+            // Se usa el respaldo local
+        }
+        this.updateCartCount();
+    }
+
+    // El contador muestra productos distintos, igual que /api/customer/cart/count
     updateCartCount() {
-        const cart = this.getCartFromStorage();
-        const totalItems = cart.reduce((sum, item) => sum + item.quantity, 0);
+        this.renderCartCount(this.getCartFromStorage().length);
+    }
+
+    renderCartCount(totalItems) {
         const cartCountElement = document.getElementById('headerCartCount');
         
         if (cartCountElement) {
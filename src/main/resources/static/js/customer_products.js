@@ -121,7 +121,7 @@ class ProductsManager {
         container.innerHTML = categories.map(category => `
             <label class="filter-option">
                 <input type="checkbox" name="category" value="${category.id}">
-                <span>${category.name} (${category.productCount || 0})</span>
+                <span>${category.name} (<span data-category-count="${category.id}">${category.productCount || 0}</span>)</span>
             </label>
         `).join('');
 
@@ -199,6 +199,8 @@ class ProductsManager {
                 params.append('inStock', 'true');
             }
             
+            this.loadFacets(new URLSearchParams(params));
+
             if (this.sortBy) {
                 params.append('sort', this.sortBy);
             }
@@ -206,11 +208,11 @@ class ProductsManager {
             const response = await fetch(`/api/customer/products?${params}`);
             
             if (response.ok) {
-                const products = await response.json();
-                this.displayProducts(products);
+                const pageData = await response.json();
+                this.displayProducts(pageData.content);
                 
-                this.totalProducts = products.length;
-                this.totalPages = Math.ceil(this.totalProducts / this.pageSize);
+                this.totalProducts = pageData.totalElements;
+                this.totalPages = pageData.totalPages;
                 this.updatePagination();
                 
             } else {
@@ -221,6 +223,24 @@ class ProductsManager {
         }
     }
 
+    // Conteos por categoría con los filtros actuales (sin paginación)
+    async loadFacets(params) {
+        params.delete('page');
+        params.delete('size');
+        try {
+            const response = await fetch(`/api/customer/products/facets?${params}`);
+            if (!response.ok) return;
+
+            const facets = await response.json();
+            const counts = new Map(facets.categories.map(facet => [facet.value, facet.count]));
+            document.querySelectorAll('[data-category-count]').forEach(element => {
+                element.textContent = counts.get(element.dataset.categoryCount) || 0;
+            });
+        } catch (error) {
+            // Los conteos son informativos; un fallo no debe bloquear el listado
+        }
+    }
+
     displayProducts(products) {
         const container = document.getElementById('productsGrid');
         const emptyState = document.getElementById('emptyState');
@@ -432,9 +452,8 @@ class ProductsManager {
     }
 
     updateCartCountFromStorage() {
-        const cart = this.getCartFromStorage();
-        const totalItems = cart.reduce((sum, item) => sum + item.quantity, 0);
-        this.updateCartCountDisplay(totalItems);
+        // Productos distintos, igual que /api/customer/cart/count
+        this.updateCartCountDisplay(this.getCartFromStorage().length);
     }
 
     async addToCart(productId) {
@@ -29,6 +29,7 @@ class InventoryManager {
             this.updateInventoryDisplay();
             this.updateStatistics();
             this.createCharts();
+            this.loadReplenishment();
             
         } catch (error) {
             console.error('Error cargando inventario:', error);
@@ -101,7 +102,7 @@ class InventoryManager {
         countElement.textContent = `${productsToShow.length} productos`;
         
         productsToShow.forEach(product => {
-            const stockLevel = this.getStockLevel(product.stock, product.minStock);
+            const stockLevel = this.getStockLevel(product.stock, product.minStock, product.stockTier);
             const progressPercentage = Math.min((product.stock / (product.minStock * 2)) * 100, 100);
             const stockValue = product.price * product.stock;
             
@@ -161,6 +162,45 @@ class InventoryManager {
         });
     }
 
+    async loadReplenishment() {
+        try {
+            const onlyNeeded = document.getElementById('showOnlyReorder').checked;
+            const response = await fetch(`/api/super-admin/inventory/replenishment?onlyNeeded=${onlyNeeded}`);
+            if (!response.ok) {
+                throw new Error(`Error HTTP: ${response.status}`);
+            }
+            this.updateReplenishmentDisplay(await response.json());
+        } catch (error) {
+            console.error('Error cargando sugerencias de reposición:', error);
+        }
+    }
+
+    updateReplenishmentDisplay(suggestions) {
+        const tbody = document.getElementById('replenishment-tbody');
+        document.getElementById('replenishment-count').textContent = `${suggestions.length} productos`;
+
+        if (suggestions.length === 0) {
+            tbody.innerHTML = '<tr><td colspan="7" class="text-center text-muted">No hay productos por reponer</td></tr>';
+            return;
+        }
+
+        tbody.innerHTML = suggestions.map(s => `
+            <tr class="${s.reorderNeeded ? 'stock-low' : ''}">
+                <td><strong>${s.productName}</strong></td>
+                <td>${s.categoryName || 'Sin categoría'}</td>
+                <td>${s.stock}</td>
+                <td>${s.dailyVelocity.toLocaleString()}</td>
+                <td>${s.daysOfCover != null ? `${s.daysOfCover.toLocaleString()} días` : '<span class="text-muted">Sin ventas</span>'}</td>
+                <td>${s.reorderPoint}</td>
+                <td>
+                    ${s.suggestedQuantity > 0
+                        ? `<span class="badge badge-low">+${s.suggestedQuantity}</span>`
+                        : '<span class="text-muted">-</span>'}
+                </td>
+            </tr>
+        `).join('');
+    }
+
     setupEventListeners() {
         document.getElementById('search-input').addEventListener('input', 
             debounce(() => this.filterInventory(), ADMIN_CONFIG.DEBOUNCE_DELAY));
@@ -180,6 +220,9 @@ class InventoryManager {
         document.getElementById('selectAllProducts').addEventListener('change', 
             () => this.toggleSelectAllProducts());
 
+        document.getElementById('showOnlyReorder').addEventListener('change', 
+            () => this.loadReplenishment());
+
         // Inicializar animaciones de scroll
         initializeScrollAnimations();
     }
@@ -193,7 +236,7 @@ class InventoryManager {
         let filteredProducts = this.products.filter(product => {
             const matchesSearch = product.name.toLowerCase().includes(searchTerm) ||
                                 product.description?.toLowerCase().includes(searchTerm);
-            const matchesStock = !stockFilter || this.getStockLevel(product.stock, product.minStock).class === stockFilter;
+            const matchesStock = !stockFilter || this.getStockLevel(product.stock, product.minStock, product.stockTier).class === stockFilter;
             const matchesCategory = !categoryFilter || 
                                   (product.categoryName && 
                                    this.categories.find(c => c.id == categoryFilter)?.name === product.categoryName);
@@ -322,7 +365,7 @@ class InventoryManager {
         
         this.products.forEach(product => {
             if (product.active) {
-                const stockLevel = this.getStockLevel(product.stock, product.minStock);
+                const stockLevel = this.getStockLevel(product.stock, product.minStock, product.stockTier);
                 const productItem = `
                     <div class="product-check-item">
                         <div class="form-check">
@@ -405,9 +448,15 @@ class InventoryManager {
             });
             
             if (response.ok) {
+                const result = await response.json();
                 const modal = bootstrap.Modal.getInstance(document.getElementById('bulkStockModal'));
                 modal.hide();
-                showAlert(`Ajuste masivo aplicado a ${selectedProducts.length} productos`, 'success');
+                if (result.failed > 0) {
+                    const reasons = result.results.filter(r => !r.success).map(r => r.message);
+                    showAlert(`Ajuste aplicado a ${result.applied} productos; ${result.failed} rechazados: ${[...new Set(reasons)].join(', ')}`, 'warning');
+                } else {
+                    showAlert(`Ajuste masivo aplicado a ${result.applied} productos`, 'success');
+                }
                 this.loadInventory();
             } else {
                 throw new Error('Error en la respuesta del servidor');
@@ -420,13 +469,11 @@ class InventoryManager {
 
     createCharts() {
         const activeProducts = this.products.filter(p => p.active);
-        const stockLevels = {
-            'out-of-stock': activeProducts.filter(p => p.stock === 0).length,
-            'critical': activeProducts.filter(p => p.stock > 0 && p.stock <= Math.ceil(p.minStock * 0.3)).length,
-            'low': activeProducts.filter(p => p.stock > Math.ceil(p.minStock * 0.3) && p.stock <= p.minStock).length,
-            'ok': activeProducts.filter(p => p.stock > p.minStock && p.stock <= p.minStock * 2).length,
-            'excellent': activeProducts.filter(p => p.stock > p.minStock * 2).length
-        };
+        // Una sola pasada clasificando con el nivel calculado por el servidor
+        const stockLevels = { 'out-of-stock': 0, 'critical': 0, 'low': 0, 'ok': 0, 'excellent': 0 };
+        activeProducts.forEach(p => {
+            stockLevels[this.getStockLevel(p.stock, p.minStock, p.stockTier).class]++;
+        });
 
         // Gráfico de distribución de stock
         const distributionCtx = document.getElementById('stockDistributionChart').getContext('2d');
@@ -540,7 +587,7 @@ class InventoryManager {
         let csv = 'Producto,Categoría,Stock Actual,Stock Mínimo,Nivel,Valor en Stock,Estado\n';
         
         activeProducts.forEach(product => {
-            const stockLevel = this.getStockLevel(product.stock, product.minStock);
+            const stockLevel = this.getStockLevel(product.stock, product.minStock, product.stockTier);
             const stockValue = product.price * product.stock;
             csv += `"${product.name}","${product.categoryName || ''}",${product.stock},${product.minStock},${stockLevel.text},${stockValue},${product.active ? 'Activo' : 'Inactivo'}\n`;
         });
@@ -556,7 +603,7 @@ class InventoryManager {
         let csv = 'Producto,Categoría,Stock Actual,Stock Mínimo,Nivel,Porcentaje,Valor en Stock\n';
         
         lowStockProducts.forEach(product => {
-            const stockLevel = this.getStockLevel(product.stock, product.minStock);
+            const stockLevel = this.getStockLevel(product.stock, product.minStock, product.stockTier);
             const stockValue = product.price * product.stock;
             const percentage = Math.round((product.stock / product.minStock) * 100);
             csv += `"${product.name}","${product.categoryName || ''}",${product.stock},${product.minStock},${stockLevel.text},${percentage}%,${stockValue}\n`;
@@ -584,8 +631,18 @@ class InventoryManager {
     }
 
     // Utilidades
-    getStockLevel(stock, minStock) {
-        if (stock === 0) {
+    getStockLevel(stock, minStock, stockTier) {
+        const tiers = {
+            'OUT_OF_STOCK': { class: 'out-of-stock', text: 'Sin Stock', color: 'danger' },
+            'CRITICAL': { class: 'critical', text: 'Crítico', color: 'warning' },
+            'LOW': { class: 'low', text: 'Bajo', color: 'warning' },
+            'NORMAL': { class: 'ok', text: 'Normal', color: 'success' },
+            'EXCELLENT': { class: 'excellent', text: 'Excelente', color: 'info' }
+        };
+        if (stockTier && tiers[stockTier]) {
+            return tiers[stockTier];
+        }
+        if (stock <= 0) {
             return { class: 'out-of-stock', text: 'Sin Stock', color: 'danger' };
         } else if (stock <= Math.ceil(minStock * 0.3)) {
             return { class: 'critical', text: 'Crítico', color: 'warning' };
@@ -0,0 +1,101 @@
+package io.bootify.pet_shop.repositories;
+
+import io.bootify.pet_shop.config.HibernateConfig;
+import io.bootify.pet_shop.models.Cart;
+import io.bootify.pet_shop.support.TestData;
+import io.bootify.pet_shop.support.TestDatabase;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import(HibernateConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CartItemRepositoryTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        TestDatabase.register(registry);
+    }
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private long userId;
+    private long food;
+    private long toy;
+
+    @BeforeEach
+    void setUp() {
+        TestData.truncateAll(jdbcTemplate);
+        userId = TestData.user(jdbcTemplate, "cliente@petluz.co");
+        food = TestData.product(jdbcTemplate, "Alimento", 10);
+        toy = TestData.product(jdbcTemplate, "Pelota", 10);
+    }
+
+    private Map<Long, Integer> storedItems() {
+        Map<Long, Integer> items = new HashMap<>();
+        jdbcTemplate.query("SELECT ci.product_id, ci.quantity FROM cart_items ci JOIN carts c ON c.id = ci.cart_id "
+                + "WHERE c.user_id = ?", rs -> {
+                    items.put(rs.getLong(1), rs.getInt(2));
+                }, userId);
+        return items;
+    }
+
+    private long storedVersion() {
+        return jdbcTemplate.queryForObject("SELECT version FROM carts WHERE user_id = ?", Long.class, userId);
+    }
+
+    @Test
+    void writeCartsUpsertsItemsAndBumpsTheCartVersion() {
+        Map<Long, Long> cartIds = cartItemRepository.writeCarts(Map.of(userId, Map.of(food, 2)));
+        assertThat(cartIds).containsOnlyKeys(userId);
+        assertThat(storedItems()).isEqualTo(Map.of(food, 2));
+        assertThat(storedVersion()).isZero();
+
+        cartItemRepository.writeCarts(Map.of(userId, Map.of(food, 3, toy, 1)));
+        assertThat(storedItems()).isEqualTo(Map.of(food, 3, toy, 1));
+        assertThat(storedVersion()).isEqualTo(1);
+
+        // Lo que ya no está en memoria se borra; un producto inexistente se ignora
+        Map<Long, Long> again = cartItemRepository.writeCarts(Map.of(userId, Map.of(toy, 1, 999L, 4)));
+        assertThat(again).isEqualTo(cartIds);
+        assertThat(storedItems()).isEqualTo(Map.of(toy, 1));
+        assertThat(storedVersion()).isEqualTo(2);
+    }
+
+    // Un Cart cargado por JPA antes de la escritura en bloque no puede pisarla al guardarse
+    @Test
+    void staleCartEntityFailsAfterABulkWrite() {
+        cartItemRepository.writeCarts(Map.of(userId, Map.of(food, 2)));
+        Cart cart = entityManager.createQuery("SELECT c FROM Cart c WHERE c.user.id = :userId", Cart.class)
+                .setParameter("userId", userId)
+                .getSingleResult();
+
+        cartItemRepository.writeCarts(Map.of(userId, Map.of(food, 5)));
+        cart.setUpdatedAt(LocalDateTime.now());
+
+        assertThatThrownBy(() -> entityManager.flush()).isInstanceOf(OptimisticLockException.class);
+    }
+}
@@ -0,0 +1,124 @@
+package io.bootify.pet_shop.repositories;
+
+import io.bootify.pet_shop.config.HibernateConfig;
+import io.bootify.pet_shop.models.Product;
+import io.bootify.pet_shop.models.ProductType;
+import io.bootify.pet_shop.support.TestData;
+import io.bootify.pet_shop.support.TestDatabase;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(HibernateConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductRepositoryTest {
+
+    private static final int ROWS = 10_000;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        TestDatabase.register(registry);
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        TestData.truncateAll(jdbcTemplate);
+    }
+
+    private Map<Long, long[]> stored() {
+        Map<Long, long[]> rows = new HashMap<>();
+        jdbcTemplate.query("SELECT id, stock, version FROM products", rs -> {
+            rows.put(rs.getLong(1), new long[] { rs.getLong(2), rs.getLong(3) });
+        });
+        return rows;
+    }
+
+    // El ajuste masivo de 10k filas en una sentencia: ADD, SET y SUBTRACT, y una resta
+    // de cada cien que dejaría el stock negativo y no se aplica
+    @Test
+    void tenThousandAdjustmentsApplyInOneStatement() {
+        List<Long> ids = TestData.products(jdbcTemplate, ROWS, 10);
+        Long[] productIds = ids.toArray(new Long[0]);
+        String[] operations = new String[ROWS];
+        Integer[] quantities = new Integer[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            switch (i % 3) {
+                case 0 -> {
+                    operations[i] = "ADD";
+                    quantities[i] = 5;
+                }
+                case 1 -> {
+                    operations[i] = "SUBTRACT";
+                    quantities[i] = i % 100 == 1 ? 11 : 3;
+                }
+                default -> {
+                    operations[i] = "SET";
+                    quantities[i] = 7;
+                }
+            }
+        }
+
+        assertThat(productRepository.lockStock(ids)).hasSize(ROWS).containsValue(10);
+        Map<Long, Integer> newStock = productRepository.applyStockAdjustments(productIds, operations, quantities);
+
+        Map<Long, long[]> stored = stored();
+        int rejected = 0;
+        for (int i = 0; i < ROWS; i++) {
+            Long id = productIds[i];
+            boolean rejectedRow = "SUBTRACT".equals(operations[i]) && quantities[i] > 10;
+            long expected = switch (operations[i]) {
+                case "ADD" -> 15;
+                case "SUBTRACT" -> rejectedRow ? 10 : 7;
+                default -> 7;
+            };
+            assertThat(stored.get(id)).as("producto %d", id).containsExactly(expected, rejectedRow ? 0 : 1);
+            if (rejectedRow) {
+                rejected++;
+                assertThat(newStock).doesNotContainKey(id);
+            } else {
+                assertThat(newStock).containsEntry(id, (int) expected);
+            }
+        }
+        assertThat(rejected).isPositive();
+        assertThat(newStock).hasSize(ROWS - rejected);
+    }
+
+    // Los filtros del listado del admin se resuelven en la consulta
+    @Test
+    void listingFiltersByTypePriceAndStock() {
+        long food = TestData.product(jdbcTemplate, "Alimento", 4, "FOOD", new BigDecimal("30000.00"), null);
+        TestData.product(jdbcTemplate, "Alimento agotado", 0, "FOOD", new BigDecimal("30000.00"), null);
+        TestData.product(jdbcTemplate, "Alimento caro", 4, "FOOD", new BigDecimal("90000.00"), null);
+        long toy = TestData.product(jdbcTemplate, "Pelota", 4, "TOY", new BigDecimal("20000.00"), null);
+        TestData.product(jdbcTemplate, "Collar", 4, "ACCESSORY", new BigDecimal("20000.00"), null);
+
+        Specification<Product> filters = Specification.allOf(
+                ProductSpecifications.ofTypes(List.of(ProductType.FOOD, ProductType.TOY)),
+                ProductSpecifications.priceAtLeast(10000.0),
+                ProductSpecifications.priceAtMost(50000.0),
+                ProductSpecifications.inStock(true));
+
+        assertThat(productRepository.findAll(filters)).extracting(Product::getId).containsExactlyInAnyOrder(food, toy);
+    }
+}
@@ -0,0 +1,116 @@
+package io.bootify.pet_shop.repositories;
+
+import io.bootify.pet_shop.models.Product;
+import io.bootify.pet_shop.support.JpaBenchmarkContext;
+import io.bootify.pet_shop.support.TestData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ajuste masivo de 10.000 productos contra PostgreSQL embebido, en una transacción:
+ * - unnestUpdate: lo que corre bulkUpdateStock, lockStock y APPLY_ADJUSTMENTS_SQL.
+ * - jdbcBatch: el mismo bloqueo y un UPDATE por fila enviado como lote JDBC.
+ * - jpaPerProduct: findById y save por producto, como el ajuste individual.
+ * Todas las filas suman una unidad, así el resultado es el mismo en las tres.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark="StockAdjustmentBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StockAdjustmentBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    private static final String UPDATE_ONE_SQL =
+            "UPDATE products SET stock = stock + ?, updated_at = ?, version = version + 1 WHERE id = ?";
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private ProductRepository productRepository;
+    private List<Long> ids;
+    private Long[] productIds;
+    private String[] operations;
+    private Integer[] quantities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = JpaBenchmarkContext.start();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        productRepository = context.getBean(ProductRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        TestData.truncateAll(jdbcTemplate);
+        ids = TestData.products(jdbcTemplate, ROWS, 10);
+        productIds = ids.toArray(new Long[0]);
+        operations = new String[ROWS];
+        quantities = new Integer[ROWS];
+        Arrays.fill(operations, "ADD");
+        Arrays.fill(quantities, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<Long, Integer> unnestUpdate() {
+        return transactionTemplate.execute(status -> {
+            productRepository.lockStock(ids);
+            return productRepository.applyStockAdjustments(productIds, operations, quantities);
+        });
+    }
+
+    @Benchmark
+    public int[] jdbcBatch() {
+        return transactionTemplate.execute(status -> {
+            productRepository.lockStock(ids);
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> batch = new ArrayList<>(ROWS);
+            for (Long id : ids) {
+                batch.add(new Object[] { 1, now, id });
+            }
+            return jdbcTemplate.batchUpdate(UPDATE_ONE_SQL, batch);
+        });
+    }
+
+    @Benchmark
+    public int jpaPerProduct() {
+        return transactionTemplate.execute(status -> {
+            int total = 0;
+            for (Long id : ids) {
+                Product product = productRepository.findById(id).orElseThrow();
+                product.setStock(product.getStock() + 1);
+                total += productRepository.save(product).getStock();
+            }
+            return total;
+        });
+    }
+}
@@ -0,0 +1,135 @@
+package io.bootify.pet_shop.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.bootify.pet_shop.dto.CartBatchUpdateRequestDTO;
+import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.models.Role;
+import io.bootify.pet_shop.models.User;
+import io.bootify.pet_shop.repositories.CartItemRepository;
+import io.bootify.pet_shop.repositories.CartRepository;
+import io.bootify.pet_shop.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Edición de un carrito de 20 productos: 20 llamadas a updateCartItem contra un solo
+ * applyBatch, cada respuesta serializada con Jackson como la enviaría el controlador.
+ * Es tiempo de servidor en proceso, sin HTTP: no incluye las 19 idas y vueltas de red
+ * que ahorra el lote. La diferencia de bytes transferidos la comprueba CartServiceBatchTest.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark="CartBatchBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartBatchBenchmark {
+
+    private static final String EMAIL = "cliente@petluz.co";
+    private static final int PRODUCTS = 20;
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private CartService cartService;
+    private CartBatchUpdateRequestDTO grow;
+    private CartBatchUpdateRequestDTO shrink;
+    private int round;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<ProductResponseDTO> products = new ArrayList<>();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            ProductResponseDTO product = new ProductResponseDTO();
+            product.setId(id);
+            product.setName("Alimento Premium para Perros Adultos " + id);
+            product.setPrice(new BigDecimal("85900.00"));
+            product.setStock(10);
+            product.setActive(true);
+            product.setImageUrl("/api/images/products/" + id);
+            products.add(product);
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.of(products);
+        CatalogService catalogService = new CatalogService(null, null, null, null) {
+            @Override
+            CatalogSnapshot current() {
+                return snapshot;
+            }
+        };
+
+        User customer = new User();
+        customer.setId(7L);
+        customer.setEmail(EMAIL);
+        customer.setRole(Role.CUSTOMER);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(customer));
+        CartRepository cartRepository = mock(CartRepository.class);
+        when(cartRepository.findByUserIdWithItems(anyLong())).thenReturn(Optional.empty());
+        CartStore cartStore = new CartStore(userRepository, cartRepository, mock(CartItemRepository.class),
+                new SimpleMeterRegistry(), mock(PlatformTransactionManager.class), 100, Duration.ofMinutes(30));
+
+        SecurityService securityService = mock(SecurityService.class);
+        when(securityService.getCurrentUsername()).thenReturn(EMAIL);
+
+        cartService = new CartService(cartStore, catalogService, securityService,
+                new StockReservationService(Duration.ofMinutes(15), Duration.ofMinutes(10)));
+        for (long id = 1; id <= PRODUCTS; id++) {
+            cartService.addToCart(id, 1);
+        }
+        grow = batch(1);
+        shrink = batch(-1);
+    }
+
+    private static CartBatchUpdateRequestDTO batch(int delta) {
+        List<CartBatchUpdateRequestDTO.Item> items = new ArrayList<>();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            CartBatchUpdateRequestDTO.Item item = new CartBatchUpdateRequestDTO.Item();
+            item.setProductId(id);
+            item.setQuantity(delta);
+            items.add(item);
+        }
+        CartBatchUpdateRequestDTO request = new CartBatchUpdateRequestDTO();
+        request.setItems(items);
+        return request;
+    }
+
+    // Las cantidades alternan entre 1 y 2 para que cada operación cambie el carrito
+    @Benchmark
+    public long twentyUpdateCalls() throws Exception {
+        int quantity = round++ % 2 == 0 ? 2 : 1;
+        long bytes = 0;
+        for (long id = 1; id <= PRODUCTS; id++) {
+            bytes += mapper.writeValueAsBytes(cartService.updateCartItem(id, quantity)).length;
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public long oneBatch() throws Exception {
+        CartBatchUpdateRequestDTO request = round++ % 2 == 0 ? grow : shrink;
+        return mapper.writeValueAsBytes(cartService.applyBatch(request)).length;
+    }
+}
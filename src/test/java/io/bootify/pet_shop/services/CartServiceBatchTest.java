@@ -0,0 +1,172 @@
+package io.bootify.pet_shop.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.bootify.pet_shop.dto.CartBatchUpdateRequestDTO;
+import io.bootify.pet_shop.dto.CartItemDTO;
+import io.bootify.pet_shop.dto.CartResponseDTO;
+import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.models.Role;
+import io.bootify.pet_shop.models.User;
+import io.bootify.pet_shop.repositories.CartItemRepository;
+import io.bootify.pet_shop.repositories.CartRepository;
+import io.bootify.pet_shop.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CartServiceBatchTest {
+
+    private static final String EMAIL = "cliente@petluz.co";
+    private static final int PRODUCTS = 20;
+
+    private CartStore cartStore;
+    private CatalogService catalogService;
+    private SecurityService securityService;
+    private StockReservationService reservations;
+    private CartService cartService;
+
+    @BeforeEach
+    void setUp() {
+        List<ProductResponseDTO> products = new ArrayList<>();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            ProductResponseDTO product = new ProductResponseDTO();
+            product.setId(id);
+            product.setName("Alimento Premium para Perros Adultos " + id);
+            product.setPrice(new BigDecimal("85900.00"));
+            product.setStock(10);
+            product.setActive(true);
+            product.setImageUrl("/api/images/products/" + id);
+            products.add(product);
+        }
+        CatalogSnapshot snapshot = CatalogSnapshot.of(products);
+        catalogService = new CatalogService(null, null, null, null) {
+            @Override
+            CatalogSnapshot current() {
+                return snapshot;
+            }
+        };
+
+        User customer = new User();
+        customer.setId(7L);
+        customer.setEmail(EMAIL);
+        customer.setRole(Role.CUSTOMER);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(customer));
+        CartRepository cartRepository = mock(CartRepository.class);
+        when(cartRepository.findByUserIdWithItems(anyLong())).thenReturn(Optional.empty());
+        cartStore = new CartStore(userRepository, cartRepository, mock(CartItemRepository.class),
+                new SimpleMeterRegistry(), mock(PlatformTransactionManager.class), 100, Duration.ofMinutes(30));
+
+        securityService = mock(SecurityService.class);
+        when(securityService.getCurrentUsername()).thenReturn(EMAIL);
+
+        reservations = new StockReservationService(Duration.ofMinutes(15), Duration.ofMinutes(10));
+        cartService = new CartService(cartStore, catalogService, securityService, reservations);
+    }
+
+    @Test
+    void batchLeavesCartAndHoldsUntouchedWhenALateReservationWins() {
+        cartService.addToCart(1L, 2);
+        cartService.addToCart(2L, 1);
+
+        // Otro cliente aparta el producto 2 entre la validación y las reservas del lote
+        StockReservationService racing = new StockReservationService(Duration.ofMinutes(15), Duration.ofMinutes(10)) {
+            @Override
+            public void assertAvailable(Long productId, String productName, String holder, int quantity, int stock) {
+                hold(2L, "otro@petluz.co", 9, 10);
+            }
+        };
+        racing.hold(1L, EMAIL, 2, 10);
+        racing.hold(2L, EMAIL, 1, 10);
+        CartService service = new CartService(cartStore, catalogService, securityService, racing);
+
+        assertThatThrownBy(() -> service.applyBatch(batch(Map.of(1L, 3, 2L, 4))))
+                .isInstanceOf(RuntimeException.class);
+
+        CartResponseDTO cart = service.getCart();
+        assertThat(cart.getItems()).extracting(CartItemDTO::getProductId, CartItemDTO::getQuantity)
+                .containsExactly(tuple(1L, 2), tuple(2L, 1));
+        // La reserva del producto 1 vuelve a 2 unidades: otro cliente ve 10 - 2 disponibles
+        assertThat(racing.reservedByOthers(1L, "otro@petluz.co")).isEqualTo(2);
+        assertThat(racing.reservedByOthers(2L, "otro@petluz.co")).isEqualTo(1);
+    }
+
+    @Test
+    void holdAllRestoresPreviousHoldsOnFailure() {
+        reservations.hold(1L, EMAIL, 2, 10);
+        reservations.hold(2L, "otro@petluz.co", 9, 10);
+
+        assertThatThrownBy(() -> reservations.holdAll(EMAIL, Map.of(1L, 5, 2L, 5, 3L, 1), Map.of(1L, 10, 2L, 10, 3L, 10)))
+                .isInstanceOf(RuntimeException.class);
+
+        assertThat(reservations.reservedByOthers(1L, "otro@petluz.co")).isEqualTo(2);
+        assertThat(reservations.reservedByOthers(3L, "otro@petluz.co")).isZero();
+        assertThat(reservations.reservedByOthers(2L, EMAIL)).isEqualTo(9);
+    }
+
+    // 20 PUT individuales contra un solo PATCH por lotes: mismo resultado, mucho menos transferido.
+    // Los tiempos están en CartBatchBenchmark.
+    @Test
+    void batchMatchesIndividualUpdatesWithASmallerPayload() throws Exception {
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        for (long id = 1; id <= PRODUCTS; id++) {
+            cartService.addToCart(id, 1);
+        }
+
+        long individualBytes = 0;
+        CartResponseDTO individual = null;
+        for (long id = 1; id <= PRODUCTS; id++) {
+            individual = cartService.updateCartItem(id, 2);
+            individualBytes += mapper.writeValueAsBytes(individual).length;
+        }
+        CartResponseDTO afterIndividual = individual;
+
+        for (long id = 1; id <= PRODUCTS; id++) {
+            cartService.updateCartItem(id, 1);
+        }
+        CartResponseDTO batched = cartService.applyBatch(batch(deltas(1)));
+        long batchBytes = mapper.writeValueAsBytes(batched).length;
+
+        assertThat(batched.getItems()).usingRecursiveFieldByFieldElementComparator()
+                .isEqualTo(afterIndividual.getItems());
+        assertThat(batchBytes * 10).isLessThan(individualBytes);
+    }
+
+    private static Map<Long, Integer> deltas(int delta) {
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        for (long id = 1; id <= PRODUCTS; id++) {
+            deltas.put(id, delta);
+        }
+        return deltas;
+    }
+
+    private static CartBatchUpdateRequestDTO batch(Map<Long, Integer> deltas) {
+        List<CartBatchUpdateRequestDTO.Item> items = new ArrayList<>();
+        deltas.forEach((productId, quantity) -> {
+            CartBatchUpdateRequestDTO.Item item = new CartBatchUpdateRequestDTO.Item();
+            item.setProductId(productId);
+            item.setQuantity(quantity);
+            items.add(item);
+        });
+        CartBatchUpdateRequestDTO request = new CartBatchUpdateRequestDTO();
+        request.setItems(items);
+        return request;
+    }
+}
@@ -0,0 +1,131 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.models.Role;
+import io.bootify.pet_shop.models.User;
+import io.bootify.pet_shop.repositories.CartItemRepository;
+import io.bootify.pet_shop.repositories.CartRepository;
+import io.bootify.pet_shop.repositories.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CartStoreTest {
+
+    private static final String EMAIL = "cliente@petluz.co";
+    private static final long USER_ID = 7L;
+
+    private CartItemRepository cartItemRepository;
+    private CartStore cartStore;
+
+    @BeforeEach
+    void setUp() {
+        User customer = new User();
+        customer.setId(USER_ID);
+        customer.setEmail(EMAIL);
+        customer.setRole(Role.CUSTOMER);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(customer));
+        CartRepository cartRepository = mock(CartRepository.class);
+        when(cartRepository.findByUserIdWithItems(anyLong())).thenReturn(Optional.empty());
+        cartItemRepository = mock(CartItemRepository.class);
+        when(cartItemRepository.writeCarts(anyMap())).thenReturn(Map.of(USER_ID, 100L));
+
+        cartStore = new CartStore(userRepository, cartRepository, cartItemRepository,
+                new SimpleMeterRegistry(), mock(PlatformTransactionManager.class), 100, Duration.ofMinutes(30));
+        cartStore.update(EMAIL, items -> {
+            items.put(1L, 2);
+            items.put(2L, 1);
+        });
+        cartStore.flushDirty();
+        clearInvocations(cartItemRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // Simula la confirmación de la transacción del checkout
+    private static void commit() {
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    @Test
+    void checkoutClearsOnlyWhatItFlushed() {
+        TransactionSynchronizationManager.initSynchronization();
+        CartStore.FlushedCart flushed = cartStore.flush(EMAIL);
+        assertThat(flushed.items()).containsExactlyInAnyOrderEntriesOf(Map.of(1L, 2, 2L, 1));
+
+        // Mientras el checkout corre, el cliente agrega un producto y cambia otro desde otra pestaña
+        cartStore.update(EMAIL, items -> {
+            items.put(3L, 1);
+            items.put(2L, 4);
+        });
+
+        Set<Long> cleared = new HashSet<>();
+        cartStore.clearAfterCommit(flushed, cleared::addAll);
+        commit();
+
+        assertThat(cleared).containsExactly(1L);
+        assertThat(cartStore.view(EMAIL).items()).containsExactlyInAnyOrderEntriesOf(Map.of(2L, 4, 3L, 1));
+        assertThat(cartStore.itemCount(EMAIL)).isEqualTo(2);
+
+        // Lo que quedó sigue pendiente y se vuelve a escribir sobre el carrito ya vacío en la base
+        cartStore.flushDirty();
+        verify(cartItemRepository).writeCarts(Map.of(USER_ID, Map.of(2L, 4, 3L, 1)));
+    }
+
+    @Test
+    void checkoutWithoutLaterChangesLeavesTheCartEmptyAndClean() {
+        TransactionSynchronizationManager.initSynchronization();
+        CartStore.FlushedCart flushed = cartStore.flush(EMAIL);
+
+        Set<Long> cleared = new HashSet<>();
+        cartStore.clearAfterCommit(flushed, cleared::addAll);
+        commit();
+
+        assertThat(cleared).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(cartStore.view(EMAIL).items()).isEmpty();
+        cartStore.flushDirty();
+        verify(cartItemRepository, never()).writeCarts(anyMap());
+    }
+
+    @Test
+    void rolledBackCheckoutLeavesTheCartUntouched() {
+        TransactionSynchronizationManager.initSynchronization();
+        CartStore.FlushedCart flushed = cartStore.flush(EMAIL);
+        Set<Long> cleared = new HashSet<>();
+        cartStore.clearAfterCommit(flushed, cleared::addAll);
+
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(cleared).isEmpty();
+        assertThat(cartStore.view(EMAIL).items()).containsExactlyInAnyOrderEntriesOf(Map.of(1L, 2, 2L, 1));
+    }
+}
@@ -0,0 +1,172 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.models.Cart;
+import io.bootify.pet_shop.models.CartItem;
+import io.bootify.pet_shop.models.Product;
+import io.bootify.pet_shop.models.User;
+import io.bootify.pet_shop.repositories.CartItemRepository;
+import io.bootify.pet_shop.repositories.CartRepository;
+import io.bootify.pet_shop.repositories.ProductRepository;
+import io.bootify.pet_shop.repositories.UserRepository;
+import io.bootify.pet_shop.support.JpaBenchmarkContext;
+import io.bootify.pet_shop.support.StatementCounter;
+import io.bootify.pet_shop.support.TestData;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de base de datos de agregar un producto al carrito, contra PostgreSQL embebido.
+ * Antes cada clic corría en su transacción la secuencia JPA de CartService.addToCart
+ * (usuario, carrito, producto, item, dos saves y la lectura de los items para la
+ * respuesta). Ahora el clic sólo toca CartStore en memoria y la base la escribe el
+ * volcado periódico: un upsert de carritos, un DELETE y el INSERT ... ON CONFLICT
+ * (cart_id, product_id) de los items, para todos los carritos pendientes juntos.
+ * Los contadores "statements" y "calls" suman sentencias enviadas y llamadas por iteración.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=CartWriteBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class CartWriteBenchmark {
+
+    private static final int PRODUCTS = 20;
+    private static final int CARTS = 100;
+    private static final int ITEMS_PER_CART = 5;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Statements {
+        public long statements;
+        public long calls;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            statements = 0;
+            calls = 0;
+        }
+
+        void add(long before) {
+            statements += StatementCounter.count() - before;
+            calls++;
+        }
+    }
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transactionTemplate;
+    private UserRepository userRepository;
+    private CartRepository cartRepository;
+    private CartItemRepository cartItemRepository;
+    private ProductRepository productRepository;
+
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<Long> productIds = new ArrayList<>();
+    private final Map<Long, Map<Long, Integer>> carts = new HashMap<>();
+    private int click;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = JpaBenchmarkContext.start();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        userRepository = context.getBean(UserRepository.class);
+        cartRepository = context.getBean(CartRepository.class);
+        cartItemRepository = context.getBean(CartItemRepository.class);
+        productRepository = context.getBean(ProductRepository.class);
+
+        for (int i = 0; i < PRODUCTS; i++) {
+            productIds.add(TestData.product(jdbcTemplate, "Producto " + i, 1_000_000_000));
+        }
+        for (int i = 0; i < CARTS; i++) {
+            long userId = TestData.user(jdbcTemplate, "cliente" + i + "@petluz.co");
+            userIds.add(userId);
+            Map<Long, Integer> items = new HashMap<>();
+            for (int k = 0; k < ITEMS_PER_CART; k++) {
+                items.put(productIds.get((i + k) % PRODUCTS), 1);
+            }
+            carts.put(userId, items);
+        }
+        transactionTemplate.executeWithoutResult(status -> cartItemRepository.writeCarts(carts));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // Lo que hacía addToCart antes de user-021, con los mismos repositorios
+    @Benchmark
+    public int addToCartPerClickJpa(Statements counter) {
+        long before = StatementCounter.count();
+        Long productId = productIds.get(click++ % ITEMS_PER_CART);
+        int lines = transactionTemplate.execute(status -> {
+            User customer = userRepository.findByEmail("cliente0@petluz.co").orElseThrow();
+            Cart cart = cartRepository.findByUser(customer).orElseThrow();
+            Product product = productRepository.findById(productId).orElseThrow();
+            CartItem item = cartItemRepository.findByCartAndProduct(cart, product).orElse(null);
+            if (item != null) {
+                item.setQuantity(item.getQuantity() % 50 + 1);
+                cartItemRepository.save(item);
+            } else {
+                CartItem created = new CartItem(cart, product, 1);
+                cart.addItem(created);
+                cartItemRepository.save(created);
+            }
+            cartRepository.save(cart);
+            // convertToDTO volvía a leer los items con sus productos
+            return cartItemRepository.findByCartIdWithProduct(cart.getId()).size();
+        });
+        counter.add(before);
+        return lines;
+    }
+
+    // Volcado de un solo carrito con un producto cambiado
+    @Benchmark
+    public Map<Long, Long> flushOneCart(Statements counter) {
+        long before = StatementCounter.count();
+        Long userId = userIds.get(0);
+        Map<Long, Integer> items = carts.get(userId);
+        items.merge(productIds.get(click++ % ITEMS_PER_CART), 1, (q, one) -> q % 50 + one);
+        Map<Long, Long> cartIds = transactionTemplate.execute(status ->
+                cartItemRepository.writeCarts(Map.of(userId, items)));
+        counter.add(before);
+        return cartIds;
+    }
+
+    // Volcado de CARTS carritos pendientes a la vez, cada uno con un producto cambiado
+    @Benchmark
+    public Map<Long, Long> flushHundredCarts(Statements counter) {
+        long before = StatementCounter.count();
+        int k = click++ % ITEMS_PER_CART;
+        for (int i = 0; i < CARTS; i++) {
+            carts.get(userIds.get(i)).merge(productIds.get((i + k) % PRODUCTS), 1, (q, one) -> q % 50 + one);
+        }
+        Map<Long, Long> cartIds = transactionTemplate.execute(status -> cartItemRepository.writeCarts(carts));
+        counter.add(before);
+        return cartIds;
+    }
+}
@@ -0,0 +1,116 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.dto.CursorPageDTO;
+import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.util.ProductCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogServiceTest {
+
+    private CatalogSnapshot snapshot;
+    private CatalogService catalogService;
+
+    @BeforeEach
+    void setUp() {
+        // Nombres, precios y fechas repetidos para que el desempate por id sí se use
+        List<ProductResponseDTO> products = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 10, 0);
+        for (long id = 1; id <= 137; id++) {
+            ProductResponseDTO product = new ProductResponseDTO();
+            product.setId(id);
+            product.setName((id % 3 == 0 ? "Árbol para gatos " : "Arena sanitaria ") + (id % 11));
+            product.setPrice(new BigDecimal(10000 + (id % 7) * 2500));
+            product.setStock((int) (id % 5));
+            product.setActive(id % 13 != 0);
+            product.setType("ACCESSORY");
+            product.setCreatedAt(base.plusMinutes(id % 17));
+            products.add(product);
+        }
+        snapshot = CatalogSnapshot.of(products);
+        catalogService = new CatalogService(null, null, null, null) {
+            @Override
+            CatalogSnapshot current() {
+                return snapshot;
+            }
+        };
+    }
+
+    @Test
+    void scrollWalksTheSameOrderAsTheOffsetListing() {
+        for (String sort : List.of("name", "price_asc", "price_desc", "newest")) {
+            BitSet selected = snapshot.filter(null, null, null, null, null);
+            List<Long> expected = snapshot.page(selected, sort, 0, Integer.MAX_VALUE).stream()
+                    .map(ProductResponseDTO::getId).toList();
+
+            List<Long> scrolled = new ArrayList<>();
+            String cursor = null;
+            do {
+                CursorPageDTO<ProductResponseDTO> page = catalogService.scrollProducts(
+                        null, null, null, null, null, null, sort, cursor, 10);
+                page.getItems().forEach(p -> scrolled.add(p.getId()));
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+
+            assertThat(scrolled).as(sort).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void scrollContinuesAfterTheCursorProductWasRemoved() {
+        CursorPageDTO<ProductResponseDTO> first = catalogService.scrollProducts(
+                null, null, null, null, null, null, "price_desc", null, 10);
+        ProductResponseDTO last = first.getItems().get(first.getItems().size() - 1);
+        snapshot = snapshot.with(List.of(), List.of(last.getId()));
+
+        CursorPageDTO<ProductResponseDTO> second = catalogService.scrollProducts(
+                null, null, null, null, null, null, "price_desc", first.getNextCursor(), 10);
+
+        BitSet selected = snapshot.filter(null, null, null, null, null);
+        List<Long> expected = snapshot.page(selected, "price_desc", 9, 10).stream()
+                .map(ProductResponseDTO::getId).toList();
+        assertThat(second.getItems()).extracting(ProductResponseDTO::getId).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void tamperedCursorIsRejectedWithBadRequest() {
+        for (String raw : List.of("price_asc|no-es-precio|5", "newest|ayer|5", "name|x|-1", "otro|x|5", "sin-separador")) {
+            String cursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+            String sort = raw.substring(0, Math.max(raw.indexOf('|'), 0));
+            assertThatThrownBy(() -> ProductCursor.decode(cursor, sort))
+                    .as(raw)
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        }
+        assertThatThrownBy(() -> ProductCursor.decode("%%%", "name"))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void listingPageSizeIsCappedAndHugeOffsetsAreRejected() {
+        assertThat(catalogService.getProducts(null, null, null, null, null, null, "name", 0, 1_000_000))
+                .satisfies(page -> {
+                    assertThat(page.getSize()).isEqualTo(100);
+                    assertThat(page.getContent()).hasSize(100);
+                });
+
+        assertThatThrownBy(() -> catalogService.getProducts(
+                null, null, null, null, null, null, "name", Integer.MAX_VALUE, 100))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+}
@@ -0,0 +1,92 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.dto.CategoryResponseDTO;
+import io.bootify.pet_shop.events.ProductChangedEvent;
+import io.bootify.pet_shop.models.Category;
+import io.bootify.pet_shop.repositories.CategoryRepository;
+import io.bootify.pet_shop.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CategoryServiceTest {
+
+    private CategoryRepository categoryRepository;
+    private ProductRepository productRepository;
+    private CategoryService categoryService;
+
+    @BeforeEach
+    void setUp() {
+        categoryRepository = mock(CategoryRepository.class);
+        productRepository = mock(ProductRepository.class);
+        categoryService = new CategoryService(categoryRepository, productRepository,
+                mock(ApplicationEventPublisher.class));
+    }
+
+    private void givenCategories(int count) {
+        List<Category> categories = new ArrayList<>();
+        List<Object[]> counts = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            Category category = new Category("Categoría " + id, null);
+            category.setId(id);
+            categories.add(category);
+            counts.add(new Object[]{id, id * 3});
+        }
+        when(categoryRepository.findAll()).thenReturn(categories);
+        when(productRepository.countGroupedByCategoryId()).thenReturn(counts);
+    }
+
+    @Test
+    void listingRunsTwoQueriesRegardlessOfCategoryCount() {
+        for (int count : new int[]{1, 50}) {
+            setUp();
+            givenCategories(count);
+
+            List<CategoryResponseDTO> categories = categoryService.getAllCategories();
+
+            assertThat(categories).hasSize(count);
+            assertThat(categories.get(count - 1).getProductCount()).isEqualTo(count * 3);
+            verify(categoryRepository, times(1)).findAll();
+            verify(productRepository, times(1)).countGroupedByCategoryId();
+            verify(productRepository, never()).countByCategoryId(anyLong());
+        }
+    }
+
+    @Test
+    void cachedListingRunsNoQueries() {
+        givenCategories(10);
+        categoryService.getAllCategories();
+
+        categoryService.getAllCategories();
+        categoryService.getCategoryById(4L);
+
+        verify(categoryRepository, times(1)).findAll();
+        verify(productRepository, times(1)).countGroupedByCategoryId();
+    }
+
+    @Test
+    void stockMovementsKeepTheCacheAndStructuralChangesDropIt() {
+        givenCategories(10);
+        categoryService.getAllCategories();
+
+        categoryService.onProductsChanged(ProductChangedEvent.stock(Set.of(1L, 2L)));
+        categoryService.getAllCategories();
+        verify(productRepository, times(1)).countGroupedByCategoryId();
+
+        categoryService.onProductsChanged(ProductChangedEvent.of(3L));
+        categoryService.getAllCategories();
+        verify(productRepository, times(2)).countGroupedByCategoryId();
+    }
+}
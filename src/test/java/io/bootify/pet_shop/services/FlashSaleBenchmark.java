@@ -0,0 +1,145 @@
+package io.bootify.pet_shop.services;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.bootify.pet_shop.models.Product;
+import io.bootify.pet_shop.repositories.ProductRepository;
+import io.bootify.pet_shop.repositories.ProductRepositoryCustomImpl;
+import io.bootify.pet_shop.support.TestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checkouts por segundo sobre un único producto caliente, con y sin venta flash, contra
+ * PostgreSQL embebido. Los dos caminos insertan el sale_item en la misma transacción;
+ * cambia sólo dónde se descuenta: el UPDATE condicional sobre la fila de products
+ * (todas las transacciones esperan el mismo bloqueo) o el contador en memoria, con el
+ * volcado periódico de FlashSaleService corriendo cada segundo.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark="FlashSaleBenchmark -t 16"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(16)
+public class FlashSaleBenchmark {
+
+    private static final long DB_PRODUCT = 1L;
+    private static final long FLASH_PRODUCT = 2L;
+    private static final int INITIAL_STOCK = 1_000_000_000;
+
+    private static final String INSERT_SALE_ITEM_SQL =
+            "INSERT INTO sale_items (product_id, quantity, stock_applied) VALUES (?, 1, ?)";
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ProductRepositoryCustomImpl productRepositoryImpl;
+    private FlashSaleService flashSaleService;
+    private ScheduledExecutorService flusher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(TestDatabase.jdbcUrl());
+        dataSource.setUsername("postgres");
+        dataSource.setPassword("postgres");
+        dataSource.setMaximumPoolSize(32);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // Sólo las columnas que usan las sentencias de ProductRepositoryCustomImpl
+        jdbcTemplate.execute("DROP TABLE IF EXISTS sale_items, products");
+        jdbcTemplate.execute("CREATE TABLE products (id bigint PRIMARY KEY, stock int NOT NULL, "
+                + "updated_at timestamp, version bigint NOT NULL DEFAULT 0, flash_sale boolean NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE sale_items (id bigserial PRIMARY KEY, product_id bigint NOT NULL, "
+                + "quantity int NOT NULL, stock_applied boolean NOT NULL DEFAULT true)");
+        jdbcTemplate.execute("CREATE INDEX idx_sale_items_stock_applied ON sale_items (stock_applied, product_id)");
+        jdbcTemplate.update("INSERT INTO products (id, stock, flash_sale) VALUES (?, ?, false), (?, ?, true)",
+                DB_PRODUCT, INITIAL_STOCK, FLASH_PRODUCT, INITIAL_STOCK);
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        productRepositoryImpl = new ProductRepositoryCustomImpl(jdbcTemplate);
+
+        Product flashProduct = new Product();
+        flashProduct.setId(FLASH_PRODUCT);
+        flashProduct.setStock(INITIAL_STOCK);
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findByFlashSaleTrue()).thenReturn(List.of(flashProduct));
+        when(productRepository.applyPendingSaleItems()).thenAnswer(invocation -> productRepositoryImpl.applyPendingSaleItems());
+
+        flashSaleService = new FlashSaleService(productRepository, mock(InventoryLedger.class),
+                mock(ApplicationEventPublisher.class), new SimpleMeterRegistry(), transactionManager,
+                0, Duration.ofSeconds(5));
+        flashSaleService.recover();
+
+        flusher = Executors.newSingleThreadScheduledExecutor();
+        flusher.scheduleWithFixedDelay(flashSaleService::flush, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        flusher.shutdownNow();
+        flashSaleService.flush();
+        Integer flashStock = jdbcTemplate.queryForObject("SELECT stock FROM products WHERE id = ?",
+                Integer.class, FLASH_PRODUCT);
+        Integer pending = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM sale_items WHERE stock_applied = false", Integer.class);
+        // Todo lo vendido en memoria tiene que haber llegado a la fila
+        if (pending != 0 || flashStock != flashSaleService.availableOr(FLASH_PRODUCT, -1)) {
+            throw new IllegalStateException("Venta flash sin volcar: " + pending + " pendientes, fila "
+                    + flashStock + ", contador " + flashSaleService.availableOr(FLASH_PRODUCT, -1));
+        }
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Boolean checkoutWithoutFlashSale() {
+        return transactionTemplate.execute(status -> {
+            if (!productRepositoryImpl.decrementStockIfAvailable(Map.of(DB_PRODUCT, 1)).isEmpty()) {
+                return false;
+            }
+            jdbcTemplate.update(INSERT_SALE_ITEM_SQL, DB_PRODUCT, true);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public Boolean checkoutWithFlashSale() {
+        return transactionTemplate.execute(status -> {
+            if (!flashSaleService.acquire(Map.of(FLASH_PRODUCT, 1)).isEmpty()) {
+                return false;
+            }
+            jdbcTemplate.update(INSERT_SALE_ITEM_SQL, FLASH_PRODUCT, false);
+            return true;
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.models.Product;
+import io.bootify.pet_shop.repositories.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FlashSaleServiceTest {
+
+    private FlashSaleService flashSaleService;
+
+    @BeforeEach
+    void setUp() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        Product product = new Product();
+        product.setId(1L);
+        product.setStock(10);
+        when(productRepository.findByFlashSaleTrue()).thenReturn(List.of(product));
+
+        flashSaleService = new FlashSaleService(productRepository, mock(InventoryLedger.class),
+                mock(ApplicationEventPublisher.class), new SimpleMeterRegistry(),
+                mock(PlatformTransactionManager.class), 4, Duration.ofSeconds(1));
+        flashSaleService.recover();
+    }
+
+    // products.stock todavía dice 10, pero 7 unidades ya se vendieron en memoria
+    @Test
+    void adjustmentsAreCheckedAgainstTheCounterNotTheRow() {
+        assertThat(flashSaleService.acquire(Map.of(1L, 7))).isEmpty();
+        assertThat(flashSaleService.availableOr(1L, 10)).isEqualTo(3);
+
+        assertThatThrownBy(() -> flashSaleService.applyAdjustments(Map.of(1L, -4)))
+                .hasMessageContaining("Stock insuficiente");
+        assertThat(flashSaleService.availableOr(1L, 10)).isEqualTo(3);
+
+        flashSaleService.applyAdjustments(Map.of(1L, -3));
+        assertThat(flashSaleService.availableOr(1L, 10)).isZero();
+
+        flashSaleService.applyAdjustments(Map.of(1L, 5));
+        assertThat(flashSaleService.availableOr(1L, 10)).isEqualTo(5);
+    }
+
+    @Test
+    void productsOutsideTheModeAreIgnored() {
+        flashSaleService.applyAdjustments(Map.of(2L, -100));
+
+        assertThat(flashSaleService.isActive(2L)).isFalse();
+        assertThat(flashSaleService.availableOr(2L, 42)).isEqualTo(42);
+    }
+}
@@ -0,0 +1,207 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.config.HibernateConfig;
+import io.bootify.pet_shop.dto.StockAtDTO;
+import io.bootify.pet_shop.repositories.InventoryMovementRepository;
+import io.bootify.pet_shop.support.TestData;
+import io.bootify.pet_shop.support.TestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Snapshots y stock a una fecha contra PostgreSQL real: la marca depende de la
+ * visibilidad de transacciones abiertas, que un doble en memoria no reproduce.
+ */
+@DataJpaTest
+@Import(HibernateConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryHistoryServiceTest {
+
+    private static final String INSERT_MOVEMENT_SQL =
+            "INSERT INTO inventory_movements (product_id, type, quantity_delta, created_at) "
+                    + "VALUES (?, ?, ?, ?) RETURNING id";
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        TestDatabase.register(registry);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventoryMovementRepository movementRepository;
+
+    private InventoryHistoryService service;
+
+    @BeforeEach
+    void setUp() {
+        TestData.truncateAll(jdbcTemplate);
+        service = new InventoryHistoryService(jdbcTemplate, movementRepository, new SimpleMeterRegistry(),
+                Duration.ofMinutes(5), 500, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private long movement(long productId, String type, int delta, LocalDateTime createdAt) {
+        return jdbcTemplate.queryForObject(INSERT_MOVEMENT_SQL, Long.class, productId, type, delta,
+                Timestamp.valueOf(createdAt));
+    }
+
+    // Un movimiento en una transacción que queda abierta, en otra conexión
+    private static long movement(Connection connection, long productId, int delta) throws Exception {
+        try (PreparedStatement ps = connection.prepareStatement(INSERT_MOVEMENT_SQL)) {
+            ps.setLong(1, productId);
+            ps.setString(2, "SALE");
+            ps.setInt(3, delta);
+            ps.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    // product_id -> {stock, last_movement_id} del snapshot más reciente
+    private Map<Long, long[]> latestSnapshots() {
+        Map<Long, long[]> snapshots = new HashMap<>();
+        jdbcTemplate.query("SELECT DISTINCT ON (product_id) product_id, stock, last_movement_id "
+                + "FROM inventory_snapshots ORDER BY product_id, taken_at DESC, id DESC", rs -> {
+                    snapshots.put(rs.getLong(1), new long[] { rs.getLong(2), rs.getLong(3) });
+                });
+        return snapshots;
+    }
+
+    private LocalDateTime lastSnapshotTime() {
+        return jdbcTemplate.queryForObject("SELECT MAX(taken_at) FROM inventory_snapshots", LocalDateTime.class);
+    }
+
+    @Test
+    void anOpenTransactionHoldsTheWatermarkUntilItCommits() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        long food = TestData.product(jdbcTemplate, "Alimento", 10);
+        long toy = TestData.product(jdbcTemplate, "Pelota", 5);
+        long first = movement(food, "INITIAL", 10, now.minusHours(1));
+
+        try (Connection open = TestDatabase.dataSource().getConnection()) {
+            open.setAutoCommit(false);
+            long pending = movement(open, food, -2);
+            try (PreparedStatement ps = open.prepareStatement("UPDATE products SET stock = 8 WHERE id = ?")) {
+                ps.setLong(1, food);
+                ps.executeUpdate();
+            }
+            long last = movement(toy, "INITIAL", 5, now);
+            assertThat(pending).isEqualTo(first + 1);
+
+            // El hueco es reciente: la marca se queda justo antes del movimiento sin confirmar
+            service.takeSnapshots();
+            assertThat(latestSnapshots())
+                    .hasEntrySatisfying(food, s -> assertThat(s).containsExactly(10, first))
+                    .hasEntrySatisfying(toy, s -> assertThat(s).containsExactly(0, first));
+
+            open.commit();
+
+            service.takeSnapshots();
+            assertThat(latestSnapshots())
+                    .hasEntrySatisfying(food, s -> assertThat(s).containsExactly(8, last))
+                    .hasEntrySatisfying(toy, s -> assertThat(s).containsExactly(5, last));
+        }
+    }
+
+    @Test
+    void aRolledBackGapIsSkippedOnceTheNextMovementIsOlderThanTheLag() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        long food = TestData.product(jdbcTemplate, "Alimento", 13);
+        long first = movement(food, "INITIAL", 10, now.minusHours(1));
+        try (Connection open = TestDatabase.dataSource().getConnection()) {
+            open.setAutoCommit(false);
+            movement(open, food, -2);
+            open.rollback();
+        }
+        long last = movement(food, "ADJUSTMENT", 3, now);
+
+        service.takeSnapshots();
+        assertThat(latestSnapshots()).hasEntrySatisfying(food, s -> assertThat(s).containsExactly(10, first));
+
+        // El movimiento posterior al hueco ya tiene más antigüedad que snapshotLag
+        jdbcTemplate.update("UPDATE inventory_movements SET created_at = ? WHERE id = ?",
+                Timestamp.valueOf(now.minusMinutes(10)), last);
+        service.takeSnapshots();
+        assertThat(latestSnapshots()).hasEntrySatisfying(food, s -> assertThat(s).containsExactly(13, last));
+    }
+
+    // Un producto anterior al libro no tiene INITIAL: sólo hay historial desde su primer snapshot
+    @Test
+    void aProductWithoutSnapshotOrInitialMovementHasNoHistoryUntilTheBaseline() {
+        long legacy = TestData.product(jdbcTemplate, "Collar", 7);
+        LocalDateTime before = LocalDateTime.now();
+
+        assertThatThrownBy(() -> service.getStockAt(legacy, before))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("No hay historial");
+
+        service.takeSnapshots();
+        LocalDateTime takenAt = lastSnapshotTime();
+
+        assertThat(latestSnapshots()).hasEntrySatisfying(legacy, s -> assertThat(s).containsExactly(7, 0));
+        assertThat(service.getStockAt(legacy, takenAt)).isEqualTo(new StockAtDTO(legacy, takenAt, 7, 0));
+        assertThatThrownBy(() -> service.getStockAt(legacy, takenAt.minusSeconds(1)))
+                .isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    void stockAtATimeReplaysMovementsBeforeAndAfterASnapshot() {
+        LocalDateTime start = LocalDateTime.now().minusHours(3);
+        long food = TestData.product(jdbcTemplate, "Alimento", 7);
+        movement(food, "INITIAL", 10, start);
+        movement(food, "SALE", -3, start.plusHours(1));
+
+        // Antes de cualquier snapshot se suma desde el INITIAL
+        assertThat(service.getStockAt(food, start.plusMinutes(30)).getStock()).isEqualTo(10);
+        StockAtDTO beforeSnapshot = service.getStockAt(food, start.plusHours(2));
+        assertThat(beforeSnapshot.getStock()).isEqualTo(7);
+        assertThat(beforeSnapshot.getMovementsReplayed()).isEqualTo(2);
+
+        service.takeSnapshots();
+        LocalDateTime takenAt = lastSnapshotTime();
+        movement(food, "SALE", -2, takenAt.plusMinutes(1));
+
+        StockAtDTO atSnapshot = service.getStockAt(food, takenAt.plusSeconds(30));
+        assertThat(atSnapshot.getStock()).isEqualTo(7);
+        assertThat(atSnapshot.getMovementsReplayed()).isZero();
+
+        StockAtDTO afterSnapshot = service.getStockAt(food, takenAt.plusMinutes(2));
+        assertThat(afterSnapshot.getStock()).isEqualTo(5);
+        assertThat(afterSnapshot.getMovementsReplayed()).isEqualTo(1);
+
+        // Una fecha anterior al snapshot sigue reconstruyéndose desde el origen
+        assertThat(service.getStockAt(food, start.plusMinutes(30)).getStock()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,157 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.config.HibernateConfig;
+import io.bootify.pet_shop.models.Product;
+import io.bootify.pet_shop.repositories.ProductRepository;
+import io.bootify.pet_shop.support.TestData;
+import io.bootify.pet_shop.support.TestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * OptimisticRetryExecutor sobre la entidad Product real: el conflicto lo detecta
+ * Hibernate con @Version al confirmar contra PostgreSQL.
+ */
+@DataJpaTest
+@Import(HibernateConfig.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OptimisticRetryJpaTest {
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        TestDatabase.register(registry);
+    }
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private long productId;
+
+    @BeforeEach
+    void setUp() {
+        TestData.truncateAll(jdbcTemplate);
+        productId = TestData.product(jdbcTemplate, "Alimento", 10);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private OptimisticRetryExecutor executor(int maxAttempts) {
+        return new OptimisticRetryExecutor(transactionManager, meterRegistry, maxAttempts, 1);
+    }
+
+    private double counter(String name) {
+        return meterRegistry.find(name).tag("entity", "Product").counters().stream()
+                .mapToDouble(c -> c.count()).sum();
+    }
+
+    private int addStock(int quantity) {
+        Product product = productRepository.findById(productId).orElseThrow();
+        product.setStock(product.getStock() + quantity);
+        return productRepository.save(product).getStock();
+    }
+
+    private Product reload() {
+        return productRepository.findById(productId).orElseThrow();
+    }
+
+    // Otra transacción confirma entre la lectura y el commit del primer intento
+    @Test
+    void aWriteCommittedAfterTheReadForcesExactlyOneRetry() throws Exception {
+        OptimisticRetryExecutor retry = executor(4);
+        CountDownLatch read = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<Integer> result = CompletableFuture.supplyAsync(() ->
+                retry.execute("updateStock", () -> {
+                    Product product = productRepository.findById(productId).orElseThrow();
+                    if (attempts.incrementAndGet() == 1) {
+                        read.countDown();
+                        await(written);
+                    }
+                    product.setStock(product.getStock() + 1);
+                    return productRepository.save(product).getStock();
+                }));
+
+        assertThat(read.await(10, TimeUnit.SECONDS)).isTrue();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> addStock(5));
+        written.countDown();
+
+        assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(16);
+        assertThat(attempts).hasValue(2);
+        assertThat(counter("petshop.optimistic_lock.conflicts")).isEqualTo(1);
+        assertThat(reload().getStock()).isEqualTo(16);
+        assertThat(reload().getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentUpdatesOnTheSameProductDoNotLoseWrites() throws Exception {
+        OptimisticRetryExecutor retry = executor(100);
+        int threads = 4;
+        int updatesPerThread = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < updatesPerThread; i++) {
+                    retry.execute("updateStock", () -> addStock(1));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int total = threads * updatesPerThread;
+        assertThat(reload().getStock()).isEqualTo(10 + total);
+        assertThat(reload().getVersion()).isEqualTo(total);
+        assertThat(counter("petshop.optimistic_lock.exhausted")).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Tiempo de espera agotado");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
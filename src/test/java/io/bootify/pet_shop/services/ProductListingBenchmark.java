@@ -0,0 +1,109 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.dto.CursorPageDTO;
+import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.models.Product;
+import io.bootify.pet_shop.models.ProductType;
+import io.bootify.pet_shop.repositories.ProductRepository;
+import io.bootify.pet_shop.support.JpaBenchmarkContext;
+import io.bootify.pet_shop.support.TestData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Primera página (50) del listado filtrado por tipo y con stock, ordenado por nombre,
+ * contra PostgreSQL embebido con 1.000, 10.000 y 100.000 productos:
+ * - inJavaFilter: lo que hacía getProductsWithFilters antes de user-001, cargar todos
+ *   los activos, filtrar y ordenar con streams y cortar con subList.
+ * - sqlScroll: ProductService.scrollAllProducts, el listado del admin, con los filtros,
+ *   el orden y el límite en la consulta.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark="ProductListingBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class ProductListingBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+    private static final List<ProductType> TYPES = List.of(ProductType.FOOD);
+
+    @Param({ "1000", "10000", "100000" })
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+    private ProductRepository productRepository;
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = JpaBenchmarkContext.start();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        productRepository = context.getBean(ProductRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        // El listado sólo usa el repositorio
+        productService = new ProductService(productRepository, null, null, null, null, null, null, null, null);
+
+        TestData.truncateAll(jdbcTemplate);
+        for (int i = 0; i < 10; i++) {
+            TestData.category(jdbcTemplate, "Categoría " + i);
+        }
+        // Tipos, precios, stock (uno de cada siete en cero) y un 10% de inactivos repartidos por id
+        jdbcTemplate.update("INSERT INTO products (name, price, stock, min_stock, active, flash_sale, type, "
+                + "version, category_id, created_at, updated_at) "
+                + "SELECT 'Producto ' || md5(g::text), 1000 + (g * 7919) % 200000, g % 7, 5, g % 10 <> 0, false, "
+                + "(ARRAY['FOOD','ACCESSORY','TOY','MEDICINE','HYGIENE','OTHER'])[g % 6 + 1], 0, g % 10 + 1, "
+                + "now() - g * interval '1 minute', now() FROM generate_series(1, ?) g", catalogSize);
+        jdbcTemplate.execute("ANALYZE products");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> inJavaFilter() {
+        return readOnly.execute(status -> {
+            List<Product> filtered = productRepository.findByActiveTrue().stream()
+                    .filter(product -> TYPES.contains(product.getType()))
+                    .filter(product -> product.getStock() > 0)
+                    .sorted(Comparator.comparing(Product::getName))
+                    .collect(Collectors.toList());
+            return filtered.subList(0, Math.min(PAGE_SIZE, filtered.size())).stream()
+                    .map(ProductService::convertToDTO)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Benchmark
+    public CursorPageDTO<ProductResponseDTO> sqlScroll() {
+        return readOnly.execute(status -> productService.scrollAllProducts(null, null, true, TYPES, null, null, true,
+                "name", null, PAGE_SIZE));
+    }
+}
@@ -0,0 +1,137 @@
+package io.bootify.pet_shop.services;
+
+import io.bootify.pet_shop.dto.ProductResponseDTO;
+import io.bootify.pet_shop.dto.ProductSearchResponseDTO;
+import io.bootify.pet_shop.events.CatalogUpdatedEvent;
+import io.bootify.pet_shop.repositories.ProductRepository;
+import io.bootify.pet_shop.support.JpaBenchmarkContext;
+import io.bootify.pet_shop.support.TestData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Búsqueda de productos por palabra clave con catálogos de 1.000 y 10.000 productos:
+ * - likeQuery: ProductService.searchProducts, la búsqueda del admin, con
+ *   findByNameContainingIgnoreCase contra PostgreSQL embebido.
+ * - snapshotScan: lo que reemplazó user-004, un contains sobre el nombre de cada
+ *   producto del CatalogSnapshot.
+ * - indexSearch: CatalogService.searchProducts, ProductSearchIndex con BM25 y los DTO
+ *   del snapshot.
+ * El índice encuentra más productos por consulta (stemming, acentos, categoría y
+ * descripción), así que no comparan exactamente el mismo resultado.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark="ProductSearchBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSearchBenchmark {
+
+    private static final String[] KINDS = { "Alimento", "Juguete", "Arena", "Collar", "Cama", "Snack",
+            "Shampoo", "Rascador" };
+    private static final String[] ANIMALS = { "Perro", "Gato", "Ave", "Pez", "Hámster", "Conejo" };
+    private static final String[] STAGES = { "Adulto", "Cachorro", "Senior", "Mediano", "Grande" };
+    private static final String[] QUERIES = { "gato", "alimento", "collar", "arena" };
+
+    @Param({ "1000", "10000" })
+    public int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate readOnly;
+    private ProductRepository productRepository;
+    private CatalogSnapshot snapshot;
+    private CatalogService catalogService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = JpaBenchmarkContext.start();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        productRepository = context.getBean(ProductRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        TestData.truncateAll(jdbcTemplate);
+        List<Long> categories = new ArrayList<>();
+        for (String kind : KINDS) {
+            categories.add(TestData.category(jdbcTemplate, kind + "s"));
+        }
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            int kind = random.nextInt(KINDS.length);
+            String animal = ANIMALS[random.nextInt(ANIMALS.length)];
+            String name = KINDS[kind] + " para " + animal + " " + STAGES[random.nextInt(STAGES.length)] + " " + i;
+            String description = "Producto de calidad para tu " + animal.toLowerCase()
+                    + ", ideal para el uso diario y fácil de limpiar.";
+            rows.add(new Object[] { name, description, categories.get(kind) });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (name, description, price, stock, min_stock, active, "
+                + "flash_sale, type, version, category_id, created_at, updated_at) "
+                + "VALUES (?, ?, 25000.00, 10, 5, true, false, 'FOOD', 0, ?, now(), now())", rows);
+
+        List<ProductResponseDTO> products = readOnly.execute(status -> productRepository.findAll().stream()
+                .map(ProductService::convertToDTO)
+                .collect(Collectors.toList()));
+        snapshot = CatalogSnapshot.of(products);
+        ProductSearchIndex searchIndex = new ProductSearchIndex();
+        searchIndex.onCatalogUpdated(new CatalogUpdatedEvent(products, true));
+        catalogService = new CatalogService(null, null, searchIndex, null) {
+            @Override
+            CatalogSnapshot current() {
+                return snapshot;
+            }
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> likeQuery() {
+        String keyword = QUERIES[next++ % QUERIES.length];
+        return readOnly.execute(status -> productRepository.findByNameContainingIgnoreCase(keyword).stream()
+                .map(ProductService::convertToDTO)
+                .collect(Collectors.toList()));
+    }
+
+    @Benchmark
+    public List<ProductResponseDTO> snapshotScan() {
+        String term = QUERIES[next++ % QUERIES.length];
+        return snapshot.all().stream()
+                .filter(p -> Boolean.TRUE.equals(p.getActive()))
+                .filter(p -> p.getName() != null && p.getName().toLowerCase().contains(term))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public ProductSearchResponseDTO indexSearch() {
+        return catalogService.searchProducts(QUERIES[next++ % QUERIES.length]);
+    }
+}
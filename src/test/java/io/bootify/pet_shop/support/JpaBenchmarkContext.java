@@ -0,0 +1,42 @@
+package io.bootify.pet_shop.support;
+
+import io.bootify.pet_shop.config.HibernateConfig;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Contexto mínimo para los benchmarks: entidades, repositorios y transacciones contra
+ * PostgreSQL embebido, sin web ni servicios. El esquema lo crea Hibernate.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EntityScan("io.bootify.pet_shop.models")
+@EnableJpaRepositories("io.bootify.pet_shop.repositories")
+@Import(HibernateConfig.class)
+public class JpaBenchmarkContext {
+
+    @Bean
+    static StatementCounter statementCounter() {
+        return new StatementCounter();
+    }
+
+    public static ConfigurableApplicationContext start(Class<?>... sources) {
+        // Como argumentos de línea de comando para que pisen application.properties
+        return new SpringApplicationBuilder(JpaBenchmarkContext.class)
+                .sources(sources)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + TestDatabase.jdbcUrl(),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=postgres",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.main.lazy-initialization=false",
+                        "--logging.level.io.bootify.pet_shop=WARN");
+    }
+}
@@ -0,0 +1,52 @@
+package io.bootify.pet_shop.support;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Filas mínimas para las pruebas contra la base real, insertadas por SQL para no
+ * depender de los constructores de las entidades.
+ */
+public final class TestData {
+
+    private TestData() {
+    }
+
+    // Tablas con datos de prueba, en un orden que respeta las claves foráneas
+    public static void truncateAll(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("TRUNCATE inventory_snapshots, inventory_movements, sale_items, sales, "
+                + "cart_items, carts, products, categories, users RESTART IDENTITY CASCADE");
+    }
+
+    public static long user(JdbcTemplate jdbcTemplate, String email) {
+        return jdbcTemplate.queryForObject("INSERT INTO users (email, password, first_name, last_name, phone, role) "
+                + "VALUES (?, 'secreto', 'Ana', 'Pérez', '3000000000', 'CUSTOMER') RETURNING id", Long.class, email);
+    }
+
+    public static long category(JdbcTemplate jdbcTemplate, String name) {
+        return jdbcTemplate.queryForObject("INSERT INTO categories (name, created_at, updated_at) "
+                + "VALUES (?, now(), now()) RETURNING id", Long.class, name);
+    }
+
+    public static long product(JdbcTemplate jdbcTemplate, String name, int stock) {
+        return product(jdbcTemplate, name, stock, "FOOD", new BigDecimal("10000.00"), null);
+    }
+
+    public static long product(JdbcTemplate jdbcTemplate, String name, int stock, String type, BigDecimal price,
+            Long categoryId) {
+        return jdbcTemplate.queryForObject("INSERT INTO products (name, price, stock, min_stock, active, flash_sale, "
+                + "type, version, category_id, created_at, updated_at) "
+                + "VALUES (?, ?, ?, 5, true, false, ?, 0, ?, now(), now()) RETURNING id",
+                Long.class, name, price, stock, type, categoryId);
+    }
+
+    // Muchos productos en una sola sentencia, para las pruebas de volumen
+    public static List<Long> products(JdbcTemplate jdbcTemplate, int count, int stock) {
+        return jdbcTemplate.queryForList("INSERT INTO products (name, price, stock, min_stock, active, flash_sale, "
+                + "type, version, created_at, updated_at) "
+                + "SELECT 'Producto ' || g, 10000.00, ?, 5, true, false, 'FOOD', 0, now(), now() "
+                + "FROM generate_series(1, ?) g RETURNING id", Long.class, stock, count);
+    }
+}
@@ -0,0 +1,55 @@
+package io.bootify.pet_shop.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * PostgreSQL embebido para las pruebas y benchmarks que necesitan la base real
+ * (bloqueos, ON CONFLICT, funciones de ventana). Se levanta una sola vez por JVM.
+ */
+public final class TestDatabase {
+
+    private static EmbeddedPostgres postgres;
+
+    private TestDatabase() {
+    }
+
+    public static synchronized EmbeddedPostgres postgres() {
+        if (postgres == null) {
+            try {
+                EmbeddedPostgres started = EmbeddedPostgres.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        started.close();
+                    } catch (IOException ignored) {
+                        // La JVM ya está terminando
+                    }
+                }));
+                postgres = started;
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo iniciar PostgreSQL embebido", e);
+            }
+        }
+        return postgres;
+    }
+
+    public static DataSource dataSource() {
+        return postgres().getPostgresDatabase();
+    }
+
+    public static String jdbcUrl() {
+        return postgres().getJdbcUrl("postgres", "postgres");
+    }
+
+    // Para @DynamicPropertySource: el esquema lo crea Hibernate a partir de las entidades
+    public static void register(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", TestDatabase::jdbcUrl);
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "create");
+    }
+}
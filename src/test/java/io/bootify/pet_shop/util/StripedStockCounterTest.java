@@ -0,0 +1,87 @@
+package io.bootify.pet_shop.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StripedStockCounterTest {
+
+    @Test
+    void negativeAdjustmentFailsInsteadOfClamping() {
+        StripedStockCounter counter = new StripedStockCounter(4, 10);
+
+        assertThatThrownBy(() -> counter.adjust(-11))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(counter.available()).isEqualTo(10);
+
+        counter.adjust(-10);
+        assertThat(counter.available()).isZero();
+        counter.adjust(3);
+        assertThat(counter.available()).isEqualTo(3);
+    }
+
+    @Test
+    void acquireSpansCellsWhenNoSingleCellHasEnough() {
+        StripedStockCounter counter = new StripedStockCounter(8, 8);
+
+        assertThat(counter.tryAcquire(5)).isTrue();
+        assertThat(counter.tryAcquire(4)).isFalse();
+        assertThat(counter.available()).isEqualTo(3);
+    }
+
+    // Muchos hilos compitiendo por pocas unidades: nunca se vende de más ni se pierden unidades
+    @Test
+    void concurrentAcquiresAndAdjustmentsNeverOversell() throws Exception {
+        int threads = 16;
+        int attemptsPerThread = 20_000;
+        long initial = 50_000;
+        StripedStockCounter counter = new StripedStockCounter(8, initial);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            results.add(pool.submit(() -> {
+                start.await();
+                long acquired = 0;
+                long adjusted = 0;
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    int quantity = 1 + (i + seed) % 3;
+                    if (i % 50 == 0) {
+                        // Ajuste administrativo a la baja compitiendo con los checkouts
+                        try {
+                            counter.adjust(-quantity);
+                            adjusted += quantity;
+                        } catch (IllegalStateException ignored) {
+                            // No alcanzó: no debe haber tocado nada
+                        }
+                    } else if (counter.tryAcquire(quantity)) {
+                        acquired += quantity;
+                    }
+                }
+                return new long[] { acquired, adjusted };
+            }));
+        }
+        start.countDown();
+
+        long taken = 0;
+        for (Future<long[]> result : results) {
+            long[] counts = result.get(30, TimeUnit.SECONDS);
+            taken += counts[0] + counts[1];
+        }
+        pool.shutdown();
+
+        assertThat(counter.available()).isGreaterThanOrEqualTo(0);
+        assertThat(taken + counter.available()).isEqualTo(initial);
+    }
+}
@@ -0,0 +1,96 @@
+package io.bootify.pet_shop.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencia de SymSpellDictionary.lookup sobre vocabularios generados al azar: palabras
+ * con una trasposición y una letra cambiada (distancia 2, siempre se corrigen) y cadenas
+ * sin ninguna palabra a distancia 2 o menos.
+ *
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark="SymSpellDictionaryBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SymSpellDictionaryBenchmark {
+
+    private static final String LETTERS = "abcdefghijlmnopqrstuvyzñáéíó";
+    private static final int QUERIES = 4_096;
+
+    @Param({ "10000", "50000" })
+    public int vocabularySize;
+
+    private SymSpellDictionary dictionary;
+    private String[] misspelled;
+    private String[] unknown;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        dictionary = new SymSpellDictionary(2);
+        List<String> vocabulary = new ArrayList<>();
+        while (dictionary.size() < vocabularySize) {
+            String word = randomWord(random, 4 + random.nextInt(9));
+            if (!dictionary.contains(word)) {
+                vocabulary.add(word);
+            }
+            dictionary.add(word);
+        }
+
+        misspelled = new String[QUERIES];
+        unknown = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            char[] chars = vocabulary.get(random.nextInt(vocabulary.size())).toCharArray();
+            int swap = random.nextInt(chars.length - 1);
+            char tmp = chars[swap];
+            chars[swap] = chars[swap + 1];
+            chars[swap + 1] = tmp;
+            chars[random.nextInt(chars.length)] = LETTERS.charAt(random.nextInt(LETTERS.length()));
+            misspelled[i] = new String(chars);
+
+            String candidate;
+            do {
+                candidate = randomWord(random, 8 + random.nextInt(5));
+            } while (dictionary.lookup(candidate) != null);
+            unknown[i] = candidate;
+        }
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+        }
+        return word.toString();
+    }
+
+    @Benchmark
+    public String lookupMisspelled() {
+        return dictionary.lookup(misspelled[next++ & (QUERIES - 1)]);
+    }
+
+    @Benchmark
+    public String lookupUnknown() {
+        return dictionary.lookup(unknown[next++ & (QUERIES - 1)]);
+    }
+}
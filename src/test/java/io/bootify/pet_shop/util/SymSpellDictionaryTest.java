@@ -0,0 +1,116 @@
+package io.bootify.pet_shop.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SymSpellDictionaryTest {
+
+    private static SymSpellDictionary dictionaryOf(String... words) {
+        SymSpellDictionary dictionary = new SymSpellDictionary(2);
+        for (String word : words) {
+            dictionary.add(word);
+        }
+        return dictionary;
+    }
+
+    @Test
+    void correctsTranspositionsAsASingleEdit() {
+        SymSpellDictionary dictionary = dictionaryOf("arena", "sanitaria", "perro");
+
+        assertThat(dictionary.lookup("sanitaira")).isEqualTo("sanitaria");
+        assertThat(dictionary.lookup("aerna")).isEqualTo("arena");
+        // Trasposición más una letra de más: distancia 2, todavía dentro del límite
+        assertThat(dictionary.lookup("perrro")).isEqualTo("perro");
+    }
+
+    @Test
+    void exactWordsAndWordsBeyondTheDistanceLimit() {
+        SymSpellDictionary dictionary = dictionaryOf("gato", "collar");
+
+        assertThat(dictionary.lookup("gato")).isEqualTo("gato");
+        assertThat(dictionary.lookup("gatitos")).isNull();
+        assertThat(dictionary.lookup("xyz")).isNull();
+    }
+
+    @Test
+    void tiesAtTheSameDistanceGoToTheMoreFrequentWord() {
+        SymSpellDictionary dictionary = dictionaryOf("pato", "gato", "gato", "gato");
+
+        assertThat(dictionary.lookup("dato")).isEqualTo("gato");
+
+        dictionary.add("pato");
+        dictionary.add("pato");
+        dictionary.add("pato");
+        assertThat(dictionary.lookup("dato")).isEqualTo("pato");
+    }
+
+    @Test
+    void closerWordWinsOverMoreFrequentOne() {
+        SymSpellDictionary dictionary = dictionaryOf("correa", "correas", "correas", "correas");
+
+        assertThat(dictionary.lookup("corea")).isEqualTo("correa");
+    }
+
+    @Test
+    void longWordsAreIndexedByTheirFirstSevenLetters() {
+        SymSpellDictionary dictionary = dictionaryOf("concentrado", "alimentacion");
+
+        // Errores después del prefijo: el prefijo coincide y la distancia se mide sobre la palabra entera
+        assertThat(dictionary.lookup("concentardo")).isEqualTo("concentrado");
+        assertThat(dictionary.lookup("alimentacoin")).isEqualTo("alimentacion");
+        // Errores dentro del prefijo
+        assertThat(dictionary.lookup("cocnentrado")).isEqualTo("concentrado");
+        // Prefijo idéntico pero tres cambios al final: fuera del límite
+        assertThat(dictionary.lookup("concentrxyz")).isNull();
+    }
+
+    @Test
+    void removedWordsAreNoLongerSuggested() {
+        SymSpellDictionary dictionary = dictionaryOf("hamster", "hamster");
+
+        dictionary.remove("hamster");
+        assertThat(dictionary.lookup("hamstre")).isEqualTo("hamster");
+
+        dictionary.remove("hamster");
+        assertThat(dictionary.lookup("hamstre")).isNull();
+        assertThat(dictionary.size()).isZero();
+    }
+
+    // La latencia se mide en SymSpellDictionaryBenchmark; acá sólo que todo error a distancia 2 se corrige
+    @Test
+    void everyQueryWithinTwoEditsOfAFiftyThousandWordVocabularyGetsASuggestion() {
+        Random random = new Random(42);
+        String letters = "abcdefghijlmnopqrstuvyzñáéíó";
+        SymSpellDictionary dictionary = new SymSpellDictionary(2);
+        List<String> vocabulary = new ArrayList<>();
+        while (dictionary.size() < 50_000) {
+            StringBuilder word = new StringBuilder();
+            int length = 4 + random.nextInt(9);
+            for (int i = 0; i < length; i++) {
+                word.append(letters.charAt(random.nextInt(letters.length())));
+            }
+            String added = word.toString();
+            if (!dictionary.contains(added)) {
+                vocabulary.add(added);
+            }
+            dictionary.add(added);
+        }
+
+        // Una trasposición y una letra cambiada en posiciones al azar
+        for (int i = 0; i < 2_000; i++) {
+            char[] chars = vocabulary.get(random.nextInt(vocabulary.size())).toCharArray();
+            int swap = random.nextInt(chars.length - 1);
+            char tmp = chars[swap];
+            chars[swap] = chars[swap + 1];
+            chars[swap + 1] = tmp;
+            chars[random.nextInt(chars.length)] = letters.charAt(random.nextInt(letters.length()));
+            String query = new String(chars);
+            assertThat(dictionary.lookup(query)).as(query).isNotNull();
+        }
+    }
+}